@@ -0,0 +1,66 @@
+package com.example.benchmark;
+
+import com.example.benchmark.beans.Catalog;
+import com.example.container.BeanFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hit path of a {@code @Cacheable} method compared to calling the (cheap) method directly: a single String argument
+ * is its own key, two arguments are wrapped in a composite key. The contended case shares the hot entry between
+ * four threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+    private Catalog direct;
+    private Catalog cached;
+    private String id = "42";
+    private String category = "books";
+    private int number = 42;
+
+    @Setup
+    public void setUp() throws Exception {
+        BeanFactory factory = new BeanFactory("com.example.benchmark.beans");
+        cached = factory.getBean(Catalog.class);
+        direct = new Catalog();
+        cached.find(id);
+        cached.find(category, number);
+    }
+
+    @Benchmark
+    public String directCall() {
+        return direct.find(id);
+    }
+
+    @Benchmark
+    public String cacheHit() {
+        return cached.find(id);
+    }
+
+    @Benchmark
+    public String cacheHitCompositeKey() {
+        return cached.find(category, number);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String cacheHitContended() {
+        return cached.find(id);
+    }
+}
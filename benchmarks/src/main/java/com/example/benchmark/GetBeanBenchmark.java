@@ -0,0 +1,59 @@
+package com.example.benchmark;
+
+import com.example.benchmark.beans.PrototypeService;
+import com.example.benchmark.beans.SingletonService;
+import com.example.container.BeanFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code getBean} throughput for a singleton (the lock-free fast path) and a prototype without dependencies, from
+ * one thread and from four threads sharing the same container.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GetBeanBenchmark {
+    private BeanFactory factory;
+
+    @Setup
+    public void setUp() {
+        factory = new BeanFactory("com.example.benchmark.beans");
+    }
+
+    @Benchmark
+    public Object singleton() throws Exception {
+        return factory.getBean(SingletonService.class);
+    }
+
+    @Benchmark
+    public Object prototype() throws Exception {
+        return factory.getBean(PrototypeService.class);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object singletonContended() throws Exception {
+        return factory.getBean(SingletonService.class);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object prototypeContended() throws Exception {
+        return factory.getBean(PrototypeService.class);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.benchmark;
+
+import com.example.benchmark.beans.ConstructorInjectedBean;
+import com.example.benchmark.beans.FieldInjectedBean;
+import com.example.container.BeanFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of creating a prototype with two dependencies (a singleton and another prototype) through field injection
+ * compared to constructor injection. Both beans have identical dependencies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InjectionBenchmark {
+    private BeanFactory factory;
+
+    @Setup
+    public void setUp() {
+        factory = new BeanFactory("com.example.benchmark.beans");
+    }
+
+    @Benchmark
+    public Object fieldInjection() throws Exception {
+        return factory.getBean(FieldInjectedBean.class);
+    }
+
+    @Benchmark
+    public Object constructorInjection() throws Exception {
+        return factory.getBean(ConstructorInjectedBean.class);
+    }
+}
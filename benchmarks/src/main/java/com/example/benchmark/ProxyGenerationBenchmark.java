@@ -0,0 +1,124 @@
+package com.example.benchmark;
+
+import com.example.annotation.aop.AdviceChain;
+import com.example.annotation.aop.AdviceInterceptor;
+import com.example.benchmark.beans.Counter;
+import com.example.container.ProxyGeneratorAccess;
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.Dispatcher;
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.MethodInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The container's generated subclass proxies against the CGLIB setup they replaced (a Dispatcher for unadvised
+ * methods and a MethodInterceptor per advised one), for the same bean and advice: defining a proxy class, creating
+ * a proxy for an existing target, and calls through it. The generator is package-private, so it is reached through
+ * {@link ProxyGeneratorAccess}; CGLIB needs {@code --add-opens} to define classes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+@State(Scope.Benchmark)
+public class ProxyGenerationBenchmark {
+    private List<Method> advisedMethods;
+    private AdviceChain[] chains;
+    private Counter target;
+    private ProxyGeneratorAccess.AdviceProxyClass subclassProxyClass;
+    private Class<?> cglibProxyClass;
+    private Counter subclassProxy;
+    private Counter cglibProxy;
+
+    @Setup
+    public void setUp() throws Exception {
+        Method increment = Counter.class.getMethod("increment");
+        AdviceInterceptor interceptor = invocation -> invocation.proceed();
+        advisedMethods = List.of(increment);
+        chains = new AdviceChain[]{AdviceChain.of(increment, List.of(interceptor))};
+        target = new Counter();
+        subclassProxyClass = ProxyGeneratorAccess.defineAdviceProxy(Counter.class, advisedMethods);
+        cglibProxyClass = defineCglibClass();
+        subclassProxy = newSubclassProxy();
+        cglibProxy = newCglibProxy();
+    }
+
+    // Each call defines a new class: the container caches them per bean class and advice set, CGLIB's cache is off
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 20)
+    @Measurement(iterations = 50)
+    public Object defineSubclassClass() {
+        return ProxyGeneratorAccess.defineAdviceProxy(Counter.class, advisedMethods);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 20)
+    @Measurement(iterations = 50)
+    public Class<?> defineCglibClass() {
+        Enhancer enhancer = new Enhancer();
+        enhancer.setSuperclass(Counter.class);
+        enhancer.setCallbackFilter(method -> method.getName().equals("increment") && method.getParameterCount() == 0 ? 1 : 0);
+        enhancer.setCallbackTypes(new Class<?>[]{Dispatcher.class, MethodInterceptor.class});
+        enhancer.setUseCache(false);
+        return enhancer.createClass();
+    }
+
+    @Benchmark
+    public Counter newSubclassProxy() {
+        return (Counter) subclassProxyClass.newInstance(target, chains);
+    }
+
+    @Benchmark
+    public Counter newCglibProxy() throws Exception {
+        Counter proxyTarget = target;
+        AdviceChain chain = chains[0];
+        Callback[] callbacks = {
+                (Dispatcher) () -> proxyTarget,
+                (MethodInterceptor) (proxy, method, args, methodProxy) -> chain.invoke(proxyTarget, args)
+        };
+        Enhancer.registerCallbacks(cglibProxyClass, callbacks);
+        try {
+            return (Counter) cglibProxyClass.getDeclaredConstructor().newInstance();
+        } finally {
+            Enhancer.registerCallbacks(cglibProxyClass, null);
+        }
+    }
+
+    @Benchmark
+    public int subclassAdvised() {
+        return subclassProxy.increment();
+    }
+
+    @Benchmark
+    public int subclassUnadvised() {
+        return subclassProxy.get();
+    }
+
+    @Benchmark
+    public int cglibAdvised() {
+        return cglibProxy.increment();
+    }
+
+    @Benchmark
+    public int cglibUnadvised() {
+        return cglibProxy.get();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.benchmark;
+
+import com.example.benchmark.beans.Calculator;
+import com.example.benchmark.beans.CalculatorImpl;
+import com.example.benchmark.beans.Counter;
+import com.example.container.BeanFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of going through an advised proxy compared to calling the bean directly, on both proxy paths.
+ * The "unadvised" cases call a method of the same proxy that no advice applies to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyInvocationBenchmark {
+    private Calculator directCalculator;
+    private Calculator jdkProxy;
+    private Counter directCounter;
+    private Counter subclassProxy;
+    private int a = 3;
+    private int b = 4;
+
+    @Setup
+    public void setUp() throws Exception {
+        BeanFactory factory = new BeanFactory("com.example.benchmark.beans");
+        jdkProxy = factory.getBean(Calculator.class);
+        subclassProxy = factory.getBean(Counter.class);
+        directCalculator = new CalculatorImpl();
+        directCounter = new Counter();
+    }
+
+    @Benchmark
+    public int directCall() {
+        return directCalculator.add(a, b);
+    }
+
+    @Benchmark
+    public int jdkProxyAdvised() {
+        return jdkProxy.add(a, b);
+    }
+
+    @Benchmark
+    public int jdkProxyUnadvised() {
+        return jdkProxy.multiply(a, b);
+    }
+
+    @Benchmark
+    public int directCounterCall() {
+        return directCounter.increment();
+    }
+
+    @Benchmark
+    public int subclassProxyAdvised() {
+        return subclassProxy.increment();
+    }
+
+    @Benchmark
+    public int subclassProxyUnadvised() {
+        return subclassProxy.get();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.benchmark;
+
+import com.example.container.BeanFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URLClassLoader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from {@code new BeanFactory(...)} to the first {@code getBean} over generated component sets, in eager and
+ * lazy-init mode. Each iteration uses a fresh class loader, so class loading is part of the measurement.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+    @Param({"100", "1000", "10000"})
+    private int componentCount;
+
+    @Param({"false", "true"})
+    private boolean lazyInit;
+
+    private SyntheticComponents components;
+    private URLClassLoader classLoader;
+    private Class<?> firstBeanType;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        components = SyntheticComponents.generate(componentCount);
+        // The container logs every registration; keep that out of the measurement
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Setup(Level.Iteration)
+    public void newClassLoader() throws Exception {
+        classLoader = components.newClassLoader();
+        firstBeanType = components.rootComponent(classLoader);
+        Thread.currentThread().setContextClassLoader(classLoader);
+    }
+
+    @Benchmark
+    public Object timeToFirstGetBean() throws Exception {
+        BeanFactory factory = new BeanFactory(components.getPackageName(), lazyInit);
+        return factory.getBean(firstBeanType);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeClassLoader() throws IOException {
+        Thread.currentThread().setContextClassLoader(StartupBenchmark.class.getClassLoader());
+        classLoader.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        System.setOut(originalOut);
+        components.delete();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.benchmark;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Generates and compiles a package of {@code count} components for startup benchmarks. Component {@code Ci}
+ * depends on {@code C(i/2)}, so the dependency graph is a binary tree; every fourth component is injected through
+ * its constructor and every other one has a {@code @PostConstruct} method. The container's annotation processor
+ * is on the classpath, so the output directory also gets a component index.
+ */
+final class SyntheticComponents {
+    private final String packageName;
+    private final Path classesDirectory;
+
+    private SyntheticComponents(String packageName, Path classesDirectory) {
+        this.packageName = packageName;
+        this.classesDirectory = classesDirectory;
+    }
+
+    static SyntheticComponents generate(int count) throws IOException {
+        String packageName = "bench.generated" + count;
+        Path root = Files.createTempDirectory("clone-spring-bench");
+        Path sources = root.resolve("src");
+        Path classes = root.resolve("classes");
+        Path packageDirectory = sources.resolve(packageName.replace('.', '/'));
+        Files.createDirectories(packageDirectory);
+        Files.createDirectories(classes);
+
+        List<String> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Path file = packageDirectory.resolve("C" + i + ".java");
+            Files.writeString(file, source(packageName, i));
+            files.add(file.toString());
+        }
+
+        List<String> arguments = new ArrayList<>(List.of("-d", classes.toString(), "-cp", System.getProperty("java.class.path"), "-nowarn"));
+        arguments.addAll(files);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        if (compiler.run(null, null, errors, arguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("Could not compile synthetic components:\n" + errors);
+        }
+        deleteRecursively(sources);
+        return new SyntheticComponents(packageName, classes);
+    }
+
+    private static String source(String packageName, int i) {
+        StringBuilder source = new StringBuilder()
+                .append("package ").append(packageName).append(";\n")
+                .append("import com.example.annotation.*;\n")
+                .append("@Component\n")
+                .append("public class C").append(i).append(" {\n");
+        if (i > 0) {
+            String dependency = "C" + (i / 2);
+            if (i % 4 == 0) {
+                source.append("    private final ").append(dependency).append(" dependency;\n")
+                        .append("    @Autowired\n")
+                        .append("    public C").append(i).append("(").append(dependency).append(" dependency) { this.dependency = dependency; }\n");
+            } else {
+                source.append("    @Autowired\n")
+                        .append("    private ").append(dependency).append(" dependency;\n");
+            }
+        }
+        if (i % 2 == 1) {
+            source.append("    private int state;\n")
+                    .append("    @PostConstruct\n")
+                    .append("    public void init() { state = ").append(i).append("; }\n");
+        }
+        source.append("    public int id() { return ").append(i).append("; }\n")
+                .append("}\n");
+        return source.toString();
+    }
+
+    String getPackageName() {
+        return packageName;
+    }
+
+    // A fresh loader per call, so each measurement pays for class loading as a real boot would
+    URLClassLoader newClassLoader() throws IOException {
+        return new URLClassLoader(new URL[]{classesDirectory.toUri().toURL()}, SyntheticComponents.class.getClassLoader());
+    }
+
+    Class<?> rootComponent(ClassLoader classLoader) throws ClassNotFoundException {
+        return Class.forName(packageName + ".C0", false, classLoader);
+    }
+
+    void delete() throws IOException {
+        deleteRecursively(classesDirectory.getParent());
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.benchmark.beans;
+
+import com.example.annotation.aop.Aspect;
+import com.example.annotation.aop.Before;
+
+// Advises add and increment only; multiply and get stay unadvised on the same proxies
+@Aspect
+public class BenchmarkAspect {
+    public static int calls;
+
+    @Before("com.example.benchmark.beans.CalculatorImpl.add")
+    public static void beforeAdd() {
+        calls++;
+    }
+
+    @Before("com.example.benchmark.beans.Counter.increment")
+    public static void beforeIncrement() {
+        calls++;
+    }
+}
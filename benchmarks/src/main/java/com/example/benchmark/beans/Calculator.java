@@ -0,0 +1,7 @@
+package com.example.benchmark.beans;
+
+public interface Calculator {
+    int add(int a, int b);
+
+    int multiply(int a, int b);
+}
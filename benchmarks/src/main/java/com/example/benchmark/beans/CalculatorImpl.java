@@ -0,0 +1,15 @@
+package com.example.benchmark.beans;
+
+import com.example.annotation.Component;
+
+// Final, so its proxy cannot be a subclass: it is proxied with a JDK proxy of its interface
+@Component
+public final class CalculatorImpl implements Calculator {
+    public int add(int a, int b) {
+        return a + b;
+    }
+
+    public int multiply(int a, int b) {
+        return a * b;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.benchmark.beans;
+
+import com.example.annotation.Cacheable;
+import com.example.annotation.Component;
+
+// Stands in for a lookup against a slow backend; the cached methods are what CacheBenchmark calls
+@Component
+public class Catalog {
+    @Cacheable("catalog")
+    public String find(String id) {
+        return lookup(id);
+    }
+
+    @Cacheable("catalog")
+    public String find(String category, int id) {
+        return lookup(category + id);
+    }
+
+    public String lookup(String id) {
+        return "item-" + id;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.benchmark.beans;
+
+import com.example.annotation.Autowired;
+import com.example.annotation.Component;
+import com.example.annotation.Scope;
+
+// Same dependencies as FieldInjectedBean, passed to the constructor
+@Component
+@Scope("prototype")
+public class ConstructorInjectedBean {
+    private final SingletonService service;
+    private final PrototypeService prototype;
+
+    @Autowired
+    public ConstructorInjectedBean(SingletonService service, PrototypeService prototype) {
+        this.service = service;
+        this.prototype = prototype;
+    }
+
+    public int value() {
+        return service.value() + prototype.value();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.benchmark.beans;
+
+import com.example.annotation.Component;
+
+// No interface, so it is proxied with a generated subclass
+@Component
+public class Counter {
+    private int value;
+
+    public int increment() {
+        return ++value;
+    }
+
+    public int get() {
+        return value;
+    }
+}
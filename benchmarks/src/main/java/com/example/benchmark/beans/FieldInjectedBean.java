@@ -0,0 +1,19 @@
+package com.example.benchmark.beans;
+
+import com.example.annotation.Autowired;
+import com.example.annotation.Component;
+import com.example.annotation.Scope;
+
+// Same dependencies as ConstructorInjectedBean, injected into fields after construction
+@Component
+@Scope("prototype")
+public class FieldInjectedBean {
+    @Autowired
+    private SingletonService service;
+    @Autowired
+    private PrototypeService prototype;
+
+    public int value() {
+        return service.value() + prototype.value();
+    }
+}
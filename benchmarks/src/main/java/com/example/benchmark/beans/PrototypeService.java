@@ -0,0 +1,13 @@
+package com.example.benchmark.beans;
+
+import com.example.annotation.Component;
+import com.example.annotation.Scope;
+
+// No dependencies, so getBean measures the bare cost of a prototype
+@Component
+@Scope("prototype")
+public class PrototypeService {
+    public int value() {
+        return 42;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.benchmark.beans;
+
+import com.example.annotation.Component;
+
+@Component
+public class SingletonService {
+    public int value() {
+        return 42;
+    }
+}
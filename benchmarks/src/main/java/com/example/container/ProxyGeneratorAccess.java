@@ -0,0 +1,34 @@
+package com.example.container;
+
+import com.example.annotation.aop.AdviceChain;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * The only way the benchmarks reach into the container's package, so that {@link SubclassProxyGenerator} can be
+ * measured on its own without making it public. It exists in this module only; everything else the benchmarks use
+ * is the container's public API.
+ */
+public final class ProxyGeneratorAccess {
+    private ProxyGeneratorAccess() {
+    }
+
+    // Defines a new subclass proxy class for beanClass, whose advisedMethods go through the chains given to each proxy
+    public static AdviceProxyClass defineAdviceProxy(Class<?> beanClass, List<Method> advisedMethods) {
+        return new AdviceProxyClass(SubclassProxyGenerator.defineAdviceProxy(beanClass, advisedMethods));
+    }
+
+    public static final class AdviceProxyClass {
+        private final SubclassProxyGenerator.ProxyClass proxyClass;
+
+        private AdviceProxyClass(SubclassProxyGenerator.ProxyClass proxyClass) {
+            this.proxyClass = proxyClass;
+        }
+
+        // chains holds one chain per advised method, in the order they were given
+        public Object newInstance(Object target, AdviceChain[] chains) {
+            return proxyClass.newInstance(target, chains);
+        }
+    }
+}
@@ -1,14 +1,15 @@
 package com.example;
 
 import com.example.container.BeanFactory;
-import com.example.src.UserService;
+import com.example.src.UserServiceInterface;
 
 public class Main {
     public static void main(String[] args) {
         BeanFactory container = new BeanFactory("com.example");
-        UserService userService = null;
+        UserServiceInterface userService = null;
         try {
-            userService = container.getBean(UserService.class);
+            // Advised: the proxy extends UserService, so it could be looked up by its class as well
+            userService = container.getBean(UserServiceInterface.class);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,16 @@
+package com.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Runs calls through the bean's proxy on a container executor, so the caller does not wait. The method must return
+// void or a CompletableFuture (or Future, CompletionStage); on a class it applies to every public method.
+// Calls a bean makes to itself do not go through the proxy and stay synchronous.
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Async {
+    // Name of the executor; each gets its own threads and concurrency limit, see BeanFactory#registerExecutor
+    String value() default "default";
+}
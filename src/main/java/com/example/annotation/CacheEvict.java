@@ -0,0 +1,18 @@
+package com.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Removes the entry for the method's arguments, or every entry, from the named cache once the method returns
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CacheEvict {
+    String value();
+
+    boolean allEntries() default false;
+
+    // Evict even if the method throws, by evicting before it runs
+    boolean beforeInvocation() default false;
+}
@@ -0,0 +1,15 @@
+package com.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Returns the result stored in the named cache for the same arguments instead of calling the method, and stores
+// the result (null included) after a call. Size and time-to-live come from cache.<name>.max-size and .ttl-ms.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cacheable {
+    // Cache name; methods sharing a cache share entries for equal arguments
+    String value();
+}
@@ -8,5 +8,7 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
 public @interface Component {
+    String value() default ""; // Bean name; defaults to the simple class name starting in lower case
+
     String scope() default "singleton"; // Default scope is singleton
 }
@@ -0,0 +1,16 @@
+package com.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Registers the bean only when all of these classes are on the classpath. Checked from the class file without
+// loading the bean, so value may name classes that are missing at runtime; name takes classes by name instead.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ConditionalOnClass {
+    Class<?>[] value() default {};
+
+    String[] name() default {};
+}
@@ -0,0 +1,14 @@
+package com.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Registers the bean only when no other bean is assignable to these types, or to the annotated class if none are
+// given. Meant for fallback implementations, which are decided after every other bean is known.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ConditionalOnMissingBean {
+    Class<?>[] value() default {};
+}
@@ -0,0 +1,18 @@
+package com.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Registers the bean only when the property is set to havingValue, or to anything but "false" if havingValue is empty
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ConditionalOnProperty {
+    String name();
+
+    String havingValue() default "";
+
+    // Whether the bean is registered when the property is not set at all
+    boolean matchIfMissing() default false;
+}
@@ -0,0 +1,27 @@
+package com.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Called with every event published in the context (or a child) that is an instance of the listened-to type.
+// The method takes a single parameter: the event, or for an async listener a List of them delivered as a batch.
+// Listeners run in @Order order, then in the order their beans were registered.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface EventListener {
+    // Event types; the parameter type unless given, and required for a List parameter
+    Class<?>[] value() default {};
+
+    // Delivered on the named @Async executor instead of the publisher's thread, in publishing order
+    boolean async() default false;
+
+    String executor() default "default";
+
+    // Async only: events that queued up while the listener was busy are delivered together, at most this many
+    int maxBatchSize() default 256;
+
+    // Async only: equal events waiting in the same batch are delivered once
+    boolean coalesce() default false;
+}
@@ -0,0 +1,13 @@
+package com.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.FIELD, ElementType.PARAMETER})
+public @interface Lazy {
+    // On a class: create the singleton on first getBean. On an injection point: inject a proxy that resolves on first call.
+    boolean value() default true;
+}
@@ -0,0 +1,14 @@
+package com.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Order {
+    // Lower values come first. For advice, first means outermost: it runs before and finishes after the others.
+    // On an advice method it overrides the order of its aspect.
+    int value();
+}
@@ -0,0 +1,14 @@
+package com.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Registers the bean only when one of these profiles is active; "!name" matches when that profile is not.
+// With no active profile, the "default" profile is active.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Profile {
+    String[] value();
+}
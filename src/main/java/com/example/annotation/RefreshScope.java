@@ -0,0 +1,13 @@
+package com.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// The bean is re-created, with fresh @Value properties, after BeanFactory#refreshProperties finds that a property
+// it read has changed. Other beans get a proxy injected, so they always reach the current instance.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface RefreshScope {
+}
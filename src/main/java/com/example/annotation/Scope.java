@@ -8,5 +8,8 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
 public @interface Scope {
-    String value() default "singleton"; // Default scope is singleton
-}
\ No newline at end of file
+    String value() default "singleton"; // Default scope is singleton; also "prototype", "thread", "pooled" or a registered custom scope
+
+    // Inject a proxy that looks the bean up in its scope on every call, so a longer-lived bean can depend on it
+    boolean proxy() default false;
+}
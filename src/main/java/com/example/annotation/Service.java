@@ -8,6 +8,5 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
 public @interface Service {
-    // You could add a name attribute here if you want to identify beans by a specific name.
-    String value() default "";
+    String value() default ""; // Bean name; defaults to the simple class name starting in lower case
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Injects a configuration property, converted to the field or parameter type: "${key}", "${key:default}", or text
+// with placeholders in it. Strings, primitives and their wrappers, enums, Duration ("500ms", "10s", "PT1M"), Path,
+// lists, sets and arrays of those (comma-separated) are converted, as is any type with a valueOf(String), of(String)
+// or String constructor.
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+public @interface Value {
+    String value();
+}
@@ -0,0 +1,143 @@
+package com.example.annotation.aop;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * The interceptors that apply to one method of a proxied bean, resolved when the proxy is created, plus a
+ * {@link MethodHandle} to the method itself. A chain without interceptors calls the target straight away. An
+ * optional timer receives, per advised call, the time spent in advice as opposed to the target.
+ * <p>
+ * Ahead-of-time generated proxies build their chains with {@link #of(Class, String, Class[], TargetInvoker, List, ObjLongConsumer)}
+ * instead: the target is called through generated code, and the {@link Method} is only looked up if advice or
+ * the timer asks for it.
+ */
+public final class AdviceChain {
+    private static final MethodType TARGET_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+    private static final Object[] NO_ARGS = new Object[0];
+
+    // Calls the target method with the given arguments; implemented by generated code
+    @FunctionalInterface
+    public interface TargetInvoker {
+        Object invoke(Object target, Object[] args) throws Throwable;
+    }
+
+    private final Class<?> declaringClass;
+    private final String methodName;
+    private final Class<?>[] parameterTypes;
+    private volatile Method method; // Resolved on first use for generated chains
+    private final AdviceInterceptor[] interceptors;
+    private final MethodHandle targetHandle; // Exactly one of targetHandle and targetInvoker is set
+    private final TargetInvoker targetInvoker;
+    private final ObjLongConsumer<Method> adviceTimer; // null when advice is not timed
+
+    private AdviceChain(Class<?> declaringClass, String methodName, Class<?>[] parameterTypes, Method method, AdviceInterceptor[] interceptors,
+                        MethodHandle targetHandle, TargetInvoker targetInvoker, ObjLongConsumer<Method> adviceTimer) {
+        this.declaringClass = declaringClass;
+        this.methodName = methodName;
+        this.parameterTypes = parameterTypes;
+        this.method = method;
+        this.interceptors = interceptors;
+        this.targetHandle = targetHandle;
+        this.targetInvoker = targetInvoker;
+        this.adviceTimer = adviceTimer;
+    }
+
+    public static AdviceChain of(Method method, List<AdviceInterceptor> interceptors) {
+        return of(method, interceptors, null);
+    }
+
+    /**
+     * @param adviceTimer called after each advised call with the method and the nanoseconds spent in its advice,
+     *                    or null to skip timing
+     */
+    public static AdviceChain of(Method method, List<AdviceInterceptor> interceptors, ObjLongConsumer<Method> adviceTimer) {
+        try {
+            method.setAccessible(true);
+            MethodHandle targetHandle = MethodHandles.lookup().unreflect(method)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(TARGET_TYPE);
+            return new AdviceChain(method.getDeclaringClass(), method.getName(), method.getParameterTypes(), method,
+                    interceptors.toArray(new AdviceInterceptor[0]), targetHandle, null, adviceTimer);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access " + method, e);
+        }
+    }
+
+    /**
+     * A chain for generated code, which calls the target through {@code targetInvoker} without reflection.
+     *
+     * @param declaringClass the class the method is looked up in (including its superclasses) if it is needed
+     */
+    public static AdviceChain of(Class<?> declaringClass, String methodName, Class<?>[] parameterTypes, TargetInvoker targetInvoker,
+                                 List<AdviceInterceptor> interceptors, ObjLongConsumer<Method> adviceTimer) {
+        return new AdviceChain(declaringClass, methodName, parameterTypes, null, interceptors.toArray(new AdviceInterceptor[0]),
+                null, targetInvoker, adviceTimer);
+    }
+
+    public Method getMethod() {
+        Method resolved = method;
+        if (resolved == null) {
+            resolved = resolveMethod();
+            method = resolved;
+        }
+        return resolved;
+    }
+
+    private Method resolveMethod() {
+        for (Class<?> type = declaringClass; type != null; type = type.getSuperclass()) {
+            try {
+                return type.getDeclaredMethod(methodName, parameterTypes);
+            } catch (NoSuchMethodException e) {
+                // Inherited, keep looking
+            }
+        }
+        try {
+            return declaringClass.getMethod(methodName, parameterTypes); // Default method of an interface
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("No method " + methodName + " in " + declaringClass.getName(), e);
+        }
+    }
+
+    public boolean isAdvised() {
+        return interceptors.length > 0;
+    }
+
+    AdviceInterceptor[] getInterceptors() {
+        return interceptors;
+    }
+
+    public Object invoke(Object target, Object[] args) throws Throwable {
+        if (args == null) {
+            args = NO_ARGS; // JDK proxies pass null for no-argument methods
+        }
+        if (interceptors.length == 0) {
+            return invokeTarget(target, args);
+        }
+        if (adviceTimer == null) {
+            return new MethodInvocation(this, target, args).proceed();
+        }
+        long start = System.nanoTime();
+        MethodInvocation invocation = new MethodInvocation(this, target, args);
+        try {
+            return invocation.proceed();
+        } finally {
+            adviceTimer.accept(getMethod(), System.nanoTime() - start - invocation.getTargetNanos());
+        }
+    }
+
+    boolean isTimed() {
+        return adviceTimer != null;
+    }
+
+    Object invokeTarget(Object target, Object[] args) throws Throwable {
+        if (targetInvoker != null) {
+            return targetInvoker.invoke(target, args);
+        }
+        return (Object) targetHandle.invokeExact(target, args);
+    }
+}
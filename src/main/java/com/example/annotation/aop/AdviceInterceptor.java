@@ -0,0 +1,9 @@
+package com.example.annotation.aop;
+
+/**
+ * One link of an {@link AdviceChain}. Implementations do their work around {@link MethodInvocation#proceed()},
+ * which runs the rest of the chain and finally the target method.
+ */
+public interface AdviceInterceptor {
+    Object invoke(MethodInvocation invocation) throws Throwable;
+}
@@ -0,0 +1,103 @@
+package com.example.annotation.aop;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adapts advice methods to a single handle shape, {@code (MethodInvocation, Object) -> Object}. Parameters typed
+ * {@link JoinPoint} (or {@link ProceedingJoinPoint}) receive the invocation; at most one other parameter receives
+ * the second argument, which is the return value for @AfterReturning and the exception for @AfterThrowing.
+ */
+final class AdviceMethods {
+    static final MethodType ADVICE_TYPE = MethodType.methodType(Object.class, MethodInvocation.class, Object.class);
+
+    private AdviceMethods() {
+    }
+
+    // Adapted handles before an aspect is bound, per advice method; held by the aspect class, so they go with it
+    private static final ClassValue<Map<Method, MethodHandle>> UNBOUND = new ClassValue<>() {
+        @Override
+        protected Map<Method, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * @param aspect the aspect bean the advice is bound to, or null for a static advice method
+     */
+    static MethodHandle adapt(Method method, Object aspect) {
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        if (!isStatic && aspect == null) {
+            throw new IllegalArgumentException("No aspect instance for advice method " + method);
+        }
+        // Binding an instance is cheap, so every context binds its own aspect to the same adapted handle
+        Map<Method, MethodHandle> handles = UNBOUND.get(method.getDeclaringClass());
+        MethodHandle handle = handles.get(method);
+        if (handle == null) {
+            handle = adapt(method, isStatic);
+            handles.putIfAbsent(method, handle);
+        }
+        return isStatic ? handle : handle.bindTo(aspect);
+    }
+
+    // ADVICE_TYPE for static methods; instance methods take the aspect as an extra first argument
+    private static MethodHandle adapt(Method method, boolean isStatic) {
+        int offset = isStatic ? 0 : 1;
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        int[] reorder = new int[offset + parameterTypes.length];
+        Class<?>[] sourceTypes = new Class<?>[offset + parameterTypes.length];
+        if (!isStatic) {
+            sourceTypes[0] = Object.class;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            boolean joinPoint = JoinPoint.class.isAssignableFrom(parameterTypes[i]);
+            reorder[offset + i] = offset + (joinPoint ? 0 : 1);
+            sourceTypes[offset + i] = joinPoint ? MethodInvocation.class : Object.class;
+        }
+        extraParameterType(method); // Rejects more than one bound value
+        try {
+            method.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(method)
+                    .asType(MethodType.methodType(Object.class, sourceTypes));
+            return MethodHandles.permuteArguments(handle, isStatic ? ADVICE_TYPE : ADVICE_TYPE.insertParameterTypes(0, Object.class), reorder);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access advice method " + method, e);
+        }
+    }
+
+    // The type of the single non-JoinPoint parameter, or null if there is none
+    static Class<?> extraParameterType(Method method) {
+        Class<?> extraType = null;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!JoinPoint.class.isAssignableFrom(parameterType)) {
+                if (extraType != null) {
+                    throw new IllegalArgumentException("Advice method " + method + " may bind at most one value besides the JoinPoint");
+                }
+                extraType = parameterType;
+            }
+        }
+        return extraType;
+    }
+
+    // Whether a value can be bound to a parameter of the given type; used to filter @AfterReturning/@AfterThrowing
+    static boolean accepts(Class<?> parameterType, Object value) {
+        if (parameterType == null) {
+            return true;
+        }
+        if (parameterType.isPrimitive()) {
+            return value != null && MethodType.methodType(parameterType).wrap().returnType().isInstance(value);
+        }
+        return value == null || parameterType.isInstance(value);
+    }
+
+    static void requireNoExtraParameter(Method method) {
+        if (extraParameterType(method) != null) {
+            throw new IllegalArgumentException("Advice method " + method + " may only take a JoinPoint");
+        }
+    }
+}
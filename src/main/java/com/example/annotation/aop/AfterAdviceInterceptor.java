@@ -0,0 +1,23 @@
+package com.example.annotation.aop;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+// Runs an @After advice method once the rest of the chain is done, whether it returned or threw
+public class AfterAdviceInterceptor implements AdviceInterceptor {
+    private final MethodHandle advice;
+
+    public AfterAdviceInterceptor(Method adviceMethod, Object aspect) {
+        AdviceMethods.requireNoExtraParameter(adviceMethod);
+        this.advice = AdviceMethods.adapt(adviceMethod, aspect);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        try {
+            return invocation.proceed();
+        } finally {
+            Object ignored = (Object) advice.invokeExact(invocation, (Object) null);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.annotation.aop;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+/**
+ * Runs an @AfterReturning advice method after a normal return. If the advice declares a parameter for the return
+ * value, it only runs when the value fits that parameter.
+ */
+public class AfterReturningAdviceInterceptor implements AdviceInterceptor {
+    private final MethodHandle advice;
+    private final Class<?> returnType;
+
+    public AfterReturningAdviceInterceptor(Method adviceMethod, Object aspect) {
+        this.advice = AdviceMethods.adapt(adviceMethod, aspect);
+        this.returnType = AdviceMethods.extraParameterType(adviceMethod);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if (AdviceMethods.accepts(returnType, result)) {
+            Object ignored = (Object) advice.invokeExact(invocation, result);
+        }
+        return result;
+    }
+}
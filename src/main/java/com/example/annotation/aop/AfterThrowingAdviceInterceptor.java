@@ -0,0 +1,33 @@
+package com.example.annotation.aop;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+/**
+ * Runs an @AfterThrowing advice method when the rest of the chain throws, then rethrows. If the advice declares
+ * a Throwable parameter, it only runs for exceptions of that type.
+ */
+public class AfterThrowingAdviceInterceptor implements AdviceInterceptor {
+    private final MethodHandle advice;
+    private final Class<?> exceptionType;
+
+    public AfterThrowingAdviceInterceptor(Method adviceMethod, Object aspect) {
+        this.exceptionType = AdviceMethods.extraParameterType(adviceMethod);
+        if (exceptionType != null && !Throwable.class.isAssignableFrom(exceptionType)) {
+            throw new IllegalArgumentException("@AfterThrowing advice may only bind a Throwable: " + adviceMethod);
+        }
+        this.advice = AdviceMethods.adapt(adviceMethod, aspect);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            if (AdviceMethods.accepts(exceptionType, e)) {
+                Object ignored = (Object) advice.invokeExact(invocation, (Object) e);
+            }
+            throw e;
+        }
+    }
+}
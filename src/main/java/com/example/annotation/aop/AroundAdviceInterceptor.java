@@ -0,0 +1,26 @@
+package com.example.annotation.aop;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+// Hands the call to an @Around advice method, which proceeds through its ProceedingJoinPoint
+public class AroundAdviceInterceptor implements AdviceInterceptor {
+    private final MethodHandle advice;
+
+    public AroundAdviceInterceptor(Method adviceMethod, Object aspect) {
+        AdviceMethods.requireNoExtraParameter(adviceMethod);
+        boolean proceeding = false;
+        for (Class<?> parameterType : adviceMethod.getParameterTypes()) {
+            proceeding |= parameterType == ProceedingJoinPoint.class;
+        }
+        if (!proceeding) {
+            throw new IllegalArgumentException("@Around advice must take a ProceedingJoinPoint: " + adviceMethod);
+        }
+        this.advice = AdviceMethods.adapt(adviceMethod, aspect);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        return (Object) advice.invokeExact(invocation, (Object) null);
+    }
+}
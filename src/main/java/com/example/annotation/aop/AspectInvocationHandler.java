@@ -1,24 +1,34 @@
 package com.example.annotation.aop;
 
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Map;
 
 public class AspectInvocationHandler implements InvocationHandler {
     private final Object target;
-    private final Map<Method, Method> beforeAdvice; // Target method -> Advice method
+    private final Map<Method, AdviceChain> chains; // Interface method -> prebuilt chain, advised or not
 
-    public AspectInvocationHandler(Object target, Map<Method, Method> beforeAdvice) {
+    public AspectInvocationHandler(Object target, Map<Method, AdviceChain> chains) {
         this.target = target;
-        this.beforeAdvice = beforeAdvice;
+        this.chains = chains;
+    }
+
+    public Object getTarget() {
+        return target;
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        Method adviceMethod = beforeAdvice.get(method);
-        if (adviceMethod != null) {
-            adviceMethod.invoke(null, args); // For simplicity, assuming static advice methods for now
+        AdviceChain chain = chains.get(method);
+        if (chain != null) {
+            return chain.invoke(target, args);
+        }
+        // Only Object methods (equals, hashCode, toString) have no chain
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
         }
-        return method.invoke(target, args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package com.example.annotation.aop;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * First link of the chain of an {@code @Async} method: hands the rest of the chain, and so the target, to an
+ * executor and returns at once. The caller gets a future that completes like the one the method returns, or null
+ * for a void method, whose failures go to the given handler. A call the executor rejects fails on the caller's
+ * thread.
+ */
+public class AsyncInterceptor implements AdviceInterceptor {
+    private final Supplier<Executor> executor;
+    private final BiConsumer<Method, Throwable> voidFailureHandler;
+
+    // The executor is looked up on every call, so it can be registered or replaced after the bean is created
+    public AsyncInterceptor(Supplier<Executor> executor, BiConsumer<Method, Throwable> voidFailureHandler) {
+        this.executor = executor;
+        this.voidFailureHandler = voidFailureHandler;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) {
+        AsyncCall call = new AsyncCall(invocation.fork());
+        executor.get().execute(call);
+        return call.returnsVoid ? null : call;
+    }
+
+    // The future handed to the caller; a Future itself, so an executor that drops it can cancel it
+    private final class AsyncCall extends CompletableFuture<Object> implements Runnable {
+        private final MethodInvocation invocation;
+        private final boolean returnsVoid;
+
+        AsyncCall(MethodInvocation invocation) {
+            this.invocation = invocation;
+            this.returnsVoid = invocation.getMethod().getReturnType() == void.class;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                return; // Cancelled while it was waiting
+            }
+            try {
+                Object result = invocation.proceed();
+                if (result instanceof CompletionStage) {
+                    ((CompletionStage<?>) result).whenComplete((value, failure) -> {
+                        if (failure != null) {
+                            completeExceptionally(failure);
+                        } else {
+                            complete(value);
+                        }
+                    });
+                } else if (result instanceof java.util.concurrent.Future) {
+                    complete(((java.util.concurrent.Future<?>) result).get());
+                } else {
+                    complete(result);
+                }
+            } catch (Throwable e) {
+                if (returnsVoid) {
+                    voidFailureHandler.accept(invocation.getMethod(), e);
+                }
+                completeExceptionally(e);
+            }
+        }
+    }
+}
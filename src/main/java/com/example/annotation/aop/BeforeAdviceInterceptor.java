@@ -0,0 +1,20 @@
+package com.example.annotation.aop;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+// Runs a @Before advice method, then the rest of the chain
+public class BeforeAdviceInterceptor implements AdviceInterceptor {
+    private final MethodHandle advice;
+
+    public BeforeAdviceInterceptor(Method adviceMethod, Object aspect) {
+        AdviceMethods.requireNoExtraParameter(adviceMethod);
+        this.advice = AdviceMethods.adapt(adviceMethod, aspect);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object ignored = (Object) advice.invokeExact(invocation, (Object) null);
+        return invocation.proceed();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.annotation.aop;
+
+import java.lang.reflect.Method;
+
+// The call an advice method is running for. Declare it as the first parameter of an advice method to receive it.
+public interface JoinPoint {
+    Object getTarget();
+
+    Method getMethod();
+
+    Object[] getArgs();
+}
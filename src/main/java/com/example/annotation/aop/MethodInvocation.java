@@ -0,0 +1,75 @@
+package com.example.annotation.aop;
+
+import java.lang.reflect.Method;
+
+/**
+ * A single call travelling through an {@link AdviceChain}. Created per call, only for advised methods.
+ */
+public class MethodInvocation implements ProceedingJoinPoint {
+    private final AdviceChain chain;
+    private final Object target;
+    private Object[] args;
+    private int position; // Index of the next interceptor to run
+    private long targetNanos; // Time spent in the target, only measured for timed chains
+
+    MethodInvocation(AdviceChain chain, Object target, Object[] args) {
+        this.chain = chain;
+        this.target = target;
+        this.args = args;
+    }
+
+    @Override
+    public Object getTarget() {
+        return target;
+    }
+
+    @Override
+    public Method getMethod() {
+        return chain.getMethod();
+    }
+
+    @Override
+    public Object[] getArgs() {
+        return args;
+    }
+
+    // Re-entrant, so an @Around advice may proceed more than once (e.g. to retry)
+    @Override
+    public Object proceed() throws Throwable {
+        AdviceInterceptor[] interceptors = chain.getInterceptors();
+        if (position == interceptors.length) {
+            if (!chain.isTimed()) {
+                return chain.invokeTarget(target, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return chain.invokeTarget(target, args);
+            } finally {
+                targetNanos += System.nanoTime() - start;
+            }
+        }
+        int current = position++;
+        try {
+            return interceptors[current].invoke(this);
+        } finally {
+            position = current;
+        }
+    }
+
+    // A copy that resumes after the current interceptor, for one that continues the call on another thread
+    MethodInvocation fork() {
+        MethodInvocation copy = new MethodInvocation(chain, target, args);
+        copy.position = position;
+        return copy;
+    }
+
+    long getTargetNanos() {
+        return targetNanos;
+    }
+
+    @Override
+    public Object proceed(Object[] args) throws Throwable {
+        this.args = args;
+        return proceed();
+    }
+}
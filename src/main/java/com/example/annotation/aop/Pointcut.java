@@ -0,0 +1,194 @@
+package com.example.annotation.aop;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed pointcut expression of the form {@code typePattern.methodPattern[(parameterPatterns)]}, for example:
+ * <ul>
+ *     <li>{@code com.example.src.UserService.processData} - one method, as before</li>
+ *     <li>{@code com.example..UserServiceInterface.processData} - {@code ..} matches any number of packages</li>
+ *     <li>{@code com.example..*Service.process*(..)} - {@code *} matches within one name segment</li>
+ *     <li>{@code com.example..UserRepository+.*(String)} - {@code +} matches the type and all its subtypes</li>
+ * </ul>
+ * Without {@code +} the named type (a class, superclass or interface of the bean) must declare the method itself.
+ * Parameter patterns are simple or qualified type names, {@code *} for any one parameter and {@code ..} for
+ * any remaining parameters; leaving out the parentheses is the same as {@code (..)}. In the type, {@code ..}
+ * only stands between two names, and in the parameters only as the last pattern. Matching walks the type
+ * hierarchy, so it is meant to run once per bean class, not per call.
+ */
+public final class Pointcut {
+    private final String expression;
+    private final Pattern typePattern;
+    private final boolean includeSubtypes;
+    private final Pattern methodPattern;
+    private final List<String> parameterPatterns; // null means any parameters
+
+    private Pointcut(String expression, Pattern typePattern, boolean includeSubtypes, Pattern methodPattern, List<String> parameterPatterns) {
+        this.expression = expression;
+        this.typePattern = typePattern;
+        this.includeSubtypes = includeSubtypes;
+        this.methodPattern = methodPattern;
+        this.parameterPatterns = parameterPatterns;
+    }
+
+    public static Pointcut parse(String expression) {
+        String head = expression.trim();
+        List<String> parameterPatterns = null;
+        int open = head.indexOf('(');
+        if (open >= 0) {
+            if (!head.endsWith(")")) {
+                throw new IllegalArgumentException("Unbalanced parentheses in pointcut: " + expression);
+            }
+            String parameters = head.substring(open + 1, head.length() - 1).trim();
+            head = head.substring(0, open).trim();
+            if (!parameters.equals("..")) {
+                parameterPatterns = new ArrayList<>();
+                for (String parameter : parameters.isEmpty() ? new String[0] : parameters.split(",")) {
+                    String pattern = parameter.trim();
+                    if (!parameterPatterns.isEmpty() && parameterPatterns.get(parameterPatterns.size() - 1).equals("..")) {
+                        throw new IllegalArgumentException("'..' can only be the last parameter pattern in pointcut: " + expression);
+                    }
+                    if (pattern.contains("..") && !pattern.equals("..")) {
+                        throw new IllegalArgumentException("Malformed parameter pattern '" + pattern + "' in pointcut: " + expression);
+                    }
+                    parameterPatterns.add(pattern);
+                }
+            }
+        }
+        requireNamesAroundDoubleDots(head, expression);
+        int lastDot = head.lastIndexOf('.');
+        if (lastDot <= 0 || lastDot == head.length() - 1) {
+            throw new IllegalArgumentException("Pointcut must have the form type.method: " + expression);
+        }
+        String methodName = head.substring(lastDot + 1);
+        String typeName = head.substring(0, lastDot);
+        if (typeName.endsWith(".")) {
+            typeName += ".*"; // "com.example..process" means any type below com.example, at any depth
+        }
+        boolean includeSubtypes = typeName.endsWith("+");
+        if (includeSubtypes) {
+            typeName = typeName.substring(0, typeName.length() - 1);
+        }
+        return new Pointcut(expression, typePatternToRegex(typeName), includeSubtypes,
+                methodPatternToRegex(methodName), parameterPatterns);
+    }
+
+    // Every '..' needs a name on both sides: "com..", "..Service.run" and "com...run" are rejected
+    private static void requireNamesAroundDoubleDots(String head, String expression) {
+        if (!head.contains("..")) {
+            return; // A stray single dot is reported as a malformed type.method
+        }
+        String[] segments = head.split("\\.", -1);
+        for (int i = 0; i < segments.length; i++) {
+            boolean misplaced = segments[i].isEmpty() && (i == 0 || i == segments.length - 1 || segments[i - 1].isEmpty());
+            if (misplaced) {
+                throw new IllegalArgumentException("'..' must stand between two names in pointcut: " + expression);
+            }
+        }
+    }
+
+    private static Pattern typePatternToRegex(String typeName) {
+        if (typeName.equals("*")) {
+            return Pattern.compile(".*");
+        }
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < typeName.length(); i++) {
+            char c = typeName.charAt(i);
+            if (c == '.' && i + 1 < typeName.length() && typeName.charAt(i + 1) == '.') {
+                regex.append("\\.(?:[^.]+\\.)*");
+                i++;
+            } else if (c == '.') {
+                regex.append("\\.");
+            } else if (c == '*') {
+                regex.append("[^.]*");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    // '*' matches any part of the name; everything else, '$' included, stands for itself
+    private static Pattern methodPatternToRegex(String methodName) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < methodName.length(); i++) {
+            char c = methodName.charAt(i);
+            regex.append(c == '*' ? ".*" : Pattern.quote(String.valueOf(c)));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    public boolean matches(Class<?> targetClass, Method method) {
+        if (!methodPattern.matcher(method.getName()).matches() || !parametersMatch(method.getParameterTypes())) {
+            return false;
+        }
+        for (Class<?> type : hierarchy(targetClass)) {
+            if (!typePattern.matcher(type.getName()).matches()) {
+                continue;
+            }
+            if (includeSubtypes || declares(type, method)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean parametersMatch(Class<?>[] parameterTypes) {
+        if (parameterPatterns == null) {
+            return true;
+        }
+        for (int i = 0; i < parameterPatterns.size(); i++) {
+            String pattern = parameterPatterns.get(i);
+            if (pattern.equals("..")) {
+                return true; // Only allowed as the last pattern
+            }
+            if (i >= parameterTypes.length) {
+                return false;
+            }
+            Class<?> type = parameterTypes[i];
+            if (!pattern.equals("*") && !pattern.equals(type.getName()) && !pattern.equals(type.getSimpleName())) {
+                return false;
+            }
+        }
+        return parameterPatterns.size() == parameterTypes.length;
+    }
+
+    private static boolean declares(Class<?> type, Method method) {
+        try {
+            type.getDeclaredMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // The class itself, its superclasses and all interfaces it implements, directly or not
+    private static Set<Class<?>> hierarchy(Class<?> targetClass) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        queue.add(targetClass);
+        while (!queue.isEmpty()) {
+            Class<?> type = queue.poll();
+            if (type == Object.class || !types.add(type)) {
+                continue;
+            }
+            if (type.getSuperclass() != null) {
+                queue.add(type.getSuperclass());
+            }
+            queue.addAll(List.of(type.getInterfaces()));
+        }
+        return types;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
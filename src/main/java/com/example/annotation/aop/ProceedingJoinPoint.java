@@ -0,0 +1,8 @@
+package com.example.annotation.aop;
+
+// Passed to @Around advice, which decides whether (and how often) the advised method runs
+public interface ProceedingJoinPoint extends JoinPoint {
+    Object proceed() throws Throwable;
+
+    Object proceed(Object[] args) throws Throwable;
+}
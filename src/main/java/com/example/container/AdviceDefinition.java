@@ -0,0 +1,118 @@
+package com.example.container;
+
+import com.example.annotation.Order;
+import com.example.annotation.aop.AdviceInterceptor;
+import com.example.annotation.aop.After;
+import com.example.annotation.aop.AfterAdviceInterceptor;
+import com.example.annotation.aop.AfterReturning;
+import com.example.annotation.aop.AfterReturningAdviceInterceptor;
+import com.example.annotation.aop.AfterThrowing;
+import com.example.annotation.aop.AfterThrowingAdviceInterceptor;
+import com.example.annotation.aop.Around;
+import com.example.annotation.aop.AroundAdviceInterceptor;
+import com.example.annotation.aop.Before;
+import com.example.annotation.aop.BeforeAdviceInterceptor;
+import com.example.annotation.aop.Pointcut;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Comparator;
+
+// One advice method of an @Aspect class, with its parsed pointcut
+class AdviceDefinition {
+    // Declaration order is the precedence of advice kinds within one aspect
+    enum Kind {
+        AROUND, BEFORE, AFTER, AFTER_RETURNING, AFTER_THROWING
+    }
+
+    // @Order first; ties are broken so the chain does not depend on reflection's method order
+    static final Comparator<AdviceDefinition> PRECEDENCE = Comparator.comparingInt(AdviceDefinition::getOrder)
+            .thenComparing(advice -> advice.getAspectClass().getName())
+            .thenComparing(AdviceDefinition::getKind)
+            .thenComparing(advice -> advice.getMethod().getName());
+
+    private final Kind kind;
+    private final Pointcut pointcut;
+    private final Class<?> aspectClass;
+    private final Method method;
+    private final int order;
+
+    private AdviceDefinition(Kind kind, String pointcut, Class<?> aspectClass, Method method) {
+        this.kind = kind;
+        this.pointcut = Pointcut.parse(pointcut);
+        this.aspectClass = aspectClass;
+        this.method = method;
+        this.order = resolveOrder(aspectClass, method);
+    }
+
+    private static int resolveOrder(Class<?> aspectClass, Method method) {
+        if (method.isAnnotationPresent(Order.class)) {
+            return method.getAnnotation(Order.class).value();
+        }
+        if (aspectClass.isAnnotationPresent(Order.class)) {
+            return aspectClass.getAnnotation(Order.class).value();
+        }
+        return Integer.MAX_VALUE; // Unordered advice goes innermost
+    }
+
+    // Returns null if the method carries no advice annotation
+    static AdviceDefinition of(Class<?> aspectClass, Method method) {
+        if (method.isAnnotationPresent(Before.class)) {
+            return new AdviceDefinition(Kind.BEFORE, method.getAnnotation(Before.class).value(), aspectClass, method);
+        } else if (method.isAnnotationPresent(After.class)) {
+            return new AdviceDefinition(Kind.AFTER, method.getAnnotation(After.class).value(), aspectClass, method);
+        } else if (method.isAnnotationPresent(AfterReturning.class)) {
+            return new AdviceDefinition(Kind.AFTER_RETURNING, method.getAnnotation(AfterReturning.class).value(), aspectClass, method);
+        } else if (method.isAnnotationPresent(AfterThrowing.class)) {
+            return new AdviceDefinition(Kind.AFTER_THROWING, method.getAnnotation(AfterThrowing.class).value(), aspectClass, method);
+        } else if (method.isAnnotationPresent(Around.class)) {
+            return new AdviceDefinition(Kind.AROUND, method.getAnnotation(Around.class).value(), aspectClass, method);
+        }
+        return null;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    Pointcut getPointcut() {
+        return pointcut;
+    }
+
+    Class<?> getAspectClass() {
+        return aspectClass;
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    int getOrder() {
+        return order;
+    }
+
+    boolean isStatic() {
+        return Modifier.isStatic(method.getModifiers());
+    }
+
+    // aspect is the aspect bean, or null for a static advice method
+    AdviceInterceptor createInterceptor(Object aspect) {
+        switch (kind) {
+            case BEFORE:
+                return new BeforeAdviceInterceptor(method, aspect);
+            case AFTER:
+                return new AfterAdviceInterceptor(method, aspect);
+            case AFTER_RETURNING:
+                return new AfterReturningAdviceInterceptor(method, aspect);
+            case AFTER_THROWING:
+                return new AfterThrowingAdviceInterceptor(method, aspect);
+            default:
+                return new AroundAdviceInterceptor(method, aspect);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "@" + kind + "(" + pointcut + ") order " + order + " " + aspectClass.getName() + "." + method.getName();
+    }
+}
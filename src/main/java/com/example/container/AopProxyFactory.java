@@ -0,0 +1,170 @@
+package com.example.container;
+
+import com.example.annotation.aop.AdviceChain;
+import com.example.annotation.aop.AdviceInterceptor;
+import com.example.annotation.aop.AspectInvocationHandler;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Builds the proxy for an advised bean: a subclass generated by {@link SubclassProxyGenerator}, so the bean can
+ * still be looked up and injected by its class. A bean that cannot be subclassed (see
+ * {@link SubclassProxyGenerator#canSubclass}) but has interfaces gets a JDK proxy instead, and is then only
+ * available by those interfaces. Either way every method is bound to its {@link AdviceChain} up front, and calls
+ * to methods without advice go straight to the target. Chains and generated classes do not depend on the target,
+ * so they are built once per bean class and advice set and shared by every proxy of that class, e.g. every
+ * instance of a prototype bean. The cache lives as long as the owning container, so it never pins the class loader
+ * of a discarded one. Subclasses depend only on which methods are advised, so they are kept with the
+ * {@link ContextMetadata} and reused by child contexts.
+ */
+class AopProxyFactory {
+    private final Map<ProxyKey, ProxyTemplate> templates = new ConcurrentHashMap<>();
+    private final ObjLongConsumer<Method> adviceTimer;
+    private final Map<ProxyClassKey, SubclassProxyGenerator.ProxyClass> proxyClasses;
+
+    // adviceTimer receives the advice time of every advised call, or is null to leave calls untimed
+    AopProxyFactory(ObjLongConsumer<Method> adviceTimer, Map<ProxyClassKey, SubclassProxyGenerator.ProxyClass> proxyClasses) {
+        this.adviceTimer = adviceTimer;
+        this.proxyClasses = proxyClasses;
+    }
+
+    /**
+     * @param advice interceptors for each advised method of {@code beanClass}; methods not in the map are not advised
+     */
+    Object createProxy(Class<?> beanClass, Object target, Map<Method, List<AdviceInterceptor>> advice) {
+        ProxyKey key = new ProxyKey(beanClass, advice);
+        ProxyTemplate template = templates.get(key);
+        if (template == null) {
+            template = proxiesInterfacesOnly(beanClass) ? new JdkTemplate(beanClass, advice, adviceTimer) : new SubclassTemplate(beanClass, advice, adviceTimer, proxyClasses);
+            ProxyTemplate existing = templates.putIfAbsent(key, template);
+            if (existing != null) {
+                template = existing;
+            }
+        }
+        return template.newProxy(target);
+    }
+
+    /**
+     * Whether the proxy of an advised bean of this class implements only the interfaces the class declares, and
+     * cannot be cast to the class itself. Generated registries make the same choice.
+     */
+    static boolean proxiesInterfacesOnly(Class<?> beanClass) {
+        return beanClass.getInterfaces().length > 0 && !SubclassProxyGenerator.canSubclass(beanClass);
+    }
+
+    // The bean behind a proxy made by this class, or the bean itself if it is not one
+    static Object getTarget(Object bean) {
+        if (Proxy.isProxyClass(bean.getClass()) && Proxy.getInvocationHandler(bean) instanceof AspectInvocationHandler) {
+            return ((AspectInvocationHandler) Proxy.getInvocationHandler(bean)).getTarget();
+        }
+        if (bean instanceof AotBeanRegistry.GeneratedProxy) {
+            return ((AotBeanRegistry.GeneratedProxy) bean).getProxiedBean(); // Subclass proxies are generated too
+        }
+        return bean;
+    }
+
+    /**
+     * Methods a proxy can route through an advice chain: public methods (inherited ones included) and the
+     * non-private instance methods declared along the class hierarchy, excluding those of Object.
+     */
+    static Collection<Method> getProxiableMethods(Class<?> beanClass) {
+        Map<String, Method> methods = new LinkedHashMap<>();
+        for (Method method : beanClass.getMethods()) {
+            if (method.getDeclaringClass() != Object.class) {
+                methods.putIfAbsent(signature(method), method);
+            }
+        }
+        for (Class<?> type = beanClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Method method : type.getDeclaredMethods()) {
+                int modifiers = method.getModifiers();
+                if (!Modifier.isPrivate(modifiers) && !Modifier.isStatic(modifiers) && !method.isSynthetic()) {
+                    methods.putIfAbsent(signature(method), method);
+                }
+            }
+        }
+        return methods.values();
+    }
+
+    // Interceptors are shared per advice definition, so comparing the lists compares the advice set
+    private record ProxyKey(Class<?> beanClass, Map<Method, List<AdviceInterceptor>> advice) {
+    }
+
+    // A subclass routes the advised methods, in this order, to the chains it is constructed with
+    record ProxyClassKey(Class<?> beanClass, List<Method> advisedMethods) {
+    }
+
+    private interface ProxyTemplate {
+        Object newProxy(Object target);
+    }
+
+    private static class JdkTemplate implements ProxyTemplate {
+        private final ClassLoader classLoader;
+        private final Class<?>[] interfaces;
+        private final Map<Method, AdviceChain> chains = new HashMap<>();
+
+        JdkTemplate(Class<?> beanClass, Map<Method, List<AdviceInterceptor>> advice, ObjLongConsumer<Method> adviceTimer) {
+            this.classLoader = beanClass.getClassLoader();
+            this.interfaces = beanClass.getInterfaces();
+            for (Class<?> anInterface : interfaces) {
+                for (Method method : anInterface.getMethods()) {
+                    List<AdviceInterceptor> interceptors = List.of();
+                    try {
+                        interceptors = advice.getOrDefault(beanClass.getMethod(method.getName(), method.getParameterTypes()), List.of());
+                    } catch (NoSuchMethodException e) {
+                        // Default method that the bean does not override
+                    }
+                    chains.put(method, AdviceChain.of(method, interceptors, adviceTimer));
+                }
+            }
+        }
+
+        @Override
+        public Object newProxy(Object target) {
+            // Proxy caches the class per interface list itself
+            return Proxy.newProxyInstance(classLoader, interfaces, new AspectInvocationHandler(target, chains));
+        }
+    }
+
+    private static class SubclassTemplate implements ProxyTemplate {
+        private final SubclassProxyGenerator.ProxyClass proxyClass;
+        private final AdviceChain[] chains;
+
+        SubclassTemplate(Class<?> beanClass, Map<Method, List<AdviceInterceptor>> advice, ObjLongConsumer<Method> adviceTimer,
+                         Map<ProxyClassKey, SubclassProxyGenerator.ProxyClass> proxyClasses) {
+            chains = new AdviceChain[advice.size()];
+            int index = 0;
+            for (Map.Entry<Method, List<AdviceInterceptor>> entry : advice.entrySet()) {
+                chains[index++] = AdviceChain.of(entry.getKey(), entry.getValue(), adviceTimer);
+            }
+            ProxyClassKey key = new ProxyClassKey(beanClass, List.copyOf(advice.keySet()));
+            SubclassProxyGenerator.ProxyClass cached = proxyClasses.get(key);
+            if (cached == null) {
+                cached = SubclassProxyGenerator.defineAdviceProxy(beanClass, key.advisedMethods());
+                SubclassProxyGenerator.ProxyClass existing = proxyClasses.putIfAbsent(key, cached);
+                if (existing != null) {
+                    cached = existing;
+                }
+            }
+            proxyClass = cached;
+        }
+
+        @Override
+        public Object newProxy(Object target) {
+            return proxyClass.newInstance(target, chains);
+        }
+    }
+
+    private static String signature(Method method) {
+        return method.getName() + Arrays.toString(method.getParameterTypes());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.container;
+
+import com.example.annotation.aop.AdviceChain;
+import com.example.annotation.aop.AdviceInterceptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A container snapshot written by {@link AotGenerator}: every bean with its scope, {@code @Order} and the beans it
+ * needs first, plain Java code that creates, wires, initializes and proxies it, and its {@code @EventListener}
+ * methods with code that calls them. Advice, {@code @Async} executors and caches are compiled into the generated
+ * proxies. A {@link BeanFactory} built from a registry does no classpath scanning, annotation processing or
+ * reflective creation, and reads no annotations.
+ */
+public interface AotBeanRegistry {
+    void registerBeans(Registrar registrar);
+
+    interface Registrar {
+        /**
+         * @param order          the {@code @Order} of the bean class, {@link Integer#MAX_VALUE} without one
+         * @param interfaceProxy true if the supplier returns a proxy that only implements the interfaces of the bean
+         *                       class, which then cannot be looked up by the class itself
+         * @param dependencies   the beans that must exist before this one can be created, as resolved by the
+         *                       generator; {@code @Lazy} injection points are not included
+         * @param destroyer      null if the bean has neither {@code @PreDestroy} methods nor a {@code close()} method
+         */
+        void register(Class<?> beanClass, String name, String scope, boolean scopedProxy, boolean lazy, boolean primary,
+                      int order, boolean interfaceProxy, Class<?>[] dependencies, BeanSupplier supplier, BeanDestroyer destroyer);
+
+        /**
+         * One {@code @EventListener} method of a bean registered before, with the values of its annotation. The
+         * listeners of a bean are registered in the order they are declared.
+         *
+         * @param eventTypes the events it takes: those named by the annotation, else its parameter type
+         * @param batch      true if it takes a List of events
+         * @param order      the {@code @Order} of the method, else that of its class, else {@link Integer#MAX_VALUE}
+         */
+        void registerListener(String beanName, Class<?> declaringClass, String methodName, Class<?>[] eventTypes, boolean batch,
+                              boolean async, String executor, int maxBatchSize, boolean coalesce, int order, ListenerInvoker invoker);
+    }
+
+    // Creates a fully initialized instance, proxy included
+    @FunctionalInterface
+    interface BeanSupplier {
+        Object create(Context context) throws Throwable;
+    }
+
+    // Runs the @PreDestroy methods of the bean itself (never its proxy), then close() if it is AutoCloseable
+    @FunctionalInterface
+    interface BeanDestroyer {
+        void destroy(Object bean) throws Throwable;
+    }
+
+    // Calls an @EventListener method on an instance of its bean class, discarding any result
+    @FunctionalInterface
+    interface ListenerInvoker {
+        void invoke(Object bean, Object event) throws Throwable;
+    }
+
+    // Implemented by generated proxies, so the container can reach the bean behind one
+    interface GeneratedProxy {
+        Object getProxiedBean();
+    }
+
+    // What generated code needs from the running container
+    interface Context {
+        // qualifier is a bean name, or null to resolve by type
+        <T> T getBean(Class<T> type, String qualifier) throws Exception;
+
+        default <T> T getBean(Class<T> type) throws Exception {
+            return getBean(type, null);
+        }
+
+        // For a @Lazy injection point: a proxy that looks the bean up on first use
+        <T> T getLazyBean(Class<T> type, String qualifier) throws Exception;
+
+        default <T> T getLazyBean(Class<T> type) throws Exception {
+            return getLazyBean(type, null);
+        }
+
+        // For List<T> and Map<String, T> injection points
+        <T> List<T> getBeanList(Class<T> type) throws Exception;
+
+        <T> Map<String, T> getBeanMap(Class<T> type) throws Exception;
+
+        // For a @Value injection point; elementType is that of a List, Set or Collection, otherwise null
+        Object value(String expression, Class<?> type, Class<?> elementType);
+
+        // A chain for one advised method of a generated proxy, timed if the container has metrics enabled
+        AdviceChain adviceChain(Class<?> declaringClass, String methodName, Class<?>[] parameterTypes,
+                                AdviceChain.TargetInvoker targetInvoker, List<AdviceInterceptor> interceptors);
+
+        // The first interceptor of an @Async method, which runs the rest of the chain on the named executor
+        AdviceInterceptor asyncInterceptor(String executorName);
+
+        // The last interceptors of @CacheEvict and @Cacheable methods
+        AdviceInterceptor cacheableInterceptor(String cacheName);
+
+        AdviceInterceptor cacheEvictInterceptor(String cacheName, boolean allEntries, boolean beforeInvocation);
+
+        /**
+         * An instance of a generated subclass proxy, allocated like a runtime one without running any constructor of
+         * the bean class; constructor is only called on a runtime without {@code sun.misc.Unsafe}.
+         *
+         * @param constructor null if the bean class has no non-private no-argument constructor
+         */
+        <T> T allocateProxy(Class<T> proxyClass, Supplier<T> constructor);
+
+        // The chains of a generated proxy class, built on first use and then shared by all its instances in this container
+        AdviceChain[] adviceChains(Class<?> beanClass, ChainFactory factory) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface ChainFactory {
+        AdviceChain[] create(Context context) throws Exception;
+    }
+}
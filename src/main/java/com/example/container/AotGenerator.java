@@ -0,0 +1,732 @@
+package com.example.container;
+
+import com.example.annotation.CacheEvict;
+import com.example.annotation.Cacheable;
+import com.example.annotation.aop.AdviceChain;
+import com.example.annotation.aop.JoinPoint;
+import com.example.annotation.aop.ProceedingJoinPoint;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Build step for ahead-of-time mode. Runs the container's analysis for a base package (scan, creation plans,
+ * dependency order, pointcut matching) without creating any bean, and writes plain Java source that does the
+ * same work at runtime with direct {@code new} calls, field assignments, method calls and pregenerated proxy
+ * classes:
+ * <ul>
+ *     <li>{@code <registryClassName>}, the {@link AotBeanRegistry} to pass to {@link ApplicationContext}</li>
+ *     <li>one {@code <RegistrySimpleName>Beans} class per bean package, which creates that package's beans and
+ *     holds their proxies; living next to the beans, it can reach package-private members</li>
+ * </ul>
+ * Proxies of classes are allocated like runtime ones, without running a constructor of the bean class.
+ * Generated code cannot touch private members, so private constructors, {@code @Autowired} fields, lifecycle and
+ * {@code @EventListener} methods (and advised methods of proxied beans) are reported as errors. Run it with
+ * {@code java com.example.container.AotGenerator <basePackage> <outputDirectory> [registryClassName]}, or through
+ * the {@code aot} Maven profile, which compiles the output into the build.
+ */
+public class AotGenerator {
+    private static final Logger log = Logger.getLogger(AotGenerator.class);
+    private static final String ADVICE_CHAIN = AdviceChain.class.getCanonicalName();
+
+    private final BeanFactory analysis;
+    private final String basePackage;
+    private final String registryClassName;
+    private final String helperSimpleName;
+
+    public AotGenerator(String basePackage, String registryClassName) {
+        this.analysis = BeanFactory.forAnalysis(basePackage); // Lazy-init, so no bean is created
+        this.basePackage = basePackage;
+        this.registryClassName = registryClassName;
+        this.helperSimpleName = registryClassName.substring(registryClassName.lastIndexOf('.') + 1) + "Beans";
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: AotGenerator <basePackage> <outputDirectory> [registryClassName]");
+        }
+        String registryClassName = args.length > 2 ? args[2] : args[0] + ".GeneratedBeanRegistry";
+        Map<String, String> sources = new AotGenerator(args[0], registryClassName).generate();
+        Path outputDirectory = Path.of(args[1]);
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Path file = outputDirectory.resolve(source.getKey().replace('.', '/') + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue());
+        }
+        log.info("Wrote {} source files to {}", sources.size(), outputDirectory);
+    }
+
+    /**
+     * @return source code by fully qualified class name
+     * @throws IllegalStateException if a bean needs something generated code cannot do without reflection
+     */
+    public Map<String, String> generate() {
+        Map<String, List<BeanDefinition>> definitionsByPackage = new LinkedHashMap<>();
+        for (BeanDefinition beanDefinition : analysis.getSortedBeanDefinitions()) {
+            definitionsByPackage.computeIfAbsent(beanDefinition.getBeanClass().getPackageName(), p -> new ArrayList<>()).add(beanDefinition);
+        }
+        Map<String, String> sources = new LinkedHashMap<>();
+        List<String> helpers = new ArrayList<>();
+        for (Map.Entry<String, List<BeanDefinition>> entry : definitionsByPackage.entrySet()) {
+            String helper = qualify(entry.getKey(), helperSimpleName);
+            sources.put(helper, new PackageWriter(entry.getKey(), entry.getValue()).write());
+            helpers.add(helper);
+        }
+        sources.put(registryClassName, writeRegistry(helpers));
+        return sources;
+    }
+
+    private String writeRegistry(List<String> helpers) {
+        SourceWriter out = new SourceWriter();
+        int lastDot = registryClassName.lastIndexOf('.');
+        if (lastDot > 0) {
+            out.line("package " + registryClassName.substring(0, lastDot) + ";").line();
+        }
+        out.line("/**")
+                .line(" * Generated by " + AotGenerator.class.getName() + " from " + basePackage + ". Do not edit; regenerate it when beans change.")
+                .line(" */")
+                .open("public final class " + registryClassName.substring(lastDot + 1) + " implements " + AotBeanRegistry.class.getCanonicalName() + " {")
+                .line("@Override")
+                .open("public void registerBeans(" + AotBeanRegistry.Registrar.class.getCanonicalName() + " registrar) {");
+        for (String helper : helpers) {
+            out.line(helper + ".register(registrar);");
+        }
+        out.close("}").close("}");
+        return out.toString();
+    }
+
+    private static String qualify(String packageName, String simpleName) {
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    // Writes the helper class for the beans of one package
+    private class PackageWriter {
+        private final String packageName;
+        private final List<BeanDefinition> beanDefinitions;
+        private final Set<String> usedNames = new HashSet<>();
+        private final SourceWriter members = new SourceWriter(1);
+
+        PackageWriter(String packageName, List<BeanDefinition> beanDefinitions) {
+            this.packageName = packageName;
+            this.beanDefinitions = beanDefinitions;
+        }
+
+        String write() {
+            SourceWriter out = new SourceWriter();
+            if (!packageName.isEmpty()) {
+                out.line("package " + packageName + ";").line();
+            }
+            out.line("// Generated by " + AotGenerator.class.getName() + " for " + registryClassName + ". Do not edit.")
+                    .open("public final class " + helperSimpleName + " {")
+                    .open("private " + helperSimpleName + "() {")
+                    .close("}")
+                    .line()
+                    .open("public static void register(" + AotBeanRegistry.Registrar.class.getCanonicalName() + " registrar) {");
+            for (BeanDefinition beanDefinition : beanDefinitions) {
+                String name = uniqueName(beanDefinition.getBeanClass().getSimpleName());
+                String destroyer = writeBean(beanDefinition, name) ? helperSimpleName + "::destroy" + name : "null";
+                boolean interfaceProxy = !analysis.matchAdvice(beanDefinition.getBeanClass()).isEmpty()
+                        && AopProxyFactory.proxiesInterfacesOnly(beanDefinition.getBeanClass());
+                out.line("registrar.register(" + typeName(beanDefinition.getBeanClass()) + ".class, \"" + escape(beanDefinition.getName()) + "\", \""
+                        + escape(beanDefinition.getScope()) + "\", " + beanDefinition.isScopedProxy() + ", " + beanDefinition.isLazy() + ", "
+                        + beanDefinition.isPrimary() + ", " + beanDefinition.getOrder() + ", " + interfaceProxy + ", new Class<?>[]{"
+                        + dependencyList(beanDefinition) + "}, " + helperSimpleName + "::create" + name + ", " + destroyer + ");");
+                for (EventListenerDefinition listener : analysis.getEventListeners(beanDefinition)) {
+                    out.line(listenerRegistration(beanDefinition, listener));
+                }
+            }
+            out.close("}");
+            out.append(members);
+            out.close("}");
+            return out.toString();
+        }
+
+        // The listener's annotation values, and a lambda that calls its method through the bean class as the scanned handle would
+        private String listenerRegistration(BeanDefinition beanDefinition, EventListenerDefinition listener) {
+            Method method = listener.getMethod();
+            requireAccessible(method, "@EventListener method " + beanDefinition.getBeanClass().getName() + "." + method.getName());
+            List<String> eventTypes = new ArrayList<>();
+            for (Class<?> eventType : listener.getEventTypes()) {
+                requireAccessible(eventType, "event type " + eventType.getName());
+                eventTypes.add(typeName(eventType) + ".class");
+            }
+            Class<?> parameterType = method.getParameterTypes()[0];
+            requireAccessible(parameterType, "parameter type of @EventListener method " + listener);
+            String call = "((" + typeName(beanDefinition.getBeanClass()) + ") bean)." + method.getName() + "((" + typeName(parameterType) + ") event)";
+            return "registrar.registerListener(\"" + escape(beanDefinition.getName()) + "\", " + typeName(method.getDeclaringClass()) + ".class, \""
+                    + method.getName() + "\", new Class<?>[]{" + String.join(", ", eventTypes) + "}, " + listener.isBatch() + ", "
+                    + listener.isAsync() + ", \"" + escape(listener.getExecutor()) + "\", " + listener.getMaxBatchSize() + ", "
+                    + listener.isCoalescing() + ", " + listener.getOrder() + ", (bean, event) -> " + call + ");";
+        }
+
+        // Resolved injection points and the aspects of an advised bean, as in the dependency graph
+        private String dependencyList(BeanDefinition beanDefinition) {
+            Set<String> dependencies = new LinkedHashSet<>();
+            for (BeanDefinition resolved : analysis.getDependencyGraph().getDependencies(beanDefinition)) {
+                dependencies.add(typeName(resolved.getBeanClass()) + ".class");
+            }
+            return String.join(", ", dependencies);
+        }
+
+        // Returns whether a destroy method was written as well
+        private boolean writeBean(BeanDefinition beanDefinition, String name) {
+            Class<?> beanClass = beanDefinition.getBeanClass();
+            BeanCreationPlan plan = beanDefinition.getCreationPlan();
+            String type = typeName(beanClass);
+
+            Constructor<?> constructor = plan.getConstructor();
+            requireAccessible(constructor, "constructor of " + beanClass.getName());
+            List<String> arguments = new ArrayList<>();
+            for (BeanCreationPlan.Dependency dependency : plan.getConstructorDependencies()) {
+                arguments.add(lookup(dependency));
+            }
+
+            members.line()
+                    .open("private static Object create" + name + "(" + AotBeanRegistry.Context.class.getCanonicalName() + " context) throws Throwable {")
+                    .line(type + " bean = new " + type + "(" + String.join(", ", arguments) + ");");
+            for (BeanCreationPlan.FieldInjection field : plan.getFieldInjections()) {
+                requireAccessible(field.getField(), "injected field " + beanClass.getName() + "." + field.getName());
+                members.line("bean." + field.getName() + " = " + lookup(field.getDependency()) + ";");
+            }
+            for (BeanCreationPlan.LifecycleCallback callback : plan.getPostConstructCallbacks()) {
+                requireAccessible(callback.getMethod(), "@PostConstruct method " + beanClass.getName() + "." + callback.getName());
+                members.line("bean." + callback.getName() + "();");
+            }
+
+            Map<Method, List<AdviceDefinition>> advice = analysis.matchAdvice(beanClass);
+            if (advice.isEmpty()) {
+                members.line("return bean;").close("}");
+                return writeDestroy(beanClass, plan, name);
+            }
+            String proxyName = name + "Proxy";
+            String chainsMethod = Character.toLowerCase(name.charAt(0)) + name.substring(1) + "Chains";
+            String chains = "context.adviceChains(" + type + ".class, " + helperSimpleName + "::" + chainsMethod + ")";
+            if (AopProxyFactory.proxiesInterfacesOnly(beanClass)) {
+                members.line("return new " + proxyName + "(bean, " + chains + ");");
+            } else {
+                String fallback = SubclassProxyGenerator.hasNoArgumentConstructor(beanClass) ? proxyName + "::new" : "null";
+                members.line("return context.allocateProxy(" + proxyName + ".class, " + fallback + ").init(bean, " + chains + ");");
+            }
+            members.close("}");
+            Map<Method, Integer> chainIndexes = writeChains(beanClass, chainsMethod, advice);
+            writeProxy(beanClass, constructor, proxyName, chainIndexes);
+            return writeDestroy(beanClass, plan, name);
+        }
+
+        // @PreDestroy methods, then close() unless a @PreDestroy method already is close()
+        private boolean writeDestroy(Class<?> beanClass, BeanCreationPlan plan, String name) {
+            List<String> calls = new ArrayList<>();
+            for (BeanCreationPlan.LifecycleCallback callback : plan.getPreDestroyCallbacks()) {
+                requireAccessible(callback.getMethod(), "@PreDestroy method " + beanClass.getName() + "." + callback.getName());
+                calls.add(callback.getName());
+            }
+            if (AutoCloseable.class.isAssignableFrom(beanClass) && !calls.contains("close")) {
+                calls.add("close");
+            }
+            if (calls.isEmpty()) {
+                return false;
+            }
+            String type = typeName(beanClass);
+            members.line()
+                    .open("private static void destroy" + name + "(Object bean) throws Throwable {")
+                    .line(type + " target = (" + type + ") bean;");
+            for (String call : calls) {
+                members.line("target." + call + "();");
+            }
+            members.close("}");
+            return true;
+        }
+
+        private String lookup(BeanCreationPlan.Dependency dependency) {
+            String type = typeName(dependency.getType()) + ".class";
+            switch (dependency.getKind()) {
+                case LIST:
+                    return "context.getBeanList(" + type + ")";
+                case MAP:
+                    return "context.getBeanMap(" + type + ")";
+                case VALUE:
+                    PropertyBinding binding = dependency.getBinding();
+                    String elementType = binding.getElementType() != null ? typeName(binding.getElementType()) + ".class" : "null";
+                    return cast(dependency.getType(), "context.value(\"" + escape(binding.getExpression()) + "\", " + type + ", " + elementType + ")");
+                default:
+                    String qualifier = dependency.getQualifier() != null ? ", \"" + escape(dependency.getQualifier()) + "\"" : "";
+                    return (dependency.isLazy() ? "context.getLazyBean(" : "context.getBean(") + type + qualifier + ")";
+            }
+        }
+
+        // One chain per advised method, with each advice inlined as a lambda that calls the advice method directly,
+        // after the executor hand-off of an @Async method
+        private Map<Method, Integer> writeChains(Class<?> beanClass, String chainsMethod, Map<Method, List<AdviceDefinition>> advice) {
+            Map<Class<?>, String> aspects = new LinkedHashMap<>();
+            for (List<AdviceDefinition> definitions : advice.values()) {
+                for (AdviceDefinition definition : definitions) {
+                    requireAccessible(definition.getAspectClass(), "aspect " + definition.getAspectClass().getName());
+                    requireAccessible(definition.getMethod(), "advice method " + definition);
+                    if (!definition.isStatic()) {
+                        aspects.putIfAbsent(definition.getAspectClass(), "aspect" + aspects.size());
+                    }
+                }
+            }
+            members.line()
+                    .open("private static " + ADVICE_CHAIN + "[] " + chainsMethod + "(" + AotBeanRegistry.Context.class.getCanonicalName() + " context) throws Exception {");
+            for (Map.Entry<Class<?>, String> aspect : aspects.entrySet()) {
+                String type = typeName(aspect.getKey());
+                members.line(type + " " + aspect.getValue() + " = context.getBean(" + type + ".class);");
+            }
+            members.open("return new " + ADVICE_CHAIN + "[]{");
+            Map<Method, Integer> chainIndexes = new HashMap<>();
+            for (Map.Entry<Method, List<AdviceDefinition>> entry : advice.entrySet()) {
+                Method method = entry.getKey();
+                requireAccessible(method, "advised method " + beanClass.getName() + "." + method.getName());
+                chainIndexes.put(method, chainIndexes.size());
+                members.open("context.adviceChain(" + typeName(beanClass) + ".class, \"" + method.getName() + "\", new Class<?>[]{"
+                        + parameterTypeList(method) + "}, (target, args) -> {");
+                String call = "((" + typeName(beanClass) + ") target)." + method.getName() + "(" + unpackArguments(method, "args") + ")";
+                if (method.getReturnType() == void.class) {
+                    members.line(call + ";").line("return null;");
+                } else {
+                    members.line("return " + call + ";");
+                }
+                members.outdent().open("}, java.util.List.of(");
+                List<AdviceDefinition> definitions = entry.getValue();
+                List<String> caching = cachingInterceptors(method);
+                String executor = analysis.getAsyncExecutor(method);
+                if (executor != null) {
+                    members.line("context.asyncInterceptor(\"" + escape(executor) + "\")" + (definitions.isEmpty() && caching.isEmpty() ? "))," : ","));
+                }
+                for (int i = 0; i < definitions.size(); i++) {
+                    writeInterceptor(definitions.get(i), aspects, i == definitions.size() - 1 && caching.isEmpty() ? "))," : ",");
+                }
+                for (int i = 0; i < caching.size(); i++) {
+                    members.line(caching.get(i) + (i == caching.size() - 1 ? "))," : ","));
+                }
+                members.outdent();
+            }
+            members.close("};").close("}");
+            return chainIndexes;
+        }
+
+        // Same order as at runtime: eviction, then the cache lookup right before the target
+        private List<String> cachingInterceptors(Method method) {
+            List<String> interceptors = new ArrayList<>();
+            CacheEvict evict = analysis.getCacheEvict(method);
+            if (evict != null) {
+                interceptors.add("context.cacheEvictInterceptor(\"" + escape(evict.value()) + "\", " + evict.allEntries() + ", " + evict.beforeInvocation() + ")");
+            }
+            Cacheable cacheable = analysis.getCacheable(method);
+            if (cacheable != null) {
+                interceptors.add("context.cacheableInterceptor(\"" + escape(cacheable.value()) + "\")");
+            }
+            return interceptors;
+        }
+
+        // Mirrors the runtime interceptors of each advice kind
+        private void writeInterceptor(AdviceDefinition advice, Map<Class<?>, String> aspects, String terminator) {
+            Method method = advice.getMethod();
+            Class<?> extraType = extraParameterType(method);
+            String receiver = advice.isStatic() ? typeName(advice.getAspectClass()) : aspects.get(advice.getAspectClass());
+            switch (advice.getKind()) {
+                case BEFORE:
+                    requireNoExtraParameter(advice, extraType);
+                    members.open("invocation -> {")
+                            .line(receiver + "." + method.getName() + "(" + adviceArguments(method, null) + ");")
+                            .line("return invocation.proceed();");
+                    break;
+                case AFTER:
+                    requireNoExtraParameter(advice, extraType);
+                    members.open("invocation -> {")
+                            .open("try {").line("return invocation.proceed();")
+                            .close("} finally {").indent()
+                            .line(receiver + "." + method.getName() + "(" + adviceArguments(method, null) + ");")
+                            .close("}");
+                    break;
+                case AFTER_RETURNING:
+                    members.open("invocation -> {")
+                            .line("Object result = invocation.proceed();")
+                            .open("if (" + accepts(extraType, "result") + ") {")
+                            .line(receiver + "." + method.getName() + "(" + adviceArguments(method, "result") + ");")
+                            .close("}")
+                            .line("return result;");
+                    break;
+                case AFTER_THROWING:
+                    if (extraType != null && !Throwable.class.isAssignableFrom(extraType)) {
+                        throw new IllegalStateException("@AfterThrowing advice may only bind a Throwable: " + advice);
+                    }
+                    members.open("invocation -> {")
+                            .open("try {").line("return invocation.proceed();")
+                            .close("} catch (Throwable e) {").indent()
+                            .open("if (" + (extraType == null || extraType == Throwable.class ? "true" : "e instanceof " + typeName(extraType)) + ") {")
+                            .line(receiver + "." + method.getName() + "(" + adviceArguments(method, "e") + ");")
+                            .close("}")
+                            .line("throw e;")
+                            .close("}");
+                    break;
+                default:
+                    requireNoExtraParameter(advice, extraType);
+                    if (!Arrays.asList(method.getParameterTypes()).contains(ProceedingJoinPoint.class)) {
+                        throw new IllegalStateException("@Around advice must take a ProceedingJoinPoint: " + advice);
+                    }
+                    String call = receiver + "." + method.getName() + "(" + adviceArguments(method, null) + ")";
+                    members.open("invocation -> {");
+                    if (method.getReturnType() == void.class) {
+                        members.line(call + ";").line("return null;");
+                    } else {
+                        members.line("return " + call + ";");
+                    }
+            }
+            members.close("}" + terminator);
+        }
+
+        private String adviceArguments(Method method, String value) {
+            List<String> arguments = new ArrayList<>();
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                arguments.add(JoinPoint.class.isAssignableFrom(parameterType) ? "invocation" : cast(parameterType, value));
+            }
+            return String.join(", ", arguments);
+        }
+
+        private String accepts(Class<?> parameterType, String value) {
+            if (parameterType == null || parameterType == Object.class) {
+                return "true";
+            }
+            if (parameterType.isPrimitive()) {
+                return value + " instanceof " + typeName(wrapperType(parameterType));
+            }
+            return value + " == null || " + value + " instanceof " + typeName(parameterType);
+        }
+
+        // constructor is the bean's, which a subclass proxy without a no-argument one must name to compile
+        private void writeProxy(Class<?> beanClass, Constructor<?> constructor, String proxyName, Map<Method, Integer> chainIndexes) {
+            String type = typeName(beanClass);
+            Class<?>[] interfaces = beanClass.getInterfaces();
+            List<Method> methods = new ArrayList<>();
+            members.line();
+            if (AopProxyFactory.proxiesInterfacesOnly(beanClass)) {
+                // Like a JDK proxy: implements the bean's interfaces and nothing else
+                List<String> interfaceNames = new ArrayList<>();
+                Set<String> signatures = new HashSet<>(List.of("equals[class java.lang.Object]", "hashCode[]", "toString[]"));
+                for (Class<?> anInterface : interfaces) {
+                    requireAccessible(anInterface, "interface " + anInterface.getName());
+                    interfaceNames.add(typeName(anInterface));
+                    for (Method method : anInterface.getMethods()) {
+                        if (!Modifier.isStatic(method.getModifiers()) && signatures.add(signature(method))) {
+                            methods.add(implementation(beanClass, method));
+                        }
+                    }
+                }
+                interfaceNames.add(AotBeanRegistry.GeneratedProxy.class.getCanonicalName());
+                members.open("private static final class " + proxyName + " implements " + String.join(", ", interfaceNames) + " {")
+                        .line("private final " + type + " target;")
+                        .line("private final " + ADVICE_CHAIN + "[] chains;")
+                        .line()
+                        .open(proxyName + "(" + type + " target, " + ADVICE_CHAIN + "[] chains) {")
+                        .line("this.target = target;")
+                        .line("this.chains = chains;")
+                        .close("}");
+            } else {
+                // Like a runtime subclass proxy: sends every overridable method to the target
+                if (!SubclassProxyGenerator.canSubclass(beanClass)) {
+                    throw new IllegalStateException("Cannot proxy " + beanClass.getName() + ": a class without interfaces must not be final"
+                            + " and, without sun.misc.Unsafe, needs a non-private no-argument constructor");
+                }
+                for (Method method : AopProxyFactory.getProxiableMethods(beanClass)) {
+                    if (!Modifier.isFinal(method.getModifiers()) && !method.isBridge()
+                            && (isAccessible(method, packageName) || chainIndexes.containsKey(method))) {
+                        methods.add(method);
+                    }
+                }
+                members.open("private static final class " + proxyName + " extends " + type + " implements "
+                        + AotBeanRegistry.GeneratedProxy.class.getCanonicalName() + " {")
+                        .line("private " + type + " target;")
+                        .line("private " + ADVICE_CHAIN + "[] chains;")
+                        .line();
+                if (SubclassProxyGenerator.hasNoArgumentConstructor(beanClass)) {
+                    members.line("// Only called on a runtime without sun.misc.Unsafe")
+                            .open("private " + proxyName + "() {")
+                            .close("}");
+                } else {
+                    List<String> arguments = new ArrayList<>();
+                    for (Class<?> parameterType : constructor.getParameterTypes()) {
+                        arguments.add(defaultValue(parameterType));
+                    }
+                    members.line("// Never called: instances are allocated without running a constructor")
+                            .open("private " + proxyName + "() {")
+                            .line("super(" + String.join(", ", arguments) + ");")
+                            .close("}");
+                }
+                // Fields are set after allocation, so a release fence stands in for final ones
+                members.line()
+                        .open(proxyName + " init(" + type + " target, " + ADVICE_CHAIN + "[] chains) {")
+                        .line("this.target = target;")
+                        .line("this.chains = chains;")
+                        .line("java.lang.invoke.VarHandle.releaseFence();")
+                        .line("return this;")
+                        .close("}");
+            }
+            for (Method method : methods) {
+                writeProxyMethod(method, chainIndexes.get(method));
+            }
+            members.line()
+                    .line("@Override").open("public Object getProxiedBean() {").line("return target;").close("}")
+                    .line()
+                    .line("@Override").open("public boolean equals(Object other) {").line("return target.equals(other);").close("}")
+                    .line()
+                    .line("@Override").open("public int hashCode() {").line("return target.hashCode();").close("}")
+                    .line()
+                    .line("@Override").open("public String toString() {").line("return target.toString();").close("}")
+                    .close("}");
+        }
+
+        // The bean's own method behind an interface method, which is what advice was matched against
+        private Method implementation(Class<?> beanClass, Method interfaceMethod) {
+            try {
+                return beanClass.getMethod(interfaceMethod.getName(), interfaceMethod.getParameterTypes());
+            } catch (NoSuchMethodException e) {
+                return interfaceMethod;
+            }
+        }
+
+        private void writeProxyMethod(Method method, Integer chainIndex) {
+            List<String> parameters = new ArrayList<>();
+            List<String> arguments = new ArrayList<>();
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                requireAccessible(parameterTypes[i], "parameter type of " + method);
+                parameters.add(typeName(parameterTypes[i]) + " arg" + i);
+                arguments.add("arg" + i);
+            }
+            requireAccessible(method.getReturnType(), "return type of " + method);
+            List<String> exceptions = new ArrayList<>();
+            for (Class<?> exceptionType : method.getExceptionTypes()) {
+                exceptions.add(typeName(exceptionType));
+            }
+            String modifiers = Modifier.isPublic(method.getModifiers()) || method.getDeclaringClass().isInterface() ? "public "
+                    : Modifier.isProtected(method.getModifiers()) ? "protected " : "";
+            Class<?> returnType = method.getReturnType();
+            String returnKeyword = returnType == void.class ? "" : "return ";
+            members.line()
+                    .line("@Override")
+                    .open(modifiers + typeName(returnType) + " " + method.getName() + "(" + String.join(", ", parameters) + ")"
+                            + (exceptions.isEmpty() ? "" : " throws " + String.join(", ", exceptions)) + " {");
+            if (chainIndex == null) {
+                members.line(returnKeyword + "target." + method.getName() + "(" + String.join(", ", arguments) + ");");
+            } else {
+                String call = "chains[" + chainIndex + "].invoke(target, new Object[]{" + String.join(", ", arguments) + "})";
+                members.open("try {")
+                        .line(returnType == void.class ? call + ";" : "return " + cast(returnType, call) + ";");
+                writeRethrow(method);
+            }
+            members.close("}");
+        }
+
+        // Rethrows what the method may throw and wraps other checked exceptions, as a JDK proxy does
+        private void writeRethrow(Method method) {
+            List<Class<?>> checked = new ArrayList<>();
+            for (Class<?> exceptionType : method.getExceptionTypes()) {
+                if (!RuntimeException.class.isAssignableFrom(exceptionType) && !Error.class.isAssignableFrom(exceptionType)) {
+                    checked.add(exceptionType);
+                }
+            }
+            checked.removeIf(exceptionType -> checked.stream().anyMatch(other -> other != exceptionType && other.isAssignableFrom(exceptionType)));
+            members.close("} catch (RuntimeException | Error e) {").indent().line("throw e;");
+            for (Class<?> exceptionType : checked) {
+                members.close("} catch (" + typeName(exceptionType) + " e) {").indent().line("throw e;");
+            }
+            if (!checked.contains(Throwable.class)) {
+                members.close("} catch (Throwable e) {").indent().line("throw new java.lang.reflect.UndeclaredThrowableException(e);");
+            }
+            members.close("}");
+        }
+
+        private String unpackArguments(Method method, String array) {
+            List<String> arguments = new ArrayList<>();
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                arguments.add(cast(parameterTypes[i], array + "[" + i + "]"));
+            }
+            return String.join(", ", arguments);
+        }
+
+        private String parameterTypeList(Method method) {
+            List<String> types = new ArrayList<>();
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                requireAccessible(parameterType, "parameter type of " + method);
+                types.add(typeName(parameterType) + ".class");
+            }
+            return String.join(", ", types);
+        }
+
+        private String cast(Class<?> type, String expression) {
+            if (type == Object.class) {
+                return expression;
+            }
+            if (type.isPrimitive()) {
+                return "(" + type.getName() + ") (" + typeName(wrapperType(type)) + ") " + expression;
+            }
+            return "(" + typeName(type) + ") " + expression;
+        }
+
+        private String uniqueName(String simpleName) {
+            String name = simpleName;
+            for (int i = 2; !usedNames.add(name); i++) {
+                name = simpleName + i;
+            }
+            return name;
+        }
+
+        private void requireAccessible(Member member, String description) {
+            if (!isAccessible(member, packageName)) {
+                throw new IllegalStateException("Ahead-of-time code cannot reach the " + description
+                        + " without reflection; make it package-private or wider");
+            }
+        }
+
+        private void requireAccessible(Class<?> type, String description) {
+            if (!isAccessible(type, packageName)) {
+                throw new IllegalStateException("Ahead-of-time code in package " + packageName + " cannot reference the " + description);
+            }
+        }
+    }
+
+    private static boolean isAccessible(Member member, String packageName) {
+        int modifiers = member.getModifiers();
+        if (Modifier.isPrivate(modifiers)) {
+            return false;
+        }
+        if (member.getDeclaringClass().getPackageName().equals(packageName)) {
+            return true;
+        }
+        return Modifier.isPublic(modifiers) && isAccessible(member.getDeclaringClass(), packageName);
+    }
+
+    private static boolean isAccessible(Class<?> type, String packageName) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        for (Class<?> current = type; current != null && !current.isPrimitive(); current = current.getDeclaringClass()) {
+            int modifiers = current.getModifiers();
+            if (Modifier.isPrivate(modifiers) || (!Modifier.isPublic(modifiers) && !current.getPackageName().equals(packageName))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The single non-JoinPoint parameter of an advice method, as the runtime interceptors bind it
+    private static Class<?> extraParameterType(Method method) {
+        Class<?> extraType = null;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!JoinPoint.class.isAssignableFrom(parameterType)) {
+                if (extraType != null) {
+                    throw new IllegalStateException("Advice method " + method + " may bind at most one value besides the JoinPoint");
+                }
+                extraType = parameterType;
+            }
+        }
+        return extraType;
+    }
+
+    private static void requireNoExtraParameter(AdviceDefinition advice, Class<?> extraType) {
+        if (extraType != null) {
+            throw new IllegalStateException("Advice method " + advice + " may only take a JoinPoint");
+        }
+    }
+
+    // An argument of the type that compiles in a call to an overloaded constructor
+    private static String defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return "false";
+        }
+        return "(" + typeName(type) + ") " + (type.isPrimitive() ? "0" : "null");
+    }
+
+    private static Class<?> wrapperType(Class<?> primitive) {
+        return java.lang.invoke.MethodType.methodType(primitive).wrap().returnType();
+    }
+
+    private static String typeName(Class<?> type) {
+        String name = type.getCanonicalName();
+        if (name == null) {
+            throw new IllegalStateException("Ahead-of-time code cannot name local or anonymous class " + type.getName());
+        }
+        return name;
+    }
+
+    private static String signature(Method method) {
+        return method.getName() + Arrays.toString(method.getParameterTypes());
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    // Line-based writer with four-space indentation
+    private static final class SourceWriter {
+        private final StringBuilder source = new StringBuilder();
+        private int depth;
+
+        SourceWriter() {
+        }
+
+        SourceWriter(int depth) {
+            this.depth = depth;
+        }
+
+        SourceWriter line() {
+            source.append('\n');
+            return this;
+        }
+
+        SourceWriter line(String line) {
+            source.append("    ".repeat(depth)).append(line).append('\n');
+            return this;
+        }
+
+        // Writes a line and indents what follows
+        SourceWriter open(String line) {
+            line(line);
+            depth++;
+            return this;
+        }
+
+        // Outdents, then writes a line
+        SourceWriter close(String line) {
+            depth--;
+            return line(line);
+        }
+
+        SourceWriter indent() {
+            depth++;
+            return this;
+        }
+
+        SourceWriter outdent() {
+            depth--;
+            return this;
+        }
+
+        SourceWriter append(SourceWriter other) {
+            source.append(other.source);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return source.toString();
+        }
+    }
+}
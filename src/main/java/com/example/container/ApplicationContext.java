@@ -1,7 +1,55 @@
 package com.example.container;
 
+import java.util.Collection;
+
 public class ApplicationContext extends BeanFactory {
     public ApplicationContext(String basePackage) {
         super(basePackage);
     }
+
+    public ApplicationContext(String basePackage, boolean lazyInit) {
+        super(basePackage, lazyInit);
+    }
+
+    public ApplicationContext(String basePackage, boolean lazyInit, ContainerMetrics metrics) {
+        super(basePackage, lazyInit, metrics);
+    }
+
+    // Registers only the components whose @Profile and @Conditional... annotations match
+    public ApplicationContext(String basePackage, Collection<String> activeProfiles, PropertySource propertySource) {
+        super(basePackage, activeProfiles, propertySource);
+    }
+
+    public ApplicationContext(String basePackage, boolean lazyInit, ContainerMetrics metrics, Collection<String> activeProfiles,
+                              PropertySource propertySource) {
+        super(basePackage, lazyInit, metrics, activeProfiles, propertySource);
+    }
+
+    // Boots from code written by AotGenerator, without scanning or reflection
+    public ApplicationContext(AotBeanRegistry registry) {
+        super(registry);
+    }
+
+    public ApplicationContext(AotBeanRegistry registry, boolean lazyInit, ContainerMetrics metrics) {
+        super(registry, lazyInit, metrics);
+    }
+
+    public ApplicationContext(AotBeanRegistry registry, boolean lazyInit, ContainerMetrics metrics, PropertySource propertySource) {
+        super(registry, lazyInit, metrics, propertySource);
+    }
+
+    private ApplicationContext(ApplicationContext parent, String basePackage) {
+        super(parent, basePackage);
+    }
+
+    /**
+     * Creates a context for the components in basePackage, e.g. one per tenant of a module. It has singletons of
+     * its own and falls back to this context for beans it does not define, so shared beans live here once. The
+     * package is scanned, with this context's profiles and properties, only for the first child; its definitions,
+     * type index and advice are frozen and reused by every later child of the package, which then allocates
+     * little beyond its own singletons. A child is shut down with its parent, or earlier on its own.
+     */
+    public ApplicationContext createChild(String basePackage) {
+        return new ApplicationContext(this, basePackage);
+    }
 }
@@ -0,0 +1,15 @@
+package com.example.container;
+
+/**
+ * Publishes events to the {@code @EventListener} methods of a context's beans, then to those of its parent
+ * context. Every {@link BeanFactory} is one; beans get it injected like any other dependency.
+ */
+@FunctionalInterface
+public interface ApplicationEventPublisher {
+    /**
+     * Calls the synchronous listeners on this thread, in order, and queues the event for the asynchronous ones.
+     * An exception from a synchronous listener is thrown here and the remaining listeners are skipped; checked
+     * exceptions are wrapped in an {@link java.lang.reflect.UndeclaredThrowableException}.
+     */
+    void publishEvent(Object event);
+}
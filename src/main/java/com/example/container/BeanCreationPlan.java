@@ -0,0 +1,297 @@
+package com.example.container;
+
+import com.example.annotation.Autowired;
+import com.example.annotation.Lazy;
+import com.example.annotation.PostConstruct;
+import com.example.annotation.PreDestroy;
+import com.example.annotation.Qualifier;
+import com.example.annotation.Value;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything needed to build a bean, resolved once when its definition is registered: the constructor to call,
+ * the types it depends on, the fields to inject and the lifecycle callbacks. All members are bound to
+ * {@link MethodHandle}s adapted to erased signatures, so creating an instance does no reflective lookups.
+ */
+final class BeanCreationPlan {
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CALLBACK_TYPE = MethodType.methodType(void.class, Object.class);
+
+    private final Constructor<?> constructorMember;
+    private final MethodHandle constructor;
+    private final List<Dependency> constructorDependencies;
+    private final List<FieldInjection> fieldInjections;
+    private final List<LifecycleCallback> postConstructCallbacks;
+    private final List<LifecycleCallback> preDestroyCallbacks;
+
+    private BeanCreationPlan(Constructor<?> constructorMember, MethodHandle constructor, List<Dependency> constructorDependencies, List<FieldInjection> fieldInjections,
+                             List<LifecycleCallback> postConstructCallbacks, List<LifecycleCallback> preDestroyCallbacks) {
+        this.constructorMember = constructorMember;
+        this.constructor = constructor;
+        this.constructorDependencies = List.copyOf(constructorDependencies);
+        this.fieldInjections = List.copyOf(fieldInjections);
+        this.postConstructCallbacks = List.copyOf(postConstructCallbacks);
+        this.preDestroyCallbacks = List.copyOf(preDestroyCallbacks);
+    }
+
+    static BeanCreationPlan of(Class<?> clazz) throws NoSuchMethodException, IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        Constructor<?> autowiredConstructor = null;
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            if (constructor.isAnnotationPresent(Autowired.class)) {
+                if (autowiredConstructor != null) {
+                    throw new IllegalStateException("Found multiple @Autowired constructors in " + clazz.getName());
+                }
+                autowiredConstructor = constructor;
+            }
+        }
+        if (autowiredConstructor == null) {
+            // Fallback to no-argument constructor
+            autowiredConstructor = clazz.getDeclaredConstructor();
+        }
+        autowiredConstructor.setAccessible(true);
+        MethodHandle constructor = lookup.unreflectConstructor(autowiredConstructor)
+                .asSpreader(Object[].class, autowiredConstructor.getParameterCount())
+                .asType(CONSTRUCTOR_TYPE);
+        List<Dependency> constructorDependencies = new ArrayList<>();
+        for (Parameter parameter : autowiredConstructor.getParameters()) {
+            Value value = parameter.getAnnotation(Value.class);
+            constructorDependencies.add(value != null
+                    ? Dependency.value(value, parameter.getType(), parameter.getParameterizedType(), clazz.getName() + " constructor parameter " + parameter.getName())
+                    : Dependency.of(parameter.getType(), parameter.getParameterizedType(), parameter.getAnnotation(Lazy.class), parameter.getAnnotation(Qualifier.class)));
+        }
+
+        List<FieldInjection> fieldInjections = new ArrayList<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            Value value = field.getAnnotation(Value.class);
+            if (field.isAnnotationPresent(Autowired.class) || value != null) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    throw new IllegalStateException((value != null ? "@Value" : "@Autowired") + " is not supported on static field " + clazz.getName() + "." + field.getName());
+                }
+                field.setAccessible(true);
+                Dependency dependency = value != null
+                        ? Dependency.value(value, field.getType(), field.getGenericType(), clazz.getName() + "." + field.getName())
+                        : Dependency.of(field.getType(), field.getGenericType(), field.getAnnotation(Lazy.class), field.getAnnotation(Qualifier.class));
+                fieldInjections.add(new FieldInjection(field, dependency, lookup.unreflectSetter(field).asType(SETTER_TYPE)));
+            }
+        }
+
+        List<LifecycleCallback> postConstructCallbacks = new ArrayList<>();
+        List<LifecycleCallback> preDestroyCallbacks = new ArrayList<>();
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(PostConstruct.class)) {
+                postConstructCallbacks.add(LifecycleCallback.of(lookup, method));
+            }
+            if (method.isAnnotationPresent(PreDestroy.class)) {
+                preDestroyCallbacks.add(LifecycleCallback.of(lookup, method));
+            }
+        }
+
+        return new BeanCreationPlan(autowiredConstructor, constructor, constructorDependencies, fieldInjections, postConstructCallbacks, preDestroyCallbacks);
+    }
+
+    private static boolean isLazy(Lazy lazy) {
+        return lazy != null && lazy.value();
+    }
+
+    // The constructor the plan calls; AotGenerator turns it into a direct new
+    Constructor<?> getConstructor() {
+        return constructorMember;
+    }
+
+    List<Dependency> getConstructorDependencies() {
+        return constructorDependencies;
+    }
+
+    // Constructor parameters followed by injected fields
+    List<Dependency> getDependencies() {
+        List<Dependency> dependencies = new ArrayList<>(constructorDependencies);
+        for (FieldInjection field : fieldInjections) {
+            dependencies.add(field.getDependency());
+        }
+        return dependencies;
+    }
+
+    List<FieldInjection> getFieldInjections() {
+        return fieldInjections;
+    }
+
+    List<LifecycleCallback> getPostConstructCallbacks() {
+        return postConstructCallbacks;
+    }
+
+    List<LifecycleCallback> getPreDestroyCallbacks() {
+        return preDestroyCallbacks;
+    }
+
+    Object instantiate(Object[] dependencies) throws Throwable {
+        return (Object) constructor.invokeExact(dependencies);
+    }
+
+    static final class Dependency {
+        enum Kind {
+            SINGLE, // One bean of the type
+            LIST, // List<T> (or Collection<T>) of every bean of the type
+            MAP, // Map<String, T> of every bean of the type by name
+            VALUE // A @Value property, converted to the type
+        }
+
+        private final Class<?> type;
+        private final boolean lazy;
+        private final String qualifier; // Bean name, or null
+        private final Kind kind;
+        private final PropertyBinding binding; // For VALUE, otherwise null
+
+        Dependency(Class<?> type, boolean lazy) {
+            this(type, lazy, null, Kind.SINGLE);
+        }
+
+        Dependency(Class<?> type, boolean lazy, String qualifier, Kind kind) {
+            this(type, lazy, qualifier, kind, null);
+        }
+
+        private Dependency(Class<?> type, boolean lazy, String qualifier, Kind kind, PropertyBinding binding) {
+            this.type = type;
+            this.lazy = lazy;
+            this.qualifier = qualifier;
+            this.kind = kind;
+            this.binding = binding;
+        }
+
+        // The expression is parsed and its converter chosen here, so a bad @Value fails when the plan is built
+        private static Dependency value(Value value, Class<?> rawType, Type genericType, String injectionPoint) {
+            Class<?> elementType = null;
+            if (genericType instanceof ParameterizedType) {
+                elementType = elementClass(((ParameterizedType) genericType).getActualTypeArguments()[0]);
+            }
+            try {
+                return new Dependency(rawType, false, null, Kind.VALUE, PropertyBinding.of(value.value(), rawType, elementType));
+            } catch (IllegalStateException e) {
+                throw new IllegalStateException("Invalid @Value on " + injectionPoint + ": " + e.getMessage(), e);
+            }
+        }
+
+        // Collections of beans are recognized from the generic type of the injection point
+        private static Dependency of(Class<?> rawType, Type genericType, Lazy lazy, Qualifier qualifier) {
+            String name = qualifier != null ? qualifier.value() : null;
+            if (genericType instanceof ParameterizedType) {
+                Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+                if ((rawType == List.class || rawType == Collection.class) && elementClass(arguments[0]) != null) {
+                    return new Dependency(elementClass(arguments[0]), false, null, Kind.LIST);
+                }
+                if (rawType == Map.class && arguments[0] == String.class && elementClass(arguments[1]) != null) {
+                    return new Dependency(elementClass(arguments[1]), false, null, Kind.MAP);
+                }
+            }
+            return new Dependency(rawType, BeanCreationPlan.isLazy(lazy), name, Kind.SINGLE);
+        }
+
+        // T for T and ? extends T, otherwise null
+        private static Class<?> elementClass(Type type) {
+            if (type instanceof WildcardType) {
+                type = ((WildcardType) type).getUpperBounds()[0];
+            }
+            if (type instanceof ParameterizedType) {
+                type = ((ParameterizedType) type).getRawType();
+            }
+            return type instanceof Class ? (Class<?>) type : null;
+        }
+
+        // The bean type, or the element type of a list or map; for VALUE the type of the injection point
+        Class<?> getType() {
+            return type;
+        }
+
+        String getQualifier() {
+            return qualifier;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        PropertyBinding getBinding() {
+            return binding;
+        }
+
+        // Marked @Lazy: gets a proxy that resolves the bean on first use
+        boolean isLazy() {
+            return lazy;
+        }
+    }
+
+    static final class FieldInjection {
+        private final Field field;
+        private final Dependency dependency;
+        private final MethodHandle setter;
+
+        private FieldInjection(Field field, Dependency dependency, MethodHandle setter) {
+            this.field = field;
+            this.dependency = dependency;
+            this.setter = setter;
+        }
+
+        String getName() {
+            return field.getName();
+        }
+
+        Field getField() {
+            return field;
+        }
+
+        Dependency getDependency() {
+            return dependency;
+        }
+
+        void inject(Object bean, Object value) throws Throwable {
+            setter.invokeExact(bean, value);
+        }
+    }
+
+    static final class LifecycleCallback {
+        private final Method method;
+        private final MethodHandle handle;
+
+        private LifecycleCallback(Method method, MethodHandle handle) {
+            this.method = method;
+            this.handle = handle;
+        }
+
+        private static LifecycleCallback of(MethodHandles.Lookup lookup, Method method) throws IllegalAccessException {
+            if (method.getParameterCount() != 0) {
+                throw new IllegalStateException("Lifecycle method " + method.getDeclaringClass().getName() + "." + method.getName() + " must not take parameters");
+            }
+            method.setAccessible(true);
+            return new LifecycleCallback(method, lookup.unreflect(method).asType(CALLBACK_TYPE));
+        }
+
+        String getName() {
+            return method.getName();
+        }
+
+        Method getMethod() {
+            return method;
+        }
+
+        void invoke(Object bean) throws Throwable {
+            handle.invokeExact(bean);
+        }
+    }
+}
@@ -1,29 +1,124 @@
 package com.example.container;
 
+import com.example.annotation.Order;
+
+import java.util.List;
+
 class BeanDefinition {
     private final Class<?> beanClass;
+    private final String name;
     private final String scope;
-    private Object singletonInstance; // For singleton scope
+    private final boolean singleton;
+    private final boolean scopedProxy;
+    private final boolean lazy;
+    private final boolean primary;
+    private final int order;
+    private final boolean interfaceProxy;
+    private final BeanCreationPlan creationPlan; // null for beans registered ahead of time
+    private final List<BeanCreationPlan.Dependency> dependencies;
+    private final AotBeanRegistry.BeanSupplier instanceSupplier; // Generated code that replaces the plan
+    private final AotBeanRegistry.BeanDestroyer destroyer;
+    private int index = -1; // Position in the TypeIndex, where contexts keep this bean's singleton
 
-    public BeanDefinition(Class<?> beanClass, String scope) {
+    public BeanDefinition(Class<?> beanClass, String name, String scope, boolean scopedProxy, boolean lazy, boolean primary, BeanCreationPlan creationPlan) {
         this.beanClass = beanClass;
+        this.name = name;
         this.scope = scope;
-        this.singletonInstance = null;
+        this.singleton = "singleton".equals(scope);
+        this.scopedProxy = scopedProxy;
+        this.lazy = lazy;
+        this.primary = primary;
+        Order annotation = beanClass.getAnnotation(Order.class);
+        this.order = annotation != null ? annotation.value() : Integer.MAX_VALUE;
+        this.interfaceProxy = false;
+        this.creationPlan = creationPlan;
+        this.dependencies = creationPlan.getDependencies();
+        this.instanceSupplier = null;
+        this.destroyer = null;
+    }
+
+    public BeanDefinition(Class<?> beanClass, String name, String scope, boolean scopedProxy, boolean lazy, boolean primary, int order,
+                          boolean interfaceProxy, List<BeanCreationPlan.Dependency> dependencies,
+                          AotBeanRegistry.BeanSupplier instanceSupplier, AotBeanRegistry.BeanDestroyer destroyer) {
+        this.beanClass = beanClass;
+        this.name = name;
+        this.scope = scope;
+        this.singleton = "singleton".equals(scope);
+        this.scopedProxy = scopedProxy;
+        this.lazy = lazy;
+        this.primary = primary;
+        this.order = order;
+        this.interfaceProxy = interfaceProxy;
+        this.creationPlan = null;
+        this.dependencies = List.copyOf(dependencies);
+        this.instanceSupplier = instanceSupplier;
+        this.destroyer = destroyer;
     }
 
     public Class<?> getBeanClass() {
         return beanClass;
     }
 
+    public String getName() {
+        return name;
+    }
+
     public String getScope() {
         return scope;
     }
 
-    public Object getSingletonInstance() {
-        return singletonInstance;
+    public boolean isSingleton() {
+        return singleton;
+    }
+
+    // Injection points get a proxy that looks the bean up in its scope on every call
+    public boolean isScopedProxy() {
+        return scopedProxy;
+    }
+
+    // Created on first getBean instead of at startup
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    // Wins over other beans of the same type when one is injected
+    public boolean isPrimary() {
+        return primary;
+    }
+
+    // The @Order of the class, Integer.MAX_VALUE without one; read when scanned, recorded by the generator otherwise
+    public int getOrder() {
+        return order;
+    }
+
+    // Generated code wraps the bean in a proxy of its interfaces only; for scanned beans ContextMetadata works this out
+    public boolean isInterfaceProxy() {
+        return interfaceProxy;
+    }
+
+    public BeanCreationPlan getCreationPlan() {
+        return creationPlan;
+    }
+
+    // Constructor parameters and injected fields, from the plan or from the generated registry
+    public List<BeanCreationPlan.Dependency> getDependencies() {
+        return dependencies;
+    }
+
+    public AotBeanRegistry.BeanSupplier getInstanceSupplier() {
+        return instanceSupplier;
+    }
+
+    public AotBeanRegistry.BeanDestroyer getDestroyer() {
+        return destroyer;
+    }
+
+    // Assigned once, when the definition is indexed, and safely published with the metadata holding it
+    int getIndex() {
+        return index;
     }
 
-    public void setSingletonInstance(Object singletonInstance) {
-        this.singletonInstance = singletonInstance;
+    void setIndex(int index) {
+        this.index = index;
     }
 }
\ No newline at end of file
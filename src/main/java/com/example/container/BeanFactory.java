@@ -1,284 +1,1339 @@
 package com.example.container;
 
 import com.example.annotation.*;
+import com.example.annotation.aop.AdviceChain;
+import com.example.annotation.aop.AdviceInterceptor;
 import com.example.annotation.aop.Aspect;
-import com.example.annotation.aop.AspectInvocationHandler;
-import com.example.annotation.aop.Before;
-import net.sf.cglib.proxy.Enhancer;
-import net.sf.cglib.proxy.MethodInterceptor;
-import net.sf.cglib.proxy.MethodProxy;
+import com.example.annotation.aop.AsyncInterceptor;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.*;
-import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
 
-public class BeanFactory {
-    private Map<Class<?>, BeanDefinition> beanDefinitions = new HashMap<>();
-    private Map<Class<?>, Object> singletonInstances = new HashMap<>(); // Cache singleton instances
-    private Map<String, Method> beforeAdvices = new HashMap<String, Method>(); // Method to advice
+public class BeanFactory implements ApplicationEventPublisher {
+    private static final Logger log = Logger.getLogger(BeanFactory.class);
+
+    private final BeanFactory parent; // Asked for beans this context does not define, or null
+    private final Set<BeanFactory> children = ConcurrentHashMap.newKeySet();
+    private final Map<String, ContextMetadata> childMetadata = new ConcurrentHashMap<>(); // Base package -> frozen scan
+    private ContextMetadata metadata = ContextMetadata.EMPTY; // Set once all definitions are registered
+    private AtomicReferenceArray<Object> singletons = new AtomicReferenceArray<>(0); // By BeanDefinition index
+    private final Map<BeanDefinition, Object> creationLocks = new ConcurrentHashMap<>();
+    private final Map<AdviceDefinition, AdviceInterceptor> adviceInterceptors = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Map<Method, List<AdviceInterceptor>>> adviceTables = new ConcurrentHashMap<>(); // Bean class -> advised methods
+    private AopProxyFactory proxyFactory; // Set with the metadata, whose proxy classes it reuses
+    private final Map<Class<?>, AdviceChain[]> aotAdviceChains = new ConcurrentHashMap<>(); // For generated proxies
+    private final ClassLoader classLoader = defaultClassLoader();
+    private final boolean lazyInit;
+    private final boolean lifecycleEvents; // ContextRefreshedEvent and ContextClosingEvent
+    private final ConditionEvaluator conditions;
+    private final ContainerMetrics metrics;
+    private final boolean timed; // False for ContainerMetrics.NONE, so the clock is never read
+    private final ObjLongConsumer<Method> adviceTimer; // null unless timed
+    private final AotBeanRegistry.Context aotContext = new AotContext();
+    private final PropertyRefreshScope refreshScope = new PropertyRefreshScope();
+    private final Map<String, BeanScope> scopes = new ConcurrentHashMap<>(Map.of("thread", new ThreadScope(), "pooled", new PooledScope(), "refresh", refreshScope));
+    private final Map<ValueKey, PropertyBinding> aotBindings = new ConcurrentHashMap<>(); // For context.value in generated code
+    private final Map<ScopedProxyKey, Object> scopedProxies = new ConcurrentHashMap<>();
+    private final Map<String, BulkheadExecutor> executors = new ConcurrentHashMap<>(); // For @Async, by name
+    private final Map<String, AdviceInterceptor> asyncInterceptors = new ConcurrentHashMap<>();
+    private final Map<String, BoundedCache> caches = new ConcurrentHashMap<>(); // For @Cacheable, by name
+    private final ThreadLocal<Deque<Class<?>>> beansInCreation = ThreadLocal.withInitial(ArrayDeque::new);
+    private final EventMulticaster events = new EventMulticaster(this::getBean, this::getExecutor);
+    private final AtomicBoolean shutDown = new AtomicBoolean();
+    private volatile Duration destroyTimeout = Duration.ofSeconds(10);
+    private volatile Thread shutdownHook;
 
     public BeanFactory(String basePackage) {
+        this(basePackage, false);
+    }
+
+    /**
+     * @param lazyInit when true, no singleton is created up front: each bean is created, injected and proxied on
+     *                 its first getBean. Otherwise only beans marked {@code @Lazy} are deferred.
+     */
+    public BeanFactory(String basePackage, boolean lazyInit) {
+        this(basePackage, lazyInit, ContainerMetrics.NONE);
+    }
+
+    /**
+     * @param metrics receives bean phase, getBean and advice timings, see {@link InMemoryContainerMetrics} and
+     *                {@link JfrContainerMetrics}
+     */
+    public BeanFactory(String basePackage, boolean lazyInit, ContainerMetrics metrics) {
+        this(basePackage, lazyInit, metrics, List.of(), PropertySource.defaults());
+    }
+
+    /**
+     * @param activeProfiles the profiles {@code @Profile} checks against. When empty, they are read from the
+     *                       comma-separated {@code profiles.active} property, and failing that only the
+     *                       {@code default} profile is active.
+     * @param propertySource the properties {@code @Value} and {@code @ConditionalOnProperty} read; unless
+     *                       given, {@link PropertySource#defaults()}
+     */
+    public BeanFactory(String basePackage, Collection<String> activeProfiles, PropertySource propertySource) {
+        this(basePackage, false, ContainerMetrics.NONE, activeProfiles, propertySource);
+    }
+
+    public BeanFactory(String basePackage, boolean lazyInit, ContainerMetrics metrics, Collection<String> activeProfiles,
+                       PropertySource propertySource) {
+        this(basePackage, lazyInit, metrics, activeProfiles, propertySource, true);
+    }
+
+    // For AotGenerator, which only wants the analysis: without lifecycle events, no listener bean is created either
+    static BeanFactory forAnalysis(String basePackage) {
+        return new BeanFactory(basePackage, true, ContainerMetrics.NONE, List.of(), PropertySource.defaults(), false);
+    }
+
+    private BeanFactory(String basePackage, boolean lazyInit, ContainerMetrics metrics, Collection<String> activeProfiles,
+                        PropertySource propertySource, boolean lifecycleEvents) {
+        this.parent = null;
+        this.lazyInit = lazyInit;
+        this.lifecycleEvents = lifecycleEvents;
+        this.conditions = new ConditionEvaluator(activeProfiles, propertySource, classLoader);
+        this.metrics = metrics;
+        this.timed = metrics != ContainerMetrics.NONE;
+        this.adviceTimer = timed ? metrics::adviceInvoked : null;
+        start(basePackage, () -> activate(scanComponents(basePackage)));
+    }
+
+    // Boots from a registry generated by AotGenerator, without scanning or reflection
+    public BeanFactory(AotBeanRegistry registry) {
+        this(registry, false, ContainerMetrics.NONE);
+    }
+
+    public BeanFactory(AotBeanRegistry registry, boolean lazyInit, ContainerMetrics metrics) {
+        this(registry, lazyInit, metrics, PropertySource.defaults());
+    }
+
+    // Conditions were evaluated when the registry was generated, so they are not checked again; @Value is resolved at runtime
+    public BeanFactory(AotBeanRegistry registry, boolean lazyInit, ContainerMetrics metrics, PropertySource propertySource) {
+        this.parent = null;
+        this.lazyInit = lazyInit;
+        this.lifecycleEvents = true;
+        this.conditions = new ConditionEvaluator(List.of(), propertySource, classLoader);
+        this.metrics = metrics;
+        this.timed = metrics != ContainerMetrics.NONE;
+        this.adviceTimer = timed ? metrics::adviceInvoked : null;
+        start(registry.getClass().getName(), () -> {
+            List<BeanDefinition> beanDefinitions = new ArrayList<>();
+            Map<String, BeanDefinition> byName = new HashMap<>();
+            Map<BeanDefinition, List<EventListenerDefinition>> listeners = new HashMap<>();
+            registry.registerBeans(new AotBeanRegistry.Registrar() {
+                @Override
+                public void register(Class<?> beanClass, String name, String scope, boolean scopedProxy, boolean lazy, boolean primary, int order,
+                                     boolean interfaceProxy, Class<?>[] dependencies, AotBeanRegistry.BeanSupplier supplier, AotBeanRegistry.BeanDestroyer destroyer) {
+                    BeanDefinition beanDefinition = aotBeanDefinition(beanClass, name, scope, scopedProxy, lazy, primary, order, interfaceProxy, dependencies, supplier, destroyer);
+                    beanDefinitions.add(beanDefinition);
+                    byName.putIfAbsent(name, beanDefinition); // The type index reports duplicate names
+                }
+
+                @Override
+                public void registerListener(String beanName, Class<?> declaringClass, String methodName, Class<?>[] eventTypes, boolean batch,
+                                             boolean async, String executor, int maxBatchSize, boolean coalesce, int order, AotBeanRegistry.ListenerInvoker invoker) {
+                    BeanDefinition beanDefinition = byName.get(beanName);
+                    if (beanDefinition == null) {
+                        throw new IllegalStateException("Listener " + declaringClass.getName() + "." + methodName + " registered before its bean " + beanName);
+                    }
+                    listeners.computeIfAbsent(beanDefinition, b -> new ArrayList<>()).add(EventListenerDefinition.generated(beanDefinition, declaringClass,
+                            methodName, List.of(eventTypes), batch, async, executor, maxBatchSize, coalesce, order, invoker));
+                }
+            });
+            activate(new ContextMetadata(beanDefinitions, listeners));
+        });
+    }
+
+    // A child context, see ApplicationContext#createChild; it shares the parent's settings and shuts down with it
+    BeanFactory(BeanFactory parent, String basePackage) {
+        this.parent = parent;
+        this.lazyInit = parent.lazyInit;
+        this.lifecycleEvents = parent.lifecycleEvents;
+        this.conditions = parent.conditions;
+        this.metrics = parent.metrics;
+        this.timed = parent.timed;
+        this.adviceTimer = parent.adviceTimer;
+        ContextMetadata childMetadata = parent.getChildMetadata(basePackage);
+        start(basePackage, () -> activate(childMetadata));
+        parent.children.add(this);
+    }
+
+    // Scanned the first time a child of the package is created, then shared by all of them
+    private ContextMetadata getChildMetadata(String basePackage) {
+        ContextMetadata scanned = childMetadata.get(basePackage);
+        if (scanned == null) {
+            try {
+                scanned = scanComponents(basePackage);
+            } catch (ReflectiveOperationException | IOException e) {
+                throw new IllegalStateException("Could not scan " + basePackage + " for a child context", e);
+            }
+            ContextMetadata existing = childMetadata.putIfAbsent(basePackage, scanned);
+            if (existing != null) {
+                scanned = existing;
+            }
+        }
+        return scanned;
+    }
+
+    private void activate(ContextMetadata contextMetadata) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        metadata = contextMetadata;
+        singletons = new AtomicReferenceArray<>(contextMetadata.getTypeIndex().getBeanDefinitions().size());
+        proxyFactory = new AopProxyFactory(adviceTimer, contextMetadata.getProxyClasses());
+        instantiateSingletons();
+        if (lifecycleEvents) {
+            publishEvent(new ContextRefreshedEvent(this));
+        }
+    }
+
+    /**
+     * Delivers the event to this context's {@code @EventListener} methods, then to its parent's; see
+     * {@link ApplicationEventPublisher#publishEvent(Object)}. Listener beans that do not exist yet are created.
+     */
+    @Override
+    public void publishEvent(Object event) {
+        Objects.requireNonNull(event, "event");
+        events.multicast(metadata, event);
+        if (parent != null) {
+            parent.publishEvent(event);
+        }
+    }
+
+    private interface StartupStep {
+        void run() throws Exception;
+    }
+
+    private void start(String source, StartupStep step) {
+        long start = System.nanoTime();
         try {
-            scanComponents(basePackage);
-            findAspects(basePackage);
-            applyAspects();
+            step.run();
+            if (timed) {
+                metrics.startupCompleted(start, System.nanoTime() - start);
+            }
+            log.info("Started container for {} in {} ms", source, (System.nanoTime() - start) / 1_000_000);
+        } catch (CircularDependencyException e) {
+            throw e; // No bean in the cycle can ever be created, so the container is unusable
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Could not start container for {}", source, e);
             // Handle exception appropriately
         }
     }
 
-    private void findAspects(String basePackage) throws ClassNotFoundException, IOException {
-        ClassLoader classLoader = ClassLoader.getSystemClassLoader();
-        String path = basePackage.replace('.', '/');
-        Enumeration<URL> resources = classLoader.getResources(path);
-        List<File> dirs = new LinkedList<>();
-        while (resources.hasMoreElements()) {
-            URL resource = resources.nextElement();
-            dirs.add(new File(resource.getFile()));
+    private static BeanDefinition aotBeanDefinition(Class<?> beanClass, String name, String scope, boolean scopedProxy, boolean lazy, boolean primary, int order,
+                                                    boolean interfaceProxy, Class<?>[] dependencies, AotBeanRegistry.BeanSupplier supplier, AotBeanRegistry.BeanDestroyer destroyer) {
+        List<BeanCreationPlan.Dependency> injectionPoints = new ArrayList<>(dependencies.length);
+        for (Class<?> dependency : dependencies) {
+            injectionPoints.add(new BeanCreationPlan.Dependency(dependency, false));
         }
-        for (File directory : dirs) {
-            findAspectClasses(directory, basePackage);
+        log.debug("Registered ahead-of-time bean definition: {} with scope: {}", beanClass.getName(), scope);
+        return new BeanDefinition(beanClass, name, scope, scopedProxy, lazy, primary, order, interfaceProxy, injectionPoints, supplier, destroyer);
+    }
+
+    private static void registerAspect(Class<?> clazz, List<AdviceDefinition> adviceDefinitions) {
+        log.debug("Found aspect: {}", clazz.getName());
+        for (Method method : clazz.getDeclaredMethods()) {
+            AdviceDefinition advice = AdviceDefinition.of(clazz, method);
+            if (advice != null) {
+                adviceDefinitions.add(advice);
+                log.debug("  Found {} advice for pointcut: {} in method: {}", advice.getKind(), advice.getPointcut(), method.getName());
+            }
         }
     }
 
-    private void findAspectClasses(File directory, String packageName) throws ClassNotFoundException {
-        if (!directory.exists()) {
-            return;
+    // Wraps a fully initialized bean in a proxy when one of its methods is advised
+    private Object applyAspects(Class<?> beanClass, Object beanInstance) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        Map<Method, List<AdviceDefinition>> matched = metadata.getAdvice(beanClass);
+        if (matched.isEmpty()) {
+            return beanInstance;
         }
-        File[] files = directory.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    findAspectClasses(file, packageName + "." + file.getName());
-                } else if (file.getName().endsWith(".class")) {
-                    String className = packageName + '.' + file.getName().substring(0, file.getName().length() - 6);
-                    Class<?> clazz = Class.forName(className);
-                    if (clazz.isAnnotationPresent(Aspect.class)) {
-                        System.out.println("Found aspect: " + clazz.getName());
-                        for (Method method : clazz.getDeclaredMethods()) {
-                            if (method.isAnnotationPresent(Before.class)) {
-                                Before beforeAnnotation = method.getAnnotation(Before.class);
-                                String pointcut = beforeAnnotation.value();
-                                beforeAdvices.put(pointcut, method);
-                                System.out.println("  Found @Before advice for pointcut: " + pointcut + " in method: " + method.getName());
-                            }
-                        }
-                    }
-                }
+        Map<Method, List<AdviceInterceptor>> advice = getAdviceTable(beanClass, matched);
+        // Replace the original bean instance with a proxy that has every method bound to its chain
+        return proxyFactory.createProxy(beanClass, beanInstance, advice);
+    }
+
+    // Pointcuts are matched once per bean class; prototypes and later beans of the same class reuse the table
+    private Map<Method, List<AdviceInterceptor>> getAdviceTable(Class<?> beanClass, Map<Method, List<AdviceDefinition>> matched) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        Map<Method, List<AdviceInterceptor>> table = adviceTables.get(beanClass);
+        if (table != null) {
+            return table;
+        }
+        table = new HashMap<>();
+        for (Map.Entry<Method, List<AdviceDefinition>> entry : matched.entrySet()) {
+            List<AdviceInterceptor> interceptors = new ArrayList<>();
+            String executor = metadata.getAsyncExecutor(entry.getKey());
+            if (executor != null) {
+                interceptors.add(getAsyncInterceptor(executor)); // First, so all advice runs on the executor
+            }
+            for (AdviceDefinition advice : entry.getValue()) {
+                interceptors.add(getAdviceInterceptor(advice));
+                log.debug("Applied {} advice to method: {}.{}", advice.getKind(), beanClass.getName(), entry.getKey().getName());
+            }
+            CacheEvict evict = metadata.getCacheEvict(entry.getKey());
+            if (evict != null) {
+                interceptors.add(getCacheEvictInterceptor(evict.value(), evict.allEntries(), evict.beforeInvocation()));
             }
+            Cacheable cacheable = metadata.getCacheable(entry.getKey());
+            if (cacheable != null) {
+                interceptors.add(getCacheableInterceptor(cacheable.value())); // Last, so advice also runs on hits
+            }
+            table.put(entry.getKey(), List.copyOf(interceptors));
         }
+        Map<Method, List<AdviceInterceptor>> existing = adviceTables.putIfAbsent(beanClass, table);
+        return existing != null ? existing : table;
     }
 
-    private void applyAspects() {
-        for (Map.Entry<Class<?>, Object> entry : new HashMap<>(singletonInstances).entrySet()) {
-            Class<?> beanClass = entry.getKey();
-            Object beanInstance = entry.getValue();
-
-            for (Method beanMethod : beanClass.getDeclaredMethods()) {
-                String methodPointcut = beanClass.getName() + "." + beanMethod.getName();
-                Method adviceMethod = beforeAdvices.get(methodPointcut);
-
-                if (adviceMethod != null) {
-                    // Create a proxy for this bean
-                    ClassLoader classLoader = beanClass.getClassLoader();
-                    Class<?>[] interfaces = beanClass.getInterfaces();
-                    // Inside applyAspects(), when no interfaces are found:
-                    if (interfaces.length == 0) {
-                        Enhancer enhancer = new Enhancer();
-                        enhancer.setSuperclass(beanClass);
-                        enhancer.setCallback(new MethodInterceptor() {
-                            @Override
-                            public Object intercept(Object obj, Method method, Object[] args, MethodProxy proxy) throws Throwable {
-                                Method adviceMethod = beforeAdvices.get(beanClass.getName() + "." + method.getName());
-                                if (adviceMethod != null) {
-                                    adviceMethod.invoke(null, args);
-                                }
-                                return proxy.invokeSuper(obj, args); // Invoke the original method
-                            }
-                        });
-                        Object proxy = enhancer.create();
-                        singletonInstances.put(beanClass, proxy);
-                        System.out.println("Applied @Before advice to method: " + beanClass.getName() + "." + beanMethod.getName() + " using CGLIB proxy.");
-                        continue;
-                    }
+    // Hands @Async calls to the named executor, looked up per call; also used by generated proxies
+    AdviceInterceptor getAsyncInterceptor(String executorName) {
+        AdviceInterceptor interceptor = asyncInterceptors.get(executorName);
+        if (interceptor == null) {
+            interceptor = new AsyncInterceptor(() -> getExecutor(executorName), (method, e) ->
+                    log.error("@Async method {}.{} failed", method.getDeclaringClass().getName(), method.getName(), e));
+            AdviceInterceptor existing = asyncInterceptors.putIfAbsent(executorName, interceptor);
+            if (existing != null) {
+                interceptor = existing;
+            }
+        }
+        return interceptor;
+    }
 
-                    InvocationHandler handler = new AspectInvocationHandler(beanInstance, Map.of(beanMethod, adviceMethod));
-                    Object proxy = Proxy.newProxyInstance(classLoader, interfaces, handler);
+    // The executor of this context, else the parent's, so children share executors they do not register themselves
+    private BulkheadExecutor getExecutor(String name) {
+        BulkheadExecutor executor = executors.get(name);
+        if (executor != null) {
+            return executor;
+        }
+        if (parent != null) {
+            return parent.getExecutor(name);
+        }
+        if (shutDown.get()) {
+            throw new RejectedExecutionException("Container has been shut down");
+        }
+        return executors.computeIfAbsent(name, this::createExecutor);
+    }
+
+    // Limits come from async.executor.<name>.max-concurrency and .queue-capacity
+    private BulkheadExecutor createExecutor(String name) {
+        PropertySource properties = conditions.getPropertySource();
+        String maxConcurrency = properties.getProperty("async.executor." + name + ".max-concurrency");
+        String queueCapacity = properties.getProperty("async.executor." + name + ".queue-capacity");
+        // Virtual threads cost next to nothing, platform threads are capped
+        int defaultConcurrency = BulkheadExecutor.hasVirtualThreads() ? Integer.MAX_VALUE : 4 * Runtime.getRuntime().availableProcessors();
+        BulkheadExecutor executor = new BulkheadExecutor(name, BulkheadExecutor.newThreadPerTaskExecutor(name),
+                maxConcurrency != null ? Integer.parseInt(maxConcurrency.trim()) : defaultConcurrency,
+                queueCapacity != null ? Integer.parseInt(queueCapacity.trim()) : Integer.MAX_VALUE);
+        log.debug("Created {}", executor);
+        return executor;
+    }
 
-                    // Replace the original bean instance with the proxy in our singleton cache
-                    singletonInstances.put(beanClass, proxy);
-                    System.out.println("Applied @Before advice to method: " + methodPointcut + " using proxy.");
+    /**
+     * Registers the executor that {@code @Async("name")} methods run on, in place of the one the container would
+     * create. At most maxConcurrency calls run on it at a time and at most queueCapacity more wait; further calls
+     * are rejected with a {@link RejectedExecutionException}. The container shuts the executor down with itself,
+     * as it does a replaced one. A child context uses its parent's executors unless it registers its own.
+     */
+    public void registerExecutor(String name, ExecutorService executor, int maxConcurrency, int queueCapacity) {
+        BulkheadExecutor previous = executors.put(name, new BulkheadExecutor(name, executor, maxConcurrency, queueCapacity));
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    // Waiting @Async calls are cancelled; running ones get the destroy timeout to finish, then are interrupted
+    private void shutdownExecutors() {
+        if (executors.isEmpty()) {
+            return;
+        }
+        List<BulkheadExecutor> stopping = new ArrayList<>(executors.values());
+        for (BulkheadExecutor executor : stopping) {
+            List<Runnable> cancelled = executor.shutdown();
+            if (!cancelled.isEmpty()) {
+                log.warn("Cancelled {} waiting @Async calls on {}", cancelled.size(), executor);
+            }
+        }
+        long deadline = System.nanoTime() + destroyTimeout.toNanos();
+        for (BulkheadExecutor executor : stopping) {
+            try {
+                if (!executor.awaitTermination(deadline)) {
+                    log.warn("Interrupted @Async calls still running on {} after {} ms", executor, destroyTimeout.toMillis());
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
         }
     }
 
-    private void scanComponents(String basePackage) throws ClassNotFoundException, IOException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
-        ClassLoader classLoader = ClassLoader.getSystemClassLoader();
-        String path = basePackage.replace('.', '/');
-        Enumeration<URL> resources = classLoader.getResources(path);
-        List<File> dirs = new LinkedList<>();
-        while (resources.hasMoreElements()) {
-            URL resource = resources.nextElement();
-            dirs.add(new File(resource.getFile()));
+    // Also used by generated proxies
+    AdviceInterceptor getCacheableInterceptor(String cacheName) {
+        return CacheInterceptors.cacheable(getCache(cacheName));
+    }
+
+    AdviceInterceptor getCacheEvictInterceptor(String cacheName, boolean allEntries, boolean beforeInvocation) {
+        return CacheInterceptors.evict(getCache(cacheName), allEntries, beforeInvocation);
+    }
+
+    // Each context has its own caches, since they hold results of its own beans
+    private BoundedCache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    // Limits come from cache.<name>.max-size (10000 unless set) and cache.<name>.ttl-ms (no expiry unless set)
+    private BoundedCache createCache(String name) {
+        PropertySource properties = conditions.getPropertySource();
+        String maximumSize = properties.getProperty("cache." + name + ".max-size");
+        String ttlMillis = properties.getProperty("cache." + name + ".ttl-ms");
+        return new BoundedCache(name, maximumSize != null ? Integer.parseInt(maximumSize.trim()) : 10_000,
+                Duration.ofMillis(ttlMillis != null ? Long.parseLong(ttlMillis.trim()) : 0));
+    }
+
+    /**
+     * Sets the size and time-to-live of the named {@code @Cacheable} cache, in place of its properties. Must be
+     * called before the cache is first used, so before the beans using it are created unless they are lazy.
+     *
+     * @param timeToLive how long an entry is returned after it was stored; zero to keep entries until evicted
+     */
+    public void registerCache(String name, int maximumSize, Duration timeToLive) {
+        if (caches.putIfAbsent(name, new BoundedCache(name, maximumSize, timeToLive)) != null) {
+            throw new IllegalStateException("Cache " + name + " is already in use");
         }
-        for (File directory : dirs) {
-            findClasses(directory, basePackage);
+    }
+
+    // Hits, misses and evictions of the named cache, or null if no bean has used it yet
+    public CacheStats getCacheStats(String name) {
+        BoundedCache cache = caches.get(name);
+        return cache != null ? cache.getStats() : null;
+    }
+
+    public List<CacheStats> getAllCacheStats() {
+        List<CacheStats> stats = new ArrayList<>();
+        for (BoundedCache cache : caches.values()) {
+            stats.add(cache.getStats());
         }
-        // After all beans are instantiated, inject their dependencies
-        for (Object bean : beanDefinitions.values()) {
-            injectFields(bean);
+        stats.sort(Comparator.comparing(CacheStats::getName));
+        return stats;
+    }
+
+    // The advice for each advised method of beanClass, in precedence order; also used by AotGenerator
+    Map<Method, List<AdviceDefinition>> matchAdvice(Class<?> beanClass) {
+        return metadata.getAdvice(beanClass);
+    }
+
+    // The caching annotations of a method, or null; also used by AotGenerator
+    Cacheable getCacheable(Method method) {
+        return metadata.getCacheable(method);
+    }
+
+    CacheEvict getCacheEvict(Method method) {
+        return metadata.getCacheEvict(method);
+    }
+
+    // The executor name of an @Async method, or null; also used by AotGenerator
+    String getAsyncExecutor(Method method) {
+        return metadata.getAsyncExecutor(method);
+    }
+
+    // The @EventListener methods of a bean, in declaration order; also used by AotGenerator
+    List<EventListenerDefinition> getEventListeners(BeanDefinition beanDefinition) {
+        return metadata.getEventListeners(beanDefinition);
+    }
+
+    // All definitions, each after the beans it depends on
+    List<BeanDefinition> getSortedBeanDefinitions() {
+        return metadata.getCreationOrder();
+    }
+
+    // The profiles @Profile was checked against, "default" if none were activated
+    public Set<String> getActiveProfiles() {
+        return conditions.getActiveProfiles();
+    }
+
+    public PropertySource getPropertySource() {
+        return conditions.getPropertySource();
+    }
+
+    TypeIndex getTypeIndex() {
+        return metadata.getTypeIndex();
+    }
+
+    // Also used by AotGenerator, for the beans each generated registration needs first
+    DependencyGraph getDependencyGraph() {
+        return metadata.getDependencyGraph();
+    }
+
+    // Aspects are singletons, so each advice is bound to its aspect bean only once
+    private AdviceInterceptor getAdviceInterceptor(AdviceDefinition advice) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        AdviceInterceptor interceptor = adviceInterceptors.get(advice);
+        if (interceptor == null) {
+            Object aspect = advice.isStatic() ? null : getBean(advice.getAspectClass());
+            interceptor = advice.createInterceptor(aspect);
+            AdviceInterceptor existing = adviceInterceptors.putIfAbsent(advice, interceptor);
+            if (existing != null) {
+                interceptor = existing;
+            }
         }
-        // After all beans are defined, we can proceed with instantiation and lifecycle
-        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
-            if (beanDefinition.getScope().equals("singleton")) {
-                Object instance = createInstance(beanDefinition.getBeanClass());
-                if (instance != null) {
-                    beanDefinition.setSingletonInstance(instance);
-                    singletonInstances.put(beanDefinition.getBeanClass(), instance); // <--- HERE
-                    injectFields(instance);
-                    invokePostConstruct(instance);
-                }
+        return interceptor;
+    }
+
+    private ContextMetadata scanComponents(String basePackage) throws ReflectiveOperationException, IOException {
+        List<BeanDefinition> beanDefinitions = new ArrayList<>();
+        List<AdviceDefinition> adviceDefinitions = new ArrayList<>();
+        // Components and aspects are collected in a single pass, from the index when there is one
+        for (Class<?> clazz : findCandidates(basePackage)) {
+            // Aspects are beans too, so their advice can use injected dependencies
+            if (clazz.isAnnotationPresent(Component.class) || clazz.isAnnotationPresent(Service.class) || clazz.isAnnotationPresent(Aspect.class)) {
+                long start = timed ? System.nanoTime() : 0;
+                String scope = resolveScope(clazz);
+                boolean scopedProxy = clazz.isAnnotationPresent(Scope.class) ? clazz.getAnnotation(Scope.class).proxy() : clazz.isAnnotationPresent(RefreshScope.class);
+                Lazy lazy = clazz.getAnnotation(Lazy.class);
+                beanDefinitions.add(new BeanDefinition(clazz, resolveName(clazz), scope, scopedProxy, lazy != null && lazy.value(),
+                        clazz.isAnnotationPresent(Primary.class), BeanCreationPlan.of(clazz)));
+                recordPhase(clazz, ContainerMetrics.Phase.SCAN, start);
+                log.debug("Registered bean definition: {} with scope: {}", clazz.getName(), scope);
+            }
+            if (clazz.isAnnotationPresent(Aspect.class)) {
+                registerAspect(clazz, adviceDefinitions);
             }
         }
+        // Chains are built in this order, so advice on the same join point runs by precedence
+        adviceDefinitions.sort(AdviceDefinition.PRECEDENCE);
+        // After all beans are defined, we can proceed with instantiation and lifecycle
+        return new ContextMetadata(beanDefinitions, adviceDefinitions);
     }
 
-    private void findClasses(File directory, String packageName) throws ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
-        if (!directory.exists()) {
+    /**
+     * Creates all non-lazy singletons on a fork-join pool. Each bean starts as soon as the singletons it depends on
+     * are ready, so independent beans (and their @PostConstruct methods) run in parallel. The graph is sorted even
+     * in lazy-init mode, so cycles are still reported at startup. Child contexts create theirs on the calling
+     * thread: they are meant to be cheap, and starting pool threads would cost more than the beans.
+     */
+    private void instantiateSingletons() throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        List<BeanDefinition> sorted = metadata.getCreationOrder();
+        DependencyGraph graph = metadata.getDependencyGraph();
+        if (parent != null) {
+            for (BeanDefinition beanDefinition : sorted) {
+                if (isEager(beanDefinition)) {
+                    retrieve(beanDefinition);
+                }
+            }
             return;
         }
-
-        File[] files = directory.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    findClasses(file, packageName + "." + file.getName());
-                } else if (file.getName().endsWith(".class")) {
-                    String className = packageName + '.' + file.getName().substring(0, file.getName().length() - 6);
-                    Class<?> clazz = Class.forName((className));
-                    if (clazz.isAnnotationPresent(Component.class)) {
-                        String scope = clazz.getAnnotation(Component.class).scope();
-                        beanDefinitions.put(clazz, new BeanDefinition(clazz, scope));
-                        System.out.println("Registered bean definition: " + clazz.getName() + " with scope: " + scope);
-                    }
+        Map<BeanDefinition, CompletableFuture<Void>> created = new HashMap<>();
+        // @PostConstruct methods often block on I/O (warmups, connection pools), so allow more threads than cores
+        int singletonCount = (int) sorted.stream().filter(this::isEager).count();
+        if (singletonCount == 0) {
+            return;
+        }
+        ForkJoinPool executor = new ForkJoinPool(parallelism(singletonCount));
+        try {
+            for (BeanDefinition beanDefinition : sorted) {
+                if (!isEager(beanDefinition)) {
+                    continue;
                 }
+                // Lazy singletons have no future; a bean that needs one creates it through getBean
+                CompletableFuture<?>[] dependencies = graph.getSingletonDependencies(beanDefinition).stream()
+                        .map(created::get)
+                        .filter(Objects::nonNull)
+                        .toArray(CompletableFuture<?>[]::new);
+                created.put(beanDefinition, CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                    try {
+                        retrieve(beanDefinition);
+                    } catch (ReflectiveOperationException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(created.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InvocationTargetException) {
+                throw (InvocationTargetException) cause;
+            } else if (cause instanceof NoSuchMethodException) {
+                throw (NoSuchMethodException) cause;
+            } else if (cause instanceof InstantiationException) {
+                throw (InstantiationException) cause;
+            } else if (cause instanceof IllegalAccessException) {
+                throw (IllegalAccessException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
+            throw e;
+        } finally {
+            executor.shutdown();
         }
     }
 
-    private Object createInstance(Class<?> clazz) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
-        Constructor<?>[] constructors = clazz.getDeclaredConstructors();
-        Constructor<?> autowiredConstructor = null;
+    private static int parallelism(int beanCount) {
+        return Math.max(1, Math.min(beanCount, 4 * Runtime.getRuntime().availableProcessors()));
+    }
+
+    private boolean isEager(BeanDefinition beanDefinition) {
+        return beanDefinition.isSingleton() && !lazyInit && !beanDefinition.isLazy();
+    }
 
-        for (Constructor<?> constructor : constructors) {
-            if (constructor.isAnnotationPresent(Autowired.class)) {
-                if (autowiredConstructor != null) {
-                    throw new IllegalStateException("Found multiple @Autowired constructors in " + clazz.getName());
+    // Candidates whose conditions match, loaded in the order they were found, with @ConditionalOnMissingBean ones last
+    private List<Class<?>> findCandidates(String basePackage) throws ClassNotFoundException, IOException {
+        List<Class<?>> candidates = new ArrayList<>();
+        List<ClassMetadata> fallbacks = new ArrayList<>();
+        ComponentIndex index = ComponentIndex.load(classLoader);
+        // An index only covers the classes compiled with the processor, so a package it knows nothing about is scanned
+        List<String> indexed = index != null ? index.getCandidates(basePackage) : List.of();
+        if (indexed.isEmpty()) {
+            log.debug("No indexed components under {}, scanning classpath", basePackage);
+            ClasspathScanner scanner = new ClasspathScanner(classLoader);
+            for (ClassMetadata metadata : scanner.findCandidates(basePackage)) {
+                acceptCandidate(metadata, candidates, fallbacks);
+            }
+            log.debug("Scanned {} classes: found {} candidates, skipped {} without loading",
+                    scanner.getCandidateCount() + scanner.getSkippedCount(), scanner.getCandidateCount(), scanner.getSkippedCount());
+        } else {
+            for (String className : indexed) {
+                if (index.isConditional(className)) {
+                    acceptCandidate(readMetadata(className), candidates, fallbacks);
+                } else {
+                    candidates.add(Class.forName(className, true, classLoader));
+                }
+            }
+            // Jars and directories without an index file may add classes to the package that the index cannot list
+            String packagePath = basePackage.replace('.', '/');
+            Set<String> indexedNames = new HashSet<>(indexed);
+            ClasspathScanner scanner = new ClasspathScanner(classLoader);
+            for (ClassMetadata metadata : scanner.findCandidates(basePackage, resource -> !index.covers(resource, packagePath))) {
+                if (indexedNames.add(metadata.getClassName())) {
+                    log.debug("{} is not in the component index, found by scanning", metadata.getClassName());
+                    acceptCandidate(metadata, candidates, fallbacks);
                 }
-                autowiredConstructor = constructor;
             }
         }
-
-        if (autowiredConstructor != null) {
-            Parameter[] parameters = autowiredConstructor.getParameters();
-            Object[] dependencies = new Object[parameters.length];
-            for (int i = 0; i < parameters.length; i++) {
-                Class<?> parameterType = parameters[i].getType();
-                Object dependency = getBean(parameterType);
-                if (dependency == null) {
-                    throw new RuntimeException("Could not resolve dependency of type " + parameterType.getName() + " for constructor in " + clazz.getName());
+        if (!fallbacks.isEmpty()) {
+            Set<String> providedTypes = new HashSet<>();
+            for (Class<?> candidate : candidates) {
+                ConditionEvaluator.collectTypeNames(candidate, providedTypes);
+            }
+            // Sorted so that the first of several fallbacks for a type wins the same way on every start
+            fallbacks.sort(Comparator.comparing(ClassMetadata::getClassName));
+            for (ClassMetadata metadata : fallbacks) {
+                if (ConditionEvaluator.isMissing(metadata, providedTypes)) {
+                    Class<?> candidate = Class.forName(metadata.getClassName(), true, classLoader);
+                    ConditionEvaluator.collectTypeNames(candidate, providedTypes);
+                    candidates.add(candidate);
+                } else {
+                    log.debug("Skipped {}: a matching bean is already registered", metadata.getClassName());
                 }
-                dependencies[i] = dependency;
             }
-            return autowiredConstructor.newInstance(dependencies);
+        }
+        return candidates;
+    }
+
+    private void acceptCandidate(ClassMetadata metadata, List<Class<?>> candidates, List<ClassMetadata> fallbacks) throws ClassNotFoundException {
+        if (!conditions.matches(metadata)) {
+            log.debug("Skipped {}: conditions do not match", metadata.getClassName());
+        } else if (ConditionEvaluator.isConditionalOnMissingBean(metadata)) {
+            fallbacks.add(metadata);
         } else {
-            // Fallback to no-argument constructor
-            return clazz.getDeclaredConstructor().newInstance();
+            candidates.add(Class.forName(metadata.getClassName(), true, classLoader));
         }
     }
 
-    private void injectFields(Object bean) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException, InstantiationException {
-        Class<?> clazz = bean.getClass();
-        for (Field field : clazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(Autowired.class)) {
-                Class<?> fieldType = field.getType();
-                Object dependency = getBean(fieldType);
-                if (dependency != null) {
-                    field.setAccessible(true);
-                    try {
-                        field.set(bean, dependency);
-                        System.out.println("Injected " + fieldType.getName() + " into " + clazz.getName() + "." + field.getName());
-                    } catch (IllegalArgumentException e) {
-                        System.err.println("Error injecting dependency of type " + fieldType.getName() + " into " + clazz.getName() + "." + field.getName() + ": Incorrect argument type.");
-                    }
-                } else {
-                    throw new RuntimeException("Could not find dependency of type " + fieldType.getName() + " for field " + clazz.getName() + "." + field.getName());
+    private ClassMetadata readMetadata(String className) throws IOException {
+        try (InputStream in = classLoader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+            if (in == null) {
+                throw new IOException("Class file not found for indexed component " + className);
+            }
+            return ClassMetadataReader.read(ByteBuffer.wrap(in.readAllBytes()));
+        }
+    }
+
+    private static ClassLoader defaultClassLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : BeanFactory.class.getClassLoader();
+    }
+
+    private static String resolveName(Class<?> clazz) {
+        String name = "";
+        if (clazz.isAnnotationPresent(Component.class)) {
+            name = clazz.getAnnotation(Component.class).value();
+        }
+        if (name.isEmpty() && clazz.isAnnotationPresent(Service.class)) {
+            name = clazz.getAnnotation(Service.class).value();
+        }
+        if (name.isEmpty()) {
+            String simpleName = clazz.getSimpleName();
+            name = Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1);
+        }
+        return name;
+    }
+
+    // An explicit @Scope wins over the scope attribute of @Component
+    private static String resolveScope(Class<?> clazz) {
+        if (clazz.isAnnotationPresent(Scope.class)) {
+            return clazz.getAnnotation(Scope.class).value();
+        }
+        if (clazz.isAnnotationPresent(RefreshScope.class)) {
+            return "refresh";
+        }
+        if (clazz.isAnnotationPresent(Component.class)) {
+            return clazz.getAnnotation(Component.class).scope();
+        }
+        return "singleton";
+    }
+
+    private Object createInstance(BeanDefinition beanDefinition) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        BeanCreationPlan plan = beanDefinition.getCreationPlan();
+        List<BeanCreationPlan.Dependency> constructorDependencies = plan.getConstructorDependencies();
+        Object[] dependencies = new Object[constructorDependencies.size()];
+        for (int i = 0; i < dependencies.length; i++) {
+            Object dependency = resolveDependency(constructorDependencies.get(i));
+            if (dependency == null) {
+                throw new RuntimeException("Could not resolve dependency of type " + constructorDependencies.get(i).getType().getName() + " for constructor in " + beanDefinition.getBeanClass().getName());
+            }
+            dependencies[i] = dependency;
+        }
+        try {
+            return plan.instantiate(dependencies);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e, "Error instantiating " + beanDefinition.getBeanClass().getName());
+        }
+    }
+
+    private void injectFields(BeanDefinition beanDefinition, Object bean) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException, InstantiationException {
+        Class<?> clazz = beanDefinition.getBeanClass();
+        for (BeanCreationPlan.FieldInjection field : beanDefinition.getCreationPlan().getFieldInjections()) {
+            Class<?> fieldType = field.getDependency().getType();
+            Object dependency = resolveDependency(field.getDependency());
+            if (dependency != null) {
+                try {
+                    field.inject(bean, dependency);
+                    log.debug("Injected {} into {}.{}", fieldType.getName(), clazz.getName(), field.getName());
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e, "Error injecting " + clazz.getName() + "." + field.getName());
                 }
+            } else {
+                throw new RuntimeException("Could not find dependency of type " + fieldType.getName() + " for field " + clazz.getName() + "." + field.getName());
             }
         }
     }
 
-    private void invokePostConstruct(Object bean) {
-        Class<?> clazz = bean.getClass();
-        for (Method method : clazz.getDeclaredMethods()) {
-            if (method.isAnnotationPresent(PostConstruct.class)) {
+    // Lists and maps hold this context's candidates, then the parent's
+    @SuppressWarnings("unchecked")
+    private Object resolveDependency(BeanCreationPlan.Dependency dependency) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        Class<?> type = dependency.getType();
+        if (dependency.getKind() == BeanCreationPlan.Dependency.Kind.VALUE) {
+            return resolveValue(dependency.getBinding());
+        }
+        if (dependency.getKind() == BeanCreationPlan.Dependency.Kind.LIST) {
+            List<Object> beans = new ArrayList<>();
+            for (BeanDefinition candidate : metadata.getTypeIndex().getCandidates(type)) {
+                beans.add(resolveBean(type, candidate));
+            }
+            if (parent != null) {
+                beans.addAll((List<Object>) parent.resolveDependency(dependency));
+            }
+            return Collections.unmodifiableList(beans);
+        }
+        if (dependency.getKind() == BeanCreationPlan.Dependency.Kind.MAP) {
+            Map<String, Object> beans = new LinkedHashMap<>();
+            for (BeanDefinition candidate : metadata.getTypeIndex().getCandidates(type)) {
+                beans.put(candidate.getName(), resolveBean(type, candidate));
+            }
+            if (parent != null) {
+                ((Map<String, Object>) parent.resolveDependency(dependency)).forEach(beans::putIfAbsent);
+            }
+            return Collections.unmodifiableMap(beans);
+        }
+        if (type == ApplicationEventPublisher.class) {
+            return this; // Built in, never a scanned bean
+        }
+        BeanDefinition beanDefinition = getBeanDefinition(type, dependency.getQualifier());
+        if (beanDefinition == null) {
+            return parent.resolveDependency(dependency);
+        }
+        if (dependency.isLazy() && !beanDefinition.isScopedProxy()) {
+            Object proxy = LazyResolutionProxy.create(type, () -> retrieve(beanDefinition));
+            if (proxy != null) {
+                return proxy;
+            }
+            log.warn("Cannot create a lazy proxy for {}, resolving it eagerly.", type.getName());
+        }
+        return resolveBean(type, beanDefinition);
+    }
+
+    // Reads of a @RefreshScope bean are recorded, so refreshProperties knows which properties it depends on
+    private Object resolveValue(PropertyBinding binding) {
+        return binding.resolve(refreshScope.recording(beansInCreation.get().peek(), getPropertySource()));
+    }
+
+    /**
+     * Reloads the property source (see {@link PropertySource#reload()}) and destroys every {@code @RefreshScope}
+     * instance, in this context and its children, that read a property that has changed; the next call through its
+     * proxy creates it with the new values. Singletons keep the values they were created with. Child contexts
+     * share the property source, so on a child this refreshes from the root context down.
+     *
+     * @return the properties that changed, among those read by refresh beans
+     */
+    public Set<String> refreshProperties() {
+        if (parent != null) {
+            return parent.refreshProperties();
+        }
+        getPropertySource().reload();
+        Set<String> changed = new LinkedHashSet<>();
+        refreshScopes(changed);
+        if (!changed.isEmpty()) {
+            log.info("Refreshed @RefreshScope beans for changed properties {}", changed);
+        }
+        return changed;
+    }
+
+    private void refreshScopes(Set<String> changed) {
+        changed.addAll(refreshScope.refresh(getPropertySource()));
+        for (BeanFactory child : List.copyOf(children)) {
+            child.refreshScopes(changed);
+        }
+    }
+
+    // The bean itself, or its scoped proxy for injection as type
+    private Object resolveBean(Class<?> type, BeanDefinition beanDefinition) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        if (beanDefinition.isScopedProxy()) {
+            Object proxy = getScopedProxy(type, beanDefinition);
+            if (proxy != null) {
+                return proxy;
+            }
+            log.warn("Cannot create a scoped proxy for {}, injecting the current instance.", type.getName());
+        }
+        return retrieve(beanDefinition);
+    }
+
+    // One proxy per bean and injected type; it holds no state of its own, so injection points can share it
+    private Object getScopedProxy(Class<?> type, BeanDefinition beanDefinition) {
+        ScopedProxyKey key = new ScopedProxyKey(beanDefinition, type);
+        Object proxy = scopedProxies.get(key);
+        if (proxy == null) {
+            proxy = ScopedBeanProxy.create(type, new ScopedBeanProxy.ScopedTarget() {
+                @Override
+                public Object get() throws Exception {
+                    return getBean(beanDefinition);
+                }
+
+                @Override
+                public void release(Object bean) {
+                    releaseBean(beanDefinition, bean);
+                }
+            });
+            if (proxy == null) {
+                return null;
+            }
+            Object existing = scopedProxies.putIfAbsent(key, proxy);
+            if (existing != null) {
+                proxy = existing;
+            }
+        }
+        return proxy;
+    }
+
+    // A failing @PostConstruct method fails the bean, as it does in generated code: unchecked exceptions propagate
+    // as they are, checked ones wrapped, and the bean is never handed out half-initialized
+    private void invokePostConstruct(BeanDefinition beanDefinition, Object bean) throws InvocationTargetException {
+        Class<?> clazz = beanDefinition.getBeanClass();
+        for (BeanCreationPlan.LifecycleCallback callback : beanDefinition.getCreationPlan().getPostConstructCallbacks()) {
+            try {
+                callback.invoke(bean);
+                log.debug("Invoked @PostConstruct method: {}.{}", clazz.getName(), callback.getName());
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e, "Error invoking @PostConstruct method " + clazz.getName() + "." + callback.getName());
+            }
+        }
+    }
+
+    // The bean behind an AOP proxy, generated or not, or the instance itself
+    static Object unwrapProxy(Object bean) {
+        return bean instanceof AotBeanRegistry.GeneratedProxy ? ((AotBeanRegistry.GeneratedProxy) bean).getProxiedBean() : AopProxyFactory.getTarget(bean);
+    }
+
+    // Runs the @PreDestroy methods of the bean behind an instance, then close() if it is AutoCloseable
+    private void destroyBean(BeanDefinition beanDefinition, Object bean) {
+        Class<?> clazz = beanDefinition.getBeanClass();
+        Object target = unwrapProxy(bean);
+        BeanCreationPlan plan = beanDefinition.getCreationPlan();
+        if (plan == null) {
+            // Generated code calls @PreDestroy methods and close() itself
+            if (beanDefinition.getDestroyer() != null) {
                 try {
-                    method.setAccessible(true);
-                    method.invoke(bean);
-                    System.out.println("Invoked @PostConstruct method: " + clazz.getName() + "." + method.getName());
-                } catch (InvocationTargetException | IllegalAccessException e) {
-                    System.err.println("Error invoking @PostConstruct method " + clazz.getName() + "." + method.getName() + ": " + e.getMessage());
+                    beanDefinition.getDestroyer().destroy(target);
+                    log.debug("Destroyed {}", clazz.getName());
+                } catch (Throwable e) {
+                    log.error("Error destroying {}", clazz.getName(), e);
                 }
             }
+            return;
+        }
+        boolean closed = false;
+        for (BeanCreationPlan.LifecycleCallback callback : plan.getPreDestroyCallbacks()) {
+            try {
+                callback.invoke(target);
+                log.debug("Invoked @PreDestroy method: {}.{}", clazz.getName(), callback.getName());
+            } catch (Throwable e) {
+                log.error("Error invoking @PreDestroy method {}.{}", clazz.getName(), callback.getName(), e);
+            }
+            closed |= callback.getName().equals("close");
+        }
+        if (target instanceof AutoCloseable && !closed) {
+            try {
+                ((AutoCloseable) target).close();
+                log.debug("Closed {}", clazz.getName());
+            } catch (Exception e) {
+                log.error("Error closing {}", clazz.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Adds a scope that {@code @Scope} can select by name, or replaces a built-in one (e.g. {@code "pooled"} with
+     * other pool settings). Beans of the scope are looked up through it from then on, and a replaced scope is closed.
+     */
+    public void registerScope(String name, BeanScope scope) {
+        if ("singleton".equals(name) || "prototype".equals(name) || "refresh".equals(name)) {
+            throw new IllegalArgumentException("Cannot replace the " + name + " scope");
+        }
+        BeanScope previous = scopes.put(name, scope);
+        if (previous != null && previous != scope) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Hands back an instance obtained from getBean once the caller is done with it. Pooled beans go back to their
+     * pool; other scopes ignore it.
+     */
+    public void releaseBean(Class<?> beanType, Object bean) {
+        BeanDefinition beanDefinition = getBeanDefinition(beanType, null);
+        if (beanDefinition == null) {
+            parent.releaseBean(beanType, bean);
+        } else {
+            releaseBean(beanDefinition, bean);
+        }
+    }
+
+    private void releaseBean(BeanDefinition beanDefinition, Object bean) {
+        BeanScope scope = scopes.get(beanDefinition.getScope());
+        if (scope != null) {
+            scope.release(beanDefinition.getBeanClass(), bean);
         }
     }
 
+    /**
+     * Destroys the singletons created so far: each bean's @PreDestroy methods run, then {@code close()} if it is
+     * {@link AutoCloseable}. A bean is destroyed only after the beans that depend on it and the beans its advice
+     * applies to, and beans that do not wait on each other are destroyed in parallel. A bean that is not done
+     * within the destroy timeout is left running with a warning, so it cannot hold up the rest. A
+     * {@link ContextClosingEvent} is published first, then child contexts are shut down, async event listeners get
+     * the destroy timeout to take their queued events, {@code @Async} executors are stopped, and scopes destroy
+     * their own instances; prototypes are not tracked and are not destroyed. A child context destroys its
+     * singletons one by one in reverse creation order, without a timeout.
+     * Only the first call does anything, so it is safe to call explicitly and from the shutdown hook.
+     */
     public void shutdown() {
-        System.out.println("Shutting down BeanContainer...");
-        // Iterate through beans and invoke @PreDestroy methods
-        for (BeanDefinition bean : beanDefinitions.values()) {
-            Class<?> clazz = bean.getClass();
-            for (Method method : clazz.getDeclaredMethods()) {
-                if (method.isAnnotationPresent(PreDestroy.class)) {
-                    try {
-                        method.setAccessible(true);
-                        method.invoke(bean);
-                        System.out.println("Invoked @PreDestroy method: " + clazz.getName() + "." + method.getName());
-                    } catch (InvocationTargetException | IllegalAccessException e) {
-                        System.err.println("Error invoking @PreDestroy method " + clazz.getName() + "." + method.getName() + ": " + e.getMessage());
-                    }
-                }
+        if (!shutDown.compareAndSet(false, true)) {
+            return;
+        }
+        log.info("Shutting down BeanContainer...");
+        if (lifecycleEvents) {
+            try {
+                publishEvent(new ContextClosingEvent(this));
+            } catch (RuntimeException e) {
+                log.error("@EventListener failed on closing", e);
+            }
+        }
+        for (BeanFactory child : List.copyOf(children)) {
+            child.shutdown();
+        }
+        if (parent != null) {
+            parent.children.remove(this);
+        }
+        Thread hook = shutdownHook;
+        if (hook != null && Thread.currentThread() != hook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // The JVM is already shutting down and runs the hook anyway
+            }
+        }
+        try {
+            events.close(System.nanoTime() + destroyTimeout.toNanos()); // Async listeners take what is queued
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        shutdownExecutors(); // Before the beans the calls use are destroyed
+        for (BeanScope scope : scopes.values()) {
+            scope.close();
+        }
+        destroySingletons();
+        for (BoundedCache cache : caches.values()) {
+            cache.clear();
+        }
+        metadata = ContextMetadata.EMPTY; // Children of the same package may still use the old metadata
+        log.info("BeanContainer shut down.");
+    }
+
+    // Shuts the container down when the JVM exits, unless shutdown() was called before
+    public void registerShutdownHook() {
+        synchronized (shutDown) {
+            if (shutdownHook == null) {
+                Thread hook = new Thread(this::shutdown, "clone-spring-shutdown");
+                Runtime.getRuntime().addShutdownHook(hook);
+                shutdownHook = hook;
             }
         }
-        beanDefinitions.clear(); // Clean up the bean map
-        System.out.println("BeanContainer shut down.");
+    }
+
+    // How long shutdown waits for each bean to be destroyed; 10 seconds unless set
+    public void setDestroyTimeout(Duration destroyTimeout) {
+        this.destroyTimeout = destroyTimeout;
+    }
+
+    // Mirrors instantiateSingletons: each bean's future waits for the beans that have to go first
+    private void destroySingletons() {
+        DependencyGraph graph = metadata.getDependencyGraph();
+        List<BeanDefinition> created = new ArrayList<>();
+        for (BeanDefinition beanDefinition : metadata.getCreationOrder()) {
+            if (beanDefinition.isSingleton() && singletons.get(beanDefinition.getIndex()) != null) {
+                created.add(beanDefinition);
+            }
+        }
+        if (created.isEmpty()) {
+            return;
+        }
+        if (parent != null) {
+            // Like creation, on the calling thread and in reverse; there is no pool to give up on a bean with
+            for (int i = created.size() - 1; i >= 0; i--) {
+                destroyBean(created.get(i), singletons.getAndSet(created.get(i).getIndex(), null));
+            }
+            return;
+        }
+        Map<BeanDefinition, List<BeanDefinition>> destroyFirst = getDestroyFirst(graph, created);
+        Map<BeanDefinition, CompletableFuture<Void>> destroyed = new HashMap<>();
+        long timeoutMillis = destroyTimeout.toMillis();
+        ForkJoinPool executor = new ForkJoinPool(parallelism(created.size()));
+        try {
+            // Dependents come later in creation order, so walking it backwards meets them first
+            for (int i = created.size() - 1; i >= 0; i--) {
+                BeanDefinition beanDefinition = created.get(i);
+                Object instance = singletons.get(beanDefinition.getIndex());
+                CompletableFuture<?>[] before = destroyFirst.getOrDefault(beanDefinition, List.of()).stream()
+                        .map(destroyed::get)
+                        .filter(Objects::nonNull)
+                        .toArray(CompletableFuture<?>[]::new);
+                destroyed.put(beanDefinition, CompletableFuture.allOf(before).thenCompose(ignored ->
+                        CompletableFuture.runAsync(() -> destroyBean(beanDefinition, instance), executor)
+                                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                                .exceptionally(e -> {
+                                    log.warn("Gave up on destroying {} after {} ms", beanDefinition.getBeanClass().getName(), timeoutMillis);
+                                    return null;
+                                })));
+            }
+            CompletableFuture.allOf(destroyed.values().toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+        for (BeanDefinition beanDefinition : created) {
+            singletons.set(beanDefinition.getIndex(), null);
+        }
+    }
+
+    // For each singleton, the created singletons that must be destroyed before it: its dependents, which include the
+    // beans it advises
+    private Map<BeanDefinition, List<BeanDefinition>> getDestroyFirst(DependencyGraph graph, List<BeanDefinition> created) {
+        Map<BeanDefinition, List<BeanDefinition>> destroyFirst = new HashMap<>();
+        for (BeanDefinition beanDefinition : created) {
+            for (BeanDefinition dependency : graph.getSingletonDependencies(beanDefinition)) {
+                destroyFirst.computeIfAbsent(dependency, d -> new ArrayList<>()).add(beanDefinition);
+            }
+        }
+        return destroyFirst;
     }
 
     // Method to retrieve a bean
     public <T> T getBean(Class<T> beanType) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
-        BeanDefinition beanDefinition = beanDefinitions.get(beanType);
-        if (beanDefinition == null) {
-            throw new NoSuchBeanDefinitionException("No bean found for type: " + beanType.getName());
+        if (beanType == ApplicationEventPublisher.class) {
+            return (T) this;
         }
-        if (beanDefinition.getScope().equals("singleton")) {
-            if (beanDefinition.getSingletonInstance() == null) {
-                Object instance = createInstance(beanDefinition.getBeanClass());
-                beanDefinition.setSingletonInstance(instance);
-                injectFields(instance);
-                invokePostConstruct(instance);
+        BeanDefinition beanDefinition = getBeanDefinition(beanType, null);
+        return beanDefinition != null ? (T) retrieve(beanDefinition) : parent.getBean(beanType);
+    }
+
+    // The bean with the given name, which must be assignable to beanType
+    public <T> T getBean(Class<T> beanType, String name) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        BeanDefinition beanDefinition = getBeanDefinition(beanType, name);
+        return beanDefinition != null ? (T) retrieve(beanDefinition) : parent.getBean(beanType, name);
+    }
+
+    // Every bean assignable to beanType by name, ordered like an injected Map<String, T>, the parent's included
+    public <T> Map<String, T> getBeansOfType(Class<T> beanType) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        Map<String, T> beans = new LinkedHashMap<>();
+        for (BeanDefinition candidate : metadata.getTypeIndex().getCandidates(beanType)) {
+            beans.put(candidate.getName(), (T) retrieve(candidate));
+        }
+        if (parent != null) {
+            parent.getBeansOfType(beanType).forEach(beans::putIfAbsent);
+        }
+        return beans;
+    }
+
+    private Object retrieve(BeanDefinition beanDefinition) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        if (!timed) {
+            return getBean(beanDefinition);
+        }
+        long start = System.nanoTime();
+        try {
+            return getBean(beanDefinition);
+        } finally {
+            metrics.beanRetrieved(beanDefinition.getBeanClass(), beanDefinition.getScope(), System.nanoTime() - start);
+        }
+    }
+
+    private Object getBean(BeanDefinition beanDefinition) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        if (beanDefinition.isSingleton()) {
+            // Fast path: a single volatile read once the singleton exists
+            Object instance = singletons.get(beanDefinition.getIndex());
+            if (instance == null) {
+                instance = createSingleton(beanDefinition);
             }
-            return (T) beanDefinition.getSingletonInstance();
+            return instance;
         } else if (beanDefinition.getScope().equals("prototype")) {
-            Object instance = createInstance(beanDefinition.getBeanClass());
-            injectFields(instance);
-            invokePostConstruct(instance);
-            return (T) instance;
-        } else {
+            return initializeBean(beanDefinition);
+        }
+        BeanScope scope = scopes.get(beanDefinition.getScope());
+        if (scope == null) {
             throw new UnsupportedOperationException("Unsupported bean scope: " + beanDefinition.getScope());
         }
+        try {
+            return scope.get(beanDefinition.getBeanClass(), new ScopedObjectFactory(beanDefinition));
+        } catch (InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InvocationTargetException(e, "Error getting " + beanDefinition.getBeanClass().getName() + " from scope " + beanDefinition.getScope());
+        }
+    }
+
+    // Throws if there is no single match, or returns null if this context has no candidate but the parent may have
+    private BeanDefinition getBeanDefinition(Class<?> beanType, String qualifier) {
+        TypeIndex typeIndex = metadata.getTypeIndex();
+        BeanDefinition beanDefinition = typeIndex.find(beanType, qualifier);
+        if (beanDefinition != null) {
+            return beanDefinition;
+        }
+        BeanDefinition interfaceProxied = typeIndex.findInterfaceProxied(beanType);
+        if (interfaceProxied != null) {
+            List<String> interfaces = new ArrayList<>();
+            for (Class<?> anInterface : beanType.getInterfaces()) {
+                interfaces.add(anInterface.getName());
+            }
+            throw new NoSuchBeanDefinitionException("Bean " + beanType.getName() + " is advised, but its class cannot be subclassed"
+                    + " (it is final, or has no non-private no-argument constructor and sun.misc.Unsafe is not available), so its proxy"
+                    + " only implements " + interfaces + "; look it up by one of those");
+        }
+        if (parent != null && (qualifier != null || typeIndex.getCandidates(beanType).isEmpty())) {
+            return null;
+        }
+        if (qualifier != null) {
+            throw new NoSuchBeanDefinitionException("No bean named '" + qualifier + "' found for type: " + beanType.getName());
+        }
+        List<BeanDefinition> candidates = typeIndex.getCandidates(beanType);
+        if (candidates.isEmpty()) {
+            throw new NoSuchBeanDefinitionException("No bean found for type: " + beanType.getName());
+        }
+        List<String> names = new ArrayList<>();
+        for (BeanDefinition candidate : candidates) {
+            names.add(candidate.getBeanClass().getName());
+        }
+        throw new NoSuchBeanDefinitionException("Expected a single bean of type " + beanType.getName() + " but found " + names
+                + "; mark one @Primary or select one with @Qualifier");
+    }
+
+    // Creation is guarded per bean, so unrelated singletons can be created in parallel. Not by the definition
+    // itself: child contexts share it, and one tenant's slow @PostConstruct must not hold up another's.
+    private Object createSingleton(BeanDefinition beanDefinition) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        synchronized (creationLocks.computeIfAbsent(beanDefinition, d -> new Object())) {
+            Object instance = singletons.get(beanDefinition.getIndex());
+            if (instance == null) {
+                instance = initializeBean(beanDefinition);
+                singletons.set(beanDefinition.getIndex(), instance);
+            }
+            return instance;
+        }
+    }
+
+    // Creates, injects and initializes a new instance, and returns what callers should see (possibly a proxy)
+    private Object initializeBean(BeanDefinition beanDefinition) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        Class<?> beanClass = beanDefinition.getBeanClass();
+        // Startup rejects cyclic graphs, but a @Lazy point that could not be proxied can still close a cycle here
+        Deque<Class<?>> inCreation = beansInCreation.get();
+        if (inCreation.contains(beanClass)) {
+            List<Class<?>> cycle = new ArrayList<>();
+            for (Iterator<Class<?>> it = inCreation.descendingIterator(); it.hasNext(); ) {
+                Class<?> step = it.next();
+                if (!cycle.isEmpty() || step == beanClass) {
+                    cycle.add(step);
+                }
+            }
+            cycle.add(beanClass);
+            throw new CircularDependencyException(cycle);
+        }
+        inCreation.push(beanClass);
+        try {
+            long start = timed ? System.nanoTime() : 0;
+            if (beanDefinition.getInstanceSupplier() != null) {
+                // Generated code creates, injects, initializes and proxies in one go
+                Object instance = createAotInstance(beanDefinition);
+                recordPhase(beanClass, ContainerMetrics.Phase.INSTANTIATE, start);
+                return instance;
+            }
+            Object instance = createInstance(beanDefinition);
+            start = recordPhase(beanClass, ContainerMetrics.Phase.INSTANTIATE, start);
+            injectFields(beanDefinition, instance);
+            start = recordPhase(beanClass, ContainerMetrics.Phase.INJECT, start);
+            invokePostConstruct(beanDefinition, instance);
+            recordPhase(beanClass, ContainerMetrics.Phase.POST_CONSTRUCT, start);
+            return applyAspects(beanClass, instance);
+        } finally {
+            inCreation.pop();
+        }
+    }
+
+    private Object createAotInstance(BeanDefinition beanDefinition) throws InvocationTargetException {
+        try {
+            return beanDefinition.getInstanceSupplier().create(aotContext);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e, "Error creating " + beanDefinition.getBeanClass().getName());
+        }
+    }
+
+    // Reports a phase that began at start and returns its end, which is where the next phase begins
+    private long recordPhase(Class<?> beanClass, ContainerMetrics.Phase phase, long start) {
+        if (!timed) {
+            return 0;
+        }
+        long end = System.nanoTime();
+        metrics.beanPhase(beanClass, phase, start, end - start);
+        return end;
+    }
+
+    // How a scope creates and destroys instances of one bean
+    private class ScopedObjectFactory implements BeanScope.ObjectFactory {
+        private final BeanDefinition beanDefinition;
+
+        ScopedObjectFactory(BeanDefinition beanDefinition) {
+            this.beanDefinition = beanDefinition;
+        }
+
+        @Override
+        public Object create() throws Exception {
+            return initializeBean(beanDefinition);
+        }
+
+        @Override
+        public void destroy(Object bean) {
+            destroyBean(beanDefinition, bean);
+        }
+    }
+
+    private record ScopedProxyKey(BeanDefinition beanDefinition, Class<?> type) {
+    }
+
+    private record ValueKey(String expression, Class<?> type, Class<?> elementType) {
+    }
+
+    // Injection points of generated code resolve like reflective ones, scoped proxies included
+    private class AotContext implements AotBeanRegistry.Context {
+        @Override
+        public <T> T getBean(Class<T> type, String qualifier) throws Exception {
+            return type.cast(resolveDependency(new BeanCreationPlan.Dependency(type, false, qualifier, BeanCreationPlan.Dependency.Kind.SINGLE)));
+        }
+
+        @Override
+        public <T> T getLazyBean(Class<T> type, String qualifier) throws Exception {
+            return type.cast(resolveDependency(new BeanCreationPlan.Dependency(type, true, qualifier, BeanCreationPlan.Dependency.Kind.SINGLE)));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> getBeanList(Class<T> type) throws Exception {
+            return (List<T>) resolveDependency(new BeanCreationPlan.Dependency(type, false, null, BeanCreationPlan.Dependency.Kind.LIST));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Map<String, T> getBeanMap(Class<T> type) throws Exception {
+            return (Map<String, T>) resolveDependency(new BeanCreationPlan.Dependency(type, false, null, BeanCreationPlan.Dependency.Kind.MAP));
+        }
+
+        @Override
+        public AdviceChain adviceChain(Class<?> declaringClass, String methodName, Class<?>[] parameterTypes,
+                                       AdviceChain.TargetInvoker targetInvoker, List<AdviceInterceptor> interceptors) {
+            return AdviceChain.of(declaringClass, methodName, parameterTypes, targetInvoker, interceptors, adviceTimer);
+        }
+
+        // Bound on first use and then shared by every instance of the injection point
+        @Override
+        public Object value(String expression, Class<?> type, Class<?> elementType) {
+            ValueKey key = new ValueKey(expression, type, elementType);
+            PropertyBinding binding = aotBindings.get(key);
+            if (binding == null) {
+                binding = PropertyBinding.of(expression, type, elementType);
+                PropertyBinding existing = aotBindings.putIfAbsent(key, binding);
+                if (existing != null) {
+                    binding = existing;
+                }
+            }
+            return resolveValue(binding);
+        }
+
+        @Override
+        public AdviceInterceptor asyncInterceptor(String executorName) {
+            return getAsyncInterceptor(executorName);
+        }
+
+        @Override
+        public AdviceInterceptor cacheableInterceptor(String cacheName) {
+            return getCacheableInterceptor(cacheName);
+        }
+
+        @Override
+        public AdviceInterceptor cacheEvictInterceptor(String cacheName, boolean allEntries, boolean beforeInvocation) {
+            return getCacheEvictInterceptor(cacheName, allEntries, beforeInvocation);
+        }
+
+        @Override
+        public <T> T allocateProxy(Class<T> proxyClass, Supplier<T> constructor) {
+            return SubclassProxyGenerator.allocate(proxyClass, constructor);
+        }
+
+        @Override
+        public AdviceChain[] adviceChains(Class<?> beanClass, AotBeanRegistry.ChainFactory factory) throws Exception {
+            AdviceChain[] chains = aotAdviceChains.get(beanClass);
+            if (chains == null) {
+                chains = factory.create(this); // May create aspect beans, so not inside computeIfAbsent
+                AdviceChain[] existing = aotAdviceChains.putIfAbsent(beanClass, chains);
+                if (existing != null) {
+                    chains = existing;
+                }
+            }
+            return chains;
+        }
     }
 
     class NoSuchBeanDefinitionException extends RuntimeException {
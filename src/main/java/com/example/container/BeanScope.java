@@ -0,0 +1,30 @@
+package com.example.container;
+
+/**
+ * Decides which instance of a bean {@code getBean} returns for scopes other than singleton and prototype. Built in
+ * are {@link ThreadScope} ({@code "thread"}) and {@link PooledScope} ({@code "pooled"}); others, such as a
+ * {@link ContextScope} per request, are added with {@link BeanFactory#registerScope(String, BeanScope)} and
+ * selected with {@code @Scope}.
+ */
+public interface BeanScope {
+    /**
+     * @return the instance of beanClass for the current context, created with {@code objectFactory} if there is none
+     */
+    Object get(Class<?> beanClass, ObjectFactory objectFactory) throws Exception;
+
+    // Called with an instance the caller is done with, see BeanFactory.releaseBean
+    default void release(Class<?> beanClass, Object bean) {
+    }
+
+    // Called when the container shuts down
+    default void close() {
+    }
+
+    interface ObjectFactory {
+        // A new, fully initialized instance, proxy included
+        Object create() throws Exception;
+
+        // Runs the bean's @PreDestroy methods; call it once the scope drops an instance
+        void destroy(Object bean);
+    }
+}
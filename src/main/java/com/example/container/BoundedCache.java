@@ -0,0 +1,129 @@
+package com.example.container;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The store behind a {@code @Cacheable} cache: a {@link ConcurrentHashMap} bounded to maximumSize entries, with an
+ * optional time-to-live. Eviction is CLOCK (second chance), an approximation of LRU whose hits only set a flag:
+ * each entry also sits in a slot of a ring, a hit marks it referenced, and when the cache is full the clock hand
+ * walks the ring, giving referenced entries another round and evicting the first one that is not. Lookups never
+ * lock; writes, which follow a miss, take the ring's lock.
+ */
+final class BoundedCache {
+    private final String name;
+    private final long ttlNanos; // 0 when entries do not expire
+    private final ConcurrentHashMap<Object, Entry> entries;
+    private final Entry[] ring; // Guarded by itself, like hand and filled
+    private int hand;
+    private int filled;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    static final class Entry {
+        private final Object key;
+        private final Object value;
+        private final long expiresAt;
+        private volatile boolean referenced;
+        private int slot; // Guarded by the ring
+
+        Entry(Object key, Object value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        Object getValue() {
+            return value;
+        }
+    }
+
+    // A zero or negative time-to-live keeps entries until they are evicted
+    BoundedCache(String name, int maximumSize, Duration timeToLive) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache " + name + " needs maximumSize >= 1");
+        }
+        this.name = name;
+        this.ttlNanos = timeToLive.isNegative() || timeToLive.isZero() ? 0 : timeToLive.toNanos();
+        this.entries = new ConcurrentHashMap<>(Math.min(maximumSize, 1 << 16));
+        this.ring = new Entry[maximumSize];
+    }
+
+    String getName() {
+        return name;
+    }
+
+    // The live entry for key, or null on a miss; the value of an entry may be null
+    Entry get(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (ttlNanos != 0 && System.nanoTime() - entry.expiresAt >= 0) {
+            if (entries.remove(key, entry)) {
+                expirations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true; // Skip the write when it is set, so hot entries stay shared in every core's cache
+        }
+        hits.increment();
+        return entry;
+    }
+
+    void put(Object key, Object value) {
+        Entry entry = new Entry(key, value, ttlNanos != 0 ? System.nanoTime() + ttlNanos : 0);
+        synchronized (ring) {
+            Entry previous = entries.put(key, entry);
+            // A replaced entry hands over its slot; removed ones keep theirs until the hand comes by
+            int slot = previous != null ? previous.slot : filled < ring.length ? filled++ : nextFreeSlot();
+            entry.slot = slot;
+            ring[slot] = entry;
+        }
+    }
+
+    // Guarded by the ring; the map holds at most one entry per slot, so it never exceeds the ring's length
+    private int nextFreeSlot() {
+        for (int scanned = 0; ; scanned++) {
+            int slot = hand;
+            hand = slot + 1 == ring.length ? 0 : slot + 1;
+            Entry candidate = ring[slot];
+            if (entries.get(candidate.key) != candidate) {
+                return slot; // Evicted explicitly, expired or cleared since
+            }
+            boolean expired = ttlNanos != 0 && System.nanoTime() - candidate.expiresAt >= 0;
+            // Hits can keep re-marking entries; after two full turns the hand evicts whatever it is on
+            if (candidate.referenced && !expired && scanned < 2 * ring.length) {
+                candidate.referenced = false;
+                continue;
+            }
+            if (entries.remove(candidate.key, candidate)) {
+                (expired ? expirations : evictions).increment();
+            }
+            return slot;
+        }
+    }
+
+    void evict(Object key) {
+        entries.remove(key);
+    }
+
+    // Removed entries leave their ring slots to be reclaimed by the hand, so this does not take the lock
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    CacheStats getStats() {
+        return new CacheStats(name, hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), entries.size(), ring.length);
+    }
+}
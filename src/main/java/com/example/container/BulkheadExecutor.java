@@ -0,0 +1,197 @@
+package com.example.container;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A named executor for {@code @Async} methods that runs at most maxConcurrency tasks at a time on its delegate and
+ * keeps at most queueCapacity more waiting, so one slow dependency cannot take every thread. A task that finds both
+ * full is rejected on the caller's thread.
+ * <p>
+ * By default the delegate starts a virtual thread per task when the JDK has them (21 and later); on older JDKs it
+ * is a cached pool of daemon threads, which the concurrency limit also bounds.
+ */
+class BulkheadExecutor implements Executor {
+    private static final Logger log = Logger.getLogger(BulkheadExecutor.class);
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+    private final String name;
+    private final ExecutorService delegate;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    private volatile boolean shutDown;
+
+    BulkheadExecutor(String name, ExecutorService delegate, int maxConcurrency, int queueCapacity) {
+        if (maxConcurrency < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Executor " + name + " needs maxConcurrency >= 1 and queueCapacity >= 0");
+        }
+        this.name = name;
+        this.delegate = delegate;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+    }
+
+    static boolean hasVirtualThreads() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    // A virtual thread per task when available, otherwise daemon threads named after the executor
+    static ExecutorService newThreadPerTaskExecutor(String name) {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Could not create a virtual thread executor, using platform threads: {}", e.toString());
+            }
+        }
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "clone-spring-async-" + name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    private static Method findVirtualThreadExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutDown) {
+            throw new RejectedExecutionException("Executor " + name + " has been shut down");
+        }
+        if (tryAcquire()) {
+            submit(task);
+            return;
+        }
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            throw new RejectedExecutionException("Executor " + name + " is full: " + maxConcurrency + " running, " + queueCapacity + " waiting");
+        }
+        waiting.add(task);
+        if (shutDown && waiting.remove(task)) {
+            queued.decrementAndGet(); // Raced with shutdown(), which would not see it
+            throw new RejectedExecutionException("Executor " + name + " has been shut down");
+        }
+        // A running task may have finished between the failed acquire and the add; make sure someone drains
+        if (tryAcquire()) {
+            runNextOrRelease();
+        }
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = running.get();
+            if (current >= maxConcurrency) {
+                return false;
+            }
+        } while (!running.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    // Runs the task holding a permit; when it ends the permit goes to the next waiting task, if any
+    private void submit(Runnable task) {
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    runNextOrRelease();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void runNextOrRelease() {
+        while (true) {
+            Runnable next = shutDown ? null : waiting.poll();
+            if (next != null) {
+                queued.decrementAndGet();
+                try {
+                    submit(next);
+                } catch (RejectedExecutionException e) {
+                    // The delegate is gone, and submit gave the permit back; nothing waiting can run any more
+                    cancel(next);
+                    for (Runnable task; (task = waiting.poll()) != null; ) {
+                        queued.decrementAndGet();
+                        cancel(task);
+                    }
+                }
+                return;
+            }
+            running.decrementAndGet();
+            // A task queued after the poll saw nothing needs a permit, or it waits until the next one ends
+            if (waiting.isEmpty() || shutDown || !tryAcquire()) {
+                return;
+            }
+        }
+    }
+
+    int getRunningCount() {
+        return running.get();
+    }
+
+    int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * Stops accepting tasks, cancels the ones still waiting for a permit and shuts the delegate down, which lets
+     * running tasks finish. Returns the cancelled tasks.
+     */
+    List<Runnable> shutdown() {
+        shutDown = true;
+        List<Runnable> cancelled = new ArrayList<>();
+        for (Runnable task; (task = waiting.poll()) != null; ) {
+            queued.decrementAndGet();
+            cancel(task);
+            cancelled.add(task);
+        }
+        delegate.shutdown();
+        return cancelled;
+    }
+
+    // Waits for running tasks until the deadline, then interrupts them; true if they all finished in time
+    boolean awaitTermination(long deadlineNanos) throws InterruptedException {
+        if (delegate.awaitTermination(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            return true;
+        }
+        delegate.shutdownNow();
+        return false;
+    }
+
+    private static void cancel(Runnable task) {
+        if (task instanceof Future) {
+            ((Future<?>) task).cancel(false);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BulkheadExecutor[" + name + ", running=" + running.get() + "/" + maxConcurrency + ", queued=" + queued.get() + "/" + queueCapacity + "]";
+    }
+}
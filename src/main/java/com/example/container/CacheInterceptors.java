@@ -0,0 +1,92 @@
+package com.example.container;
+
+import com.example.annotation.aop.AdviceInterceptor;
+
+import java.util.Arrays;
+
+/**
+ * The interceptors behind {@code @Cacheable} and {@code @CacheEvict}. They are the last links of a chain, so other
+ * advice still sees every call, hits included.
+ */
+final class CacheInterceptors {
+    private static final Object EMPTY_KEY = new Object() {
+        @Override
+        public String toString() {
+            return "[]";
+        }
+    };
+
+    private CacheInterceptors() {
+    }
+
+    static AdviceInterceptor cacheable(BoundedCache cache) {
+        return invocation -> {
+            Object key = key(invocation.getArgs());
+            BoundedCache.Entry entry = cache.get(key);
+            if (entry != null) {
+                return entry.getValue();
+            }
+            Object result = invocation.proceed();
+            cache.put(key, result);
+            return result;
+        };
+    }
+
+    static AdviceInterceptor evict(BoundedCache cache, boolean allEntries, boolean beforeInvocation) {
+        return invocation -> {
+            if (beforeInvocation) {
+                evict(cache, allEntries, invocation.getArgs());
+                return invocation.proceed();
+            }
+            Object result = invocation.proceed();
+            evict(cache, allEntries, invocation.getArgs());
+            return result;
+        };
+    }
+
+    private static void evict(BoundedCache cache, boolean allEntries, Object[] args) {
+        if (allEntries) {
+            cache.clear();
+        } else {
+            cache.evict(key(args));
+        }
+    }
+
+    // A single argument is its own key, so String and boxed primitive arguments allocate nothing more
+    static Object key(Object[] args) {
+        if (args.length == 0) {
+            return EMPTY_KEY;
+        }
+        if (args.length == 1 && args[0] != null && !args[0].getClass().isArray()) {
+            return args[0];
+        }
+        return new CompositeKey(args);
+    }
+
+    // Compares arrays by content, like the arguments they were passed as
+    private static final class CompositeKey {
+        private final Object[] args;
+        private final int hash;
+
+        CompositeKey(Object[] args) {
+            this.args = args;
+            this.hash = Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other || other instanceof CompositeKey && hash == ((CompositeKey) other).hash
+                    && Arrays.deepEquals(args, ((CompositeKey) other).args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.deepToString(args);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.container;
+
+/**
+ * A snapshot of the counters of one {@code @Cacheable} cache, from {@link BeanFactory#getCacheStats(String)}.
+ * Counters are summed without stopping the cache, so under load they are only approximately consistent with
+ * each other.
+ */
+public final class CacheStats {
+    private final String name;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final int size;
+    private final int maximumSize;
+
+    CacheStats(String name, long hits, long misses, long evictions, long expirations, int size, int maximumSize) {
+        this.name = name;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.size = size;
+        this.maximumSize = maximumSize;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    // Lookups that found nothing, or an expired entry
+    public long getMisses() {
+        return misses;
+    }
+
+    // Entries removed to make room; entries removed by @CacheEvict are not counted
+    public long getEvictions() {
+        return evictions;
+    }
+
+    // Entries removed because their time-to-live ran out
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    // Between 0 and 1; 0 before the first lookup
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d hits, %d misses (%.1f%%), %d evictions, %d expirations, %d/%d entries",
+                name, hits, misses, 100 * getHitRate(), evictions, expirations, size, maximumSize);
+    }
+}
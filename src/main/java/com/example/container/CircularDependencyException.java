@@ -0,0 +1,18 @@
+package com.example.container;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class CircularDependencyException extends RuntimeException {
+    private final List<Class<?>> cycle;
+
+    public CircularDependencyException(List<Class<?>> cycle) {
+        super("Circular dependency detected: " + cycle.stream().map(Class::getName).collect(Collectors.joining(" -> ")));
+        this.cycle = List.copyOf(cycle);
+    }
+
+    // The beans on the cycle, starting and ending with the same class
+    public List<Class<?>> getCycle() {
+        return cycle;
+    }
+}
@@ -0,0 +1,416 @@
+package com.example.container;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of a class file writer for {@link SubclassProxyGenerator}: a constant pool, fields, and methods whose
+ * code only runs straight through or leaves through an exception handler. Classes are written as version 49
+ * (Java 5), which the JVM verifies by type inference, so no stack map frames are needed.
+ */
+final class ClassFileWriter {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_PROTECTED = 0x0004;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+    static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int VERSION = 49;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> constants = new HashMap<>();
+    private int poolSize = 1;
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+
+    int utf8(String value) {
+        return constant("U" + value, out -> {
+            out.writeByte(1);
+            out.writeUTF(value);
+        });
+    }
+
+    // internalName uses slashes, e.g. java/lang/Object, or is an array descriptor
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return constant("C" + internalName, out -> {
+            out.writeByte(7);
+            out.writeShort(name);
+        });
+    }
+
+    int integer(int value) {
+        return constant("I" + value, out -> {
+            out.writeByte(3);
+            out.writeInt(value);
+        });
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor, boolean isInterface) {
+        return memberRef(isInterface ? 11 : 10, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = constant("N" + name + " " + descriptor, out -> {
+            out.writeByte(12);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+        return constant(tag + owner + "." + name + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    private interface Entry {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private int constant(String key, Entry entry) {
+        Integer index = constants.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            entry.write(pool);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        constants.put(key, poolSize);
+        return poolSize++;
+    }
+
+    void field(int access, String name, String descriptor) {
+        fields.add(bytes(out -> {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(0);
+        }));
+    }
+
+    Code method(int access, String name, String descriptor) {
+        return new Code(access, name, descriptor);
+    }
+
+    byte[] toByteArray(int access, String thisClass, String superClass, String... interfaces) {
+        int thisIndex = classRef(thisClass);
+        int superIndex = classRef(superClass);
+        int[] interfaceIndexes = new int[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaceIndexes[i] = classRef(interfaces[i]);
+        }
+        return bytes(out -> {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolSize);
+            poolBytes.writeTo(out);
+            out.writeShort(access);
+            out.writeShort(thisIndex);
+            out.writeShort(superIndex);
+            out.writeShort(interfaceIndexes.length);
+            for (int index : interfaceIndexes) {
+                out.writeShort(index);
+            }
+            writeAll(out, fields);
+            writeAll(out, methods);
+            out.writeShort(0); // No class attributes
+        });
+    }
+
+    private static void writeAll(DataOutputStream out, List<byte[]> items) throws IOException {
+        out.writeShort(items.size());
+        for (byte[] item : items) {
+            out.write(item);
+        }
+    }
+
+    private static byte[] bytes(Entry entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            entry.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Size of a value of the given descriptor on the operand stack or in locals
+    static int slots(String descriptor) {
+        return descriptor.equals("J") || descriptor.equals("D") ? 2 : descriptor.equals("V") ? 0 : 1;
+    }
+
+    /**
+     * The body of one method. Each instruction keeps count of the operand stack, so max_stack comes out right as
+     * long as the code is straight-line; {@link #handler()} resets the count to the exception an entry pushes.
+     */
+    final class Code {
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream exceptionTable = new ByteArrayOutputStream();
+        private int exceptionCount;
+        private int stack;
+        private int maxStack;
+        private int maxLocals;
+
+        private Code(int access, String name, String descriptor) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+
+        int position() {
+            return code.size();
+        }
+
+        // Marks the start of an exception handler, where the stack holds just the exception
+        Code handler() {
+            stack = 0;
+            return push(1);
+        }
+
+        // catchType is an internal class name, or null for any exception
+        Code tryCatch(int start, int end, int handler, String catchType) {
+            int type = catchType != null ? classRef(catchType) : 0;
+            exceptionCount++;
+            for (int value : new int[]{start, end, handler, type}) {
+                exceptionTable.write(value >>> 8);
+                exceptionTable.write(value);
+            }
+            return this;
+        }
+
+        Code locals(int count) {
+            maxLocals = Math.max(maxLocals, count);
+            return this;
+        }
+
+        // A load or store of a value of the given field descriptor
+        Code load(String type, int slot) {
+            return local(loadOpcode(type), slot).push(slots(type));
+        }
+
+        Code store(String type, int slot) {
+            return local(loadOpcode(type) + 33, slot).push(-slots(type)); // xstore = xload + 33
+        }
+
+        private Code local(int opcode, int slot) {
+            locals(slot + 1);
+            if (slot <= 255) {
+                return op(opcode).u1(slot);
+            }
+            return op(0xC4).op(opcode).u2(slot); // wide
+        }
+
+        private static int loadOpcode(String type) {
+            switch (type.charAt(0)) {
+                case 'Z':
+                case 'B':
+                case 'C':
+                case 'S':
+                case 'I':
+                    return 0x15;
+                case 'J':
+                    return 0x16;
+                case 'F':
+                    return 0x17;
+                case 'D':
+                    return 0x18;
+                default:
+                    return 0x19;
+            }
+        }
+
+        // The return instruction for a return type descriptor
+        Code returnValue(String type) {
+            int opcode;
+            switch (type.charAt(0)) {
+                case 'V':
+                    opcode = 0xB1;
+                    break;
+                case 'Z':
+                case 'B':
+                case 'C':
+                case 'S':
+                case 'I':
+                    opcode = 0xAC;
+                    break;
+                case 'J':
+                    opcode = 0xAD;
+                    break;
+                case 'F':
+                    opcode = 0xAE;
+                    break;
+                case 'D':
+                    opcode = 0xAF;
+                    break;
+                default:
+                    opcode = 0xB0;
+            }
+            return op(opcode).push(-slots(type));
+        }
+
+        Code pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                return op(0x03 + value).push(1); // iconst_<n>
+            }
+            if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                return op(0x10).u1(value).push(1); // bipush
+            }
+            if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                return op(0x11).u2(value).push(1); // sipush
+            }
+            return op(0x13).u2(integer(value)).push(1); // ldc_w
+        }
+
+        Code pushNull() {
+            return op(0x01).push(1); // aconst_null
+        }
+
+        Code dup() {
+            return op(0x59).push(1);
+        }
+
+        Code pop(String type) {
+            int size = slots(type);
+            return size == 0 ? this : op(size == 2 ? 0x58 : 0x57).push(-size);
+        }
+
+        Code aaload() {
+            return op(0x32).push(-1);
+        }
+
+        Code aastore() {
+            return op(0x53).push(-3);
+        }
+
+        Code athrow() {
+            return op(0xBF).push(-1);
+        }
+
+        Code newObject(String internalName) {
+            return op(0xBB).u2(classRef(internalName)).push(1);
+        }
+
+        Code newArray(String elementInternalName) {
+            return op(0xBD).u2(classRef(elementInternalName)); // anewarray: count in, array out
+        }
+
+        Code checkcast(String internalName) {
+            return op(0xC0).u2(classRef(internalName));
+        }
+
+        Code getField(String owner, String name, String type) {
+            return op(0xB4).u2(fieldRef(owner, name, type)).push(slots(type) - 1);
+        }
+
+        Code putField(String owner, String name, String type) {
+            return op(0xB5).u2(fieldRef(owner, name, type)).push(-slots(type) - 1);
+        }
+
+        Code invokeVirtual(String owner, String name, String descriptor) {
+            return op(0xB6).u2(methodRef(owner, name, descriptor, false)).invoked(descriptor, true);
+        }
+
+        Code invokeSpecial(String owner, String name, String descriptor) {
+            return op(0xB7).u2(methodRef(owner, name, descriptor, false)).invoked(descriptor, true);
+        }
+
+        Code invokeStatic(String owner, String name, String descriptor) {
+            return op(0xB8).u2(methodRef(owner, name, descriptor, false)).invoked(descriptor, false);
+        }
+
+        Code invokeInterface(String owner, String name, String descriptor) {
+            int argumentSlots = argumentSlots(descriptor) + 1;
+            return op(0xB9).u2(methodRef(owner, name, descriptor, true)).u1(argumentSlots).u1(0).invoked(descriptor, true);
+        }
+
+        private Code invoked(String descriptor, boolean hasReceiver) {
+            return push(-argumentSlots(descriptor) - (hasReceiver ? 1 : 0) + slots(descriptor.substring(descriptor.indexOf(')') + 1)));
+        }
+
+        private Code op(int opcode) {
+            code.write(opcode);
+            return this;
+        }
+
+        private Code u1(int value) {
+            code.write(value);
+            return this;
+        }
+
+        private Code u2(int value) {
+            code.write(value >>> 8);
+            code.write(value);
+            return this;
+        }
+
+        private Code push(int delta) {
+            stack += delta;
+            maxStack = Math.max(maxStack, stack);
+            return this;
+        }
+
+        // Adds the finished method to the class
+        void end() {
+            byte[] body = code.toByteArray();
+            int codeName = utf8("Code");
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int parameters = argumentSlots(descriptor) + ((access & 0x0008) == 0 ? 1 : 0);
+            methods.add(bytes(out -> {
+                out.writeShort(access);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+                out.writeShort(1);
+                out.writeShort(codeName);
+                out.writeInt(12 + body.length + exceptionTable.size());
+                out.writeShort(maxStack);
+                out.writeShort(Math.max(maxLocals, parameters));
+                out.writeInt(body.length);
+                out.write(body);
+                out.writeShort(exceptionCount);
+                exceptionTable.writeTo(out);
+                out.writeShort(0); // No code attributes
+            }));
+        }
+    }
+
+    // Slots taken by the parameters of a method descriptor
+    static int argumentSlots(String descriptor) {
+        int slots = 0;
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            char c = descriptor.charAt(i);
+            int start = i;
+            while (c == '[') {
+                c = descriptor.charAt(++i);
+            }
+            if (c == 'L') {
+                i = descriptor.indexOf(';', i);
+            }
+            slots += i == start && (c == 'J' || c == 'D') ? 2 : 1;
+            i++;
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.container;
+
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the container needs to know about a class before deciding to load it, read straight from its class file
+ * by {@link ClassMetadataReader}. Annotation attributes hold Strings, Integers, Longs, Floats, Doubles, Booleans,
+ * Characters, enum constant names, class names, nested attribute maps and Lists of those.
+ */
+class ClassMetadata {
+    private final String className;
+    private final String superClassName;
+    private final List<String> interfaceNames;
+    private final int accessFlags;
+    private final Map<String, Map<String, Object>> annotations; // Annotation class name -> attributes
+
+    ClassMetadata(String className, String superClassName, List<String> interfaceNames, int accessFlags,
+                  Map<String, Map<String, Object>> annotations) {
+        this.className = className;
+        this.superClassName = superClassName;
+        this.interfaceNames = List.copyOf(interfaceNames);
+        this.accessFlags = accessFlags;
+        this.annotations = Map.copyOf(annotations);
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    // null for java.lang.Object and module-info
+    String getSuperClassName() {
+        return superClassName;
+    }
+
+    List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    boolean isConcrete() {
+        return (accessFlags & (Modifier.INTERFACE | Modifier.ABSTRACT)) == 0;
+    }
+
+    boolean hasAnnotation(String annotationName) {
+        return annotations.containsKey(annotationName);
+    }
+
+    // Only attributes explicitly written in the source are present; defaults live in the annotation type
+    Map<String, Object> getAnnotationAttributes(String annotationName) {
+        return annotations.get(annotationName);
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.container;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal class file parser (JVMS chapter 4). It walks the constant pool, the class header and the class-level
+ * RuntimeVisibleAnnotations attribute, and skips fields and methods without decoding them, so candidates can be
+ * identified without loading or initializing anything.
+ */
+class ClassMetadataReader {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final ByteBuffer buffer;
+    private int[] offsets; // Constant pool index -> position of the entry's payload (just after its tag)
+    private String[] strings; // Decoded UTF8 entries, filled lazily
+
+    private ClassMetadataReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    static ClassMetadata read(ByteBuffer buffer) {
+        try {
+            return new ClassMetadataReader(buffer.duplicate()).read();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed class file: " + e.getMessage(), e);
+        }
+    }
+
+    private ClassMetadata read() {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+        buffer.getShort(); // minor_version
+        buffer.getShort(); // major_version
+        readConstantPool();
+
+        int accessFlags = u2();
+        String className = classNameAt(u2());
+        int superIndex = u2();
+        String superClassName = superIndex == 0 ? null : classNameAt(superIndex);
+        int interfaceCount = u2();
+        List<String> interfaceNames = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaceNames.add(classNameAt(u2()));
+        }
+        skipMembers(); // fields
+        skipMembers(); // methods
+
+        Map<String, Map<String, Object>> annotations = new HashMap<>();
+        int attributeCount = u2();
+        for (int i = 0; i < attributeCount; i++) {
+            String name = utf8At(u2());
+            int length = buffer.getInt();
+            if ("RuntimeVisibleAnnotations".equals(name)) {
+                int annotationCount = u2();
+                for (int j = 0; j < annotationCount; j++) {
+                    String type = descriptorToClassName(utf8At(u2()));
+                    annotations.put(type, readAnnotationAttributes());
+                }
+            } else {
+                buffer.position(buffer.position() + length);
+            }
+        }
+        return new ClassMetadata(className, superClassName, interfaceNames, accessFlags, annotations);
+    }
+
+    private void readConstantPool() {
+        int count = u2();
+        offsets = new int[count];
+        strings = new String[count];
+        for (int i = 1; i < count; i++) {
+            int tag = buffer.get() & 0xFF;
+            offsets[i] = buffer.position();
+            switch (tag) {
+                case CONSTANT_UTF8 -> buffer.position(buffer.position() + 2 + u2());
+                case CONSTANT_CLASS, CONSTANT_STRING, CONSTANT_METHOD_TYPE, CONSTANT_MODULE, CONSTANT_PACKAGE ->
+                        skip(2);
+                case CONSTANT_METHOD_HANDLE -> skip(3);
+                case CONSTANT_INTEGER, CONSTANT_FLOAT, CONSTANT_FIELDREF, CONSTANT_METHODREF,
+                        CONSTANT_INTERFACE_METHODREF, CONSTANT_NAME_AND_TYPE, CONSTANT_DYNAMIC,
+                        CONSTANT_INVOKE_DYNAMIC -> skip(4);
+                case CONSTANT_LONG, CONSTANT_DOUBLE -> {
+                    skip(8);
+                    i++; // 8-byte constants take up two slots
+                }
+                default -> throw new IllegalArgumentException("Unknown constant pool tag " + tag + " at index " + i);
+            }
+        }
+    }
+
+    private void skipMembers() {
+        int count = u2();
+        for (int i = 0; i < count; i++) {
+            skip(6); // access_flags, name_index, descriptor_index
+            skipAttributes();
+        }
+    }
+
+    private void skipAttributes() {
+        int count = u2();
+        for (int i = 0; i < count; i++) {
+            skip(2);
+            skip(buffer.getInt());
+        }
+    }
+
+    private Map<String, Object> readAnnotationAttributes() {
+        int pairCount = u2();
+        Map<String, Object> attributes = new HashMap<>(pairCount * 2);
+        for (int i = 0; i < pairCount; i++) {
+            String name = utf8At(u2());
+            attributes.put(name, readElementValue());
+        }
+        return attributes;
+    }
+
+    private Object readElementValue() {
+        char tag = (char) (buffer.get() & 0xFF);
+        switch (tag) {
+            case 's':
+                return utf8At(u2());
+            case 'B':
+            case 'S':
+            case 'I':
+                return buffer.getInt(offsets[u2()]);
+            case 'C':
+                return (char) buffer.getInt(offsets[u2()]);
+            case 'Z':
+                return buffer.getInt(offsets[u2()]) != 0;
+            case 'J':
+                return buffer.getLong(offsets[u2()]);
+            case 'F':
+                return buffer.getFloat(offsets[u2()]);
+            case 'D':
+                return buffer.getDouble(offsets[u2()]);
+            case 'e':
+                u2(); // type_name_index
+                return utf8At(u2());
+            case 'c':
+                return descriptorToClassName(utf8At(u2()));
+            case '@':
+                u2(); // type_index
+                return readAnnotationAttributes();
+            case '[':
+                int length = u2();
+                List<Object> values = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    values.add(readElementValue());
+                }
+                return values;
+            default:
+                throw new IllegalArgumentException("Unknown element value tag '" + tag + "'");
+        }
+    }
+
+    private String classNameAt(int index) {
+        return utf8At(buffer.getShort(offsets[index]) & 0xFFFF).replace('/', '.');
+    }
+
+    private String utf8At(int index) {
+        String value = strings[index];
+        if (value == null) {
+            value = decodeUtf8(offsets[index]);
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    // Class files use "modified UTF-8": no 4-byte forms, and NUL is encoded in two bytes
+    private String decodeUtf8(int position) {
+        int length = buffer.getShort(position) & 0xFFFF;
+        int end = position + 2 + length;
+        char[] chars = new char[length];
+        int count = 0;
+        for (int p = position + 2; p < end; ) {
+            int b = buffer.get(p++) & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (buffer.get(p++) & 0x3F));
+            } else {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((buffer.get(p++) & 0x3F) << 6) | (buffer.get(p++) & 0x3F));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    // "Lcom/example/annotation/Component;" -> "com.example.annotation.Component"
+    private static String descriptorToClassName(String descriptor) {
+        if (descriptor.startsWith("L") && descriptor.endsWith(";")) {
+            descriptor = descriptor.substring(1, descriptor.length() - 1);
+        }
+        return descriptor.replace('/', '.');
+    }
+
+    private int u2() {
+        return buffer.getShort() & 0xFFFF;
+    }
+
+    private void skip(int bytes) {
+        buffer.position(buffer.position() + bytes);
+    }
+}
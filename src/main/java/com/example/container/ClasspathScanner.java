@@ -0,0 +1,138 @@
+package com.example.container;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Fallback used where no {@link ComponentIndex} is present. Walks every directory and jar that contributes to
+ * the base package once, and collects components and aspects in the same pass. Annotations are read from the
+ * class file bytes, so nothing is loaded here; the container loads the candidates whose conditions match.
+ */
+class ClasspathScanner {
+    // Below this size a plain channel read is cheaper than setting up a mapping
+    private static final long MAPPING_THRESHOLD = 64 * 1024;
+
+    private final ClassLoader classLoader;
+    private int candidateCount;
+    private int skippedCount;
+
+    ClasspathScanner(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    List<ClassMetadata> findCandidates(String basePackage) throws IOException {
+        return findCandidates(basePackage, resource -> true);
+    }
+
+    // Only scans the package directories (as returned by ClassLoader.getResources) that include accepts
+    List<ClassMetadata> findCandidates(String basePackage, Predicate<URL> include) throws IOException {
+        String path = basePackage.replace('.', '/');
+        List<ClassMetadata> candidates = new ArrayList<>();
+        Enumeration<URL> resources = classLoader.getResources(path);
+        while (resources.hasMoreElements()) {
+            URL resource = resources.nextElement();
+            if (!include.test(resource)) {
+                continue;
+            }
+            if ("jar".equals(resource.getProtocol())) {
+                scanJar(resource, path, candidates);
+            } else {
+                scanDirectory(resource, candidates);
+            }
+        }
+        return candidates;
+    }
+
+    // Number of candidates the last scan found
+    int getCandidateCount() {
+        return candidateCount;
+    }
+
+    // Number of class files the last scan looked at and rejected
+    int getSkippedCount() {
+        return skippedCount;
+    }
+
+    static boolean isCandidate(ClassMetadata metadata) {
+        return metadata.hasAnnotation(ComponentIndex.COMPONENT)
+                || metadata.hasAnnotation(ComponentIndex.SERVICE)
+                || metadata.hasAnnotation(ComponentIndex.ASPECT);
+    }
+
+    private void accept(ClassMetadata metadata, List<ClassMetadata> candidates) {
+        if (isCandidate(metadata)) {
+            candidates.add(metadata);
+            candidateCount++;
+        } else {
+            skippedCount++;
+        }
+    }
+
+    // Skips package-info and module-info, which are not loadable types
+    private static boolean isClassFile(String name) {
+        return name.endsWith(".class") && !name.contains("-");
+    }
+
+    private void scanDirectory(URL resource, List<ClassMetadata> candidates) throws IOException {
+        Path root;
+        try {
+            root = Paths.get(resource.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid classpath location: " + resource, e);
+        }
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(root)) {
+            classFiles = files.filter(file -> isClassFile(file.getFileName().toString())).toList();
+        }
+        for (Path file : classFiles) {
+            accept(ClassMetadataReader.read(readFile(file)), candidates);
+        }
+    }
+
+    private static ByteBuffer readFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAPPING_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the whole file is in the buffer
+            }
+            return buffer.flip();
+        }
+    }
+
+    private void scanJar(URL resource, String path, List<ClassMetadata> candidates) throws IOException {
+        JarURLConnection connection = (JarURLConnection) resource.openConnection();
+        connection.setUseCaches(false);
+        try (JarFile jarFile = connection.getJarFile()) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (name.startsWith(path + "/") && isClassFile(name)) {
+                    try (InputStream in = jarFile.getInputStream(entry)) {
+                        accept(ClassMetadataReader.read(ByteBuffer.wrap(in.readAllBytes())), candidates);
+                    }
+                }
+            }
+        }
+    }
+}
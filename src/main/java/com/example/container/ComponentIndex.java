@@ -0,0 +1,94 @@
+package com.example.container;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Reads the candidate list written by {@link ComponentIndexProcessor}. Every jar or output directory on the
+ * classpath may contribute its own index file, so all of them are merged. Classes listed without a condition
+ * annotation are loaded without reading their class file. The index only speaks for the jars and directories that
+ * carry an index file: the part of a base package in any other, e.g. a jar built without the processor, is scanned
+ * instead, and so is a base package with no indexed class at all.
+ */
+class ComponentIndex {
+    static final String INDEX_LOCATION = "META-INF/clone-spring.components";
+
+    static final String COMPONENT = "com.example.annotation.Component";
+    static final String SERVICE = "com.example.annotation.Service";
+    static final String ASPECT = "com.example.annotation.aop.Aspect";
+
+    static final String PROFILE = "com.example.annotation.Profile";
+    static final String ON_PROPERTY = "com.example.annotation.ConditionalOnProperty";
+    static final String ON_CLASS = "com.example.annotation.ConditionalOnClass";
+    static final String ON_MISSING_BEAN = "com.example.annotation.ConditionalOnMissingBean";
+    static final Set<String> CONDITIONS = Set.of(PROFILE, ON_PROPERTY, ON_CLASS, ON_MISSING_BEAN);
+
+    private final Properties entries;
+    private final Set<String> roots; // URLs of the jars and directories with an index file, ending in '/'
+
+    private ComponentIndex(Properties entries, Set<String> roots) {
+        this.entries = entries;
+        this.roots = roots;
+    }
+
+    /**
+     * Loads the index visible to the given class loader, or returns {@code null} when no index was generated
+     * (e.g. the classes were compiled without the annotation processor).
+     */
+    static ComponentIndex load(ClassLoader classLoader) throws IOException {
+        Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+        if (!urls.hasMoreElements()) {
+            return null;
+        }
+        Properties entries = new Properties();
+        Set<String> roots = new HashSet<>();
+        while (urls.hasMoreElements()) {
+            URL url = urls.nextElement();
+            String location = url.toString();
+            roots.add(location.substring(0, location.length() - INDEX_LOCATION.length()));
+            try (InputStream in = url.openStream()) {
+                entries.load(in);
+            }
+        }
+        return new ComponentIndex(entries, roots);
+    }
+
+    // Whether packageUrl, a package directory found by ClassLoader.getResources(packagePath), is in a jar or directory with an index file
+    boolean covers(URL packageUrl, String packagePath) {
+        String location = packageUrl.toString();
+        if (location.endsWith("/")) {
+            location = location.substring(0, location.length() - 1);
+        }
+        return location.endsWith("/" + packagePath)
+                && roots.contains(location.substring(0, location.length() - packagePath.length()));
+    }
+
+    // Whether the class carries a condition, so its metadata has to be read before it is loaded
+    boolean isConditional(String className) {
+        for (String annotation : entries.getProperty(className, "").split(",")) {
+            if (CONDITIONS.contains(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Names of all indexed classes that live in basePackage or one of its sub-packages
+    List<String> getCandidates(String basePackage) {
+        String prefix = basePackage + ".";
+        List<String> candidates = new ArrayList<>();
+        for (String className : entries.stringPropertyNames()) {
+            if (className.startsWith(prefix)) {
+                candidates.add(className);
+            }
+        }
+        return candidates;
+    }
+}
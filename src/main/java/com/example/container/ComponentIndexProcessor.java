@@ -0,0 +1,124 @@
+package com.example.container;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Writes {@value ComponentIndex#INDEX_LOCATION} at compile time so that the container can find its
+ * candidates without walking the classpath. Each line maps a class name to the stereotype annotations
+ * it carries, e.g. {@code com.example.src.UserService=com.example.annotation.Component,com.example.annotation.Service},
+ * followed by its condition annotations, if any.
+ * <p>
+ * An incremental build only compiles the changed sources, so the index already in the output directory is merged:
+ * entries for classes compiled in this run are replaced by what was found now, and entries for classes that no
+ * longer exist are dropped.
+ */
+// Every annotation, so the processor also runs for sources that no longer carry a stereotype and drops their entries
+@SupportedAnnotationTypes("*")
+public class ComponentIndexProcessor extends AbstractProcessor {
+    private static final Set<String> STEREOTYPES = Set.of(ComponentIndex.COMPONENT, ComponentIndex.SERVICE, ComponentIndex.ASPECT);
+
+    private final Map<String, Set<String>> entries = new TreeMap<>(); // Class name -> stereotypes
+    private final Set<String> compiledTypes = new HashSet<>(); // Binary names of the top-level types in this run
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element root : roundEnv.getRootElements()) {
+            if (root instanceof TypeElement) {
+                compiledTypes.add(processingEnv.getElementUtils().getBinaryName((TypeElement) root).toString());
+            }
+        }
+        for (TypeElement annotation : annotations) {
+            String stereotype = annotation.getQualifiedName().toString();
+            if (!STEREOTYPES.contains(stereotype)) {
+                continue;
+            }
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    continue;
+                }
+                String className = processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString();
+                Set<String> entry = entries.computeIfAbsent(className, k -> new TreeSet<>());
+                entry.add(stereotype);
+                for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+                    String annotationName = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+                    if (ComponentIndex.CONDITIONS.contains(annotationName)) {
+                        entry.add(annotationName);
+                    }
+                }
+            }
+        }
+        if (roundEnv.processingOver()) {
+            Map<String, String> previous = readPreviousIndex();
+            if (!entries.isEmpty() || !previous.isEmpty()) {
+                writeIndex(previous);
+            }
+        }
+        return false; // Let other processors see these annotations too
+    }
+
+    // The index left in the output directory by an earlier build, or nothing after a clean build
+    private Map<String, String> readPreviousIndex() {
+        Properties previous = new Properties();
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", ComponentIndex.INDEX_LOCATION);
+            try (InputStream in = file.openInputStream()) {
+                previous.load(in);
+            }
+        } catch (IOException e) {
+            return Map.of();
+        }
+        Map<String, String> kept = new TreeMap<>();
+        for (String className : previous.stringPropertyNames()) {
+            if (!isCompiledNow(className) && processingEnv.getElementUtils().getTypeElement(className.replace('$', '.')) != null) {
+                kept.put(className, previous.getProperty(className));
+            }
+        }
+        return kept;
+    }
+
+    private boolean isCompiledNow(String className) {
+        int nested = className.indexOf('$');
+        return compiledTypes.contains(nested < 0 ? className : className.substring(0, nested));
+    }
+
+    private void writeIndex(Map<String, String> previous) {
+        Map<String, String> merged = new TreeMap<>(previous);
+        for (Map.Entry<String, Set<String>> entry : entries.entrySet()) {
+            merged.put(entry.getKey(), String.join(",", entry.getValue()));
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", ComponentIndex.INDEX_LOCATION);
+            try (Writer writer = file.openWriter()) {
+                for (Map.Entry<String, String> entry : merged.entrySet()) {
+                    writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write component index: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.container;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides whether a candidate is registered from its {@link ClassMetadata}, so a component left out by
+ * {@code @Profile}, {@code @ConditionalOnProperty} or {@code @ConditionalOnClass} is never loaded, let alone
+ * created. {@code @ConditionalOnMissingBean} depends on the other beans, so those candidates are held back until
+ * every other candidate is known.
+ */
+class ConditionEvaluator {
+    // Comma-separated profiles to activate when none are passed to the container
+    static final String ACTIVE_PROFILES_PROPERTY = "profiles.active";
+    static final String DEFAULT_PROFILE = "default";
+
+    private final Set<String> activeProfiles;
+    private final PropertySource propertySource;
+    private final ClassLoader classLoader;
+
+    ConditionEvaluator(Collection<String> activeProfiles, PropertySource propertySource, ClassLoader classLoader) {
+        Set<String> profiles = new LinkedHashSet<>(activeProfiles);
+        if (profiles.isEmpty()) {
+            String property = propertySource.getProperty(ACTIVE_PROFILES_PROPERTY);
+            if (property != null) {
+                for (String profile : property.split(",")) {
+                    if (!profile.isBlank()) {
+                        profiles.add(profile.trim());
+                    }
+                }
+            }
+        }
+        if (profiles.isEmpty()) {
+            profiles.add(DEFAULT_PROFILE);
+        }
+        this.activeProfiles = Set.copyOf(profiles);
+        this.propertySource = propertySource;
+        this.classLoader = classLoader;
+    }
+
+    Set<String> getActiveProfiles() {
+        return activeProfiles;
+    }
+
+    PropertySource getPropertySource() {
+        return propertySource;
+    }
+
+    // Every condition except @ConditionalOnMissingBean
+    boolean matches(ClassMetadata metadata) {
+        Map<String, Object> profile = metadata.getAnnotationAttributes(ComponentIndex.PROFILE);
+        if (profile != null && !matchesProfile(strings(profile.get("value")))) {
+            return false;
+        }
+        Map<String, Object> onProperty = metadata.getAnnotationAttributes(ComponentIndex.ON_PROPERTY);
+        if (onProperty != null && !matchesProperty(onProperty)) {
+            return false;
+        }
+        Map<String, Object> onClass = metadata.getAnnotationAttributes(ComponentIndex.ON_CLASS);
+        return onClass == null || (isPresent(strings(onClass.get("value"))) && isPresent(strings(onClass.get("name"))));
+    }
+
+    static boolean isConditionalOnMissingBean(ClassMetadata metadata) {
+        return metadata.hasAnnotation(ComponentIndex.ON_MISSING_BEAN);
+    }
+
+    // providedTypes holds every class and interface name the beans registered so far can be injected as
+    static boolean isMissing(ClassMetadata metadata, Set<String> providedTypes) {
+        List<String> types = strings(metadata.getAnnotationAttributes(ComponentIndex.ON_MISSING_BEAN).get("value"));
+        if (types.isEmpty()) {
+            return !providedTypes.contains(metadata.getClassName());
+        }
+        for (String type : types) {
+            if (providedTypes.contains(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static void collectTypeNames(Class<?> beanClass, Set<String> typeNames) {
+        for (Class<?> type = beanClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            collectInterfaceNames(type, typeNames);
+        }
+    }
+
+    private static void collectInterfaceNames(Class<?> type, Set<String> typeNames) {
+        if (typeNames.add(type.getName())) {
+            for (Class<?> anInterface : type.getInterfaces()) {
+                collectInterfaceNames(anInterface, typeNames);
+            }
+        }
+    }
+
+    private boolean matchesProfile(List<String> profiles) {
+        for (String profile : profiles) {
+            boolean negated = profile.startsWith("!");
+            if (activeProfiles.contains(negated ? profile.substring(1) : profile) != negated) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Attributes left at their default are not in the class file
+    private boolean matchesProperty(Map<String, Object> attributes) {
+        String value = propertySource.getProperty((String) attributes.get("name"));
+        if (value == null) {
+            return Boolean.TRUE.equals(attributes.get("matchIfMissing"));
+        }
+        String havingValue = (String) attributes.getOrDefault("havingValue", "");
+        return havingValue.isEmpty() ? !"false".equalsIgnoreCase(value) : havingValue.equalsIgnoreCase(value);
+    }
+
+    // Looks for the class file, so nothing is loaded
+    private boolean isPresent(List<String> classNames) {
+        for (String className : classNames) {
+            if (classLoader.getResource(className.replace('.', '/') + ".class") == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> strings(Object arrayAttribute) {
+        return arrayAttribute != null ? (List<String>) arrayAttribute : List.of();
+    }
+}
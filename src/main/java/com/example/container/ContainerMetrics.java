@@ -0,0 +1,40 @@
+package com.example.container;
+
+import java.lang.reflect.Method;
+
+/**
+ * Receives timings from a {@link BeanFactory}. Pass an implementation to the factory's constructor; with the
+ * default {@link #NONE} the container does not even read the clock. Callbacks arrive from every thread that
+ * creates or looks up beans (including the parallel startup pool), so implementations must be thread-safe and
+ * cheap. All times are {@link System#nanoTime()} values.
+ *
+ * @see InMemoryContainerMetrics
+ * @see JfrContainerMetrics
+ */
+public interface ContainerMetrics {
+    ContainerMetrics NONE = new ContainerMetrics() {
+    };
+
+    enum Phase {
+        SCAN, INSTANTIATE, INJECT, POST_CONSTRUCT
+    }
+
+    /**
+     * One phase of a bean's life: registering its definition during the scan, or creating, injecting and
+     * initializing an instance. Prototypes report the creation phases once per instance.
+     */
+    default void beanPhase(Class<?> beanClass, Phase phase, long startNanos, long durationNanos) {
+    }
+
+    // One getBean call, including the creation of the bean (and its dependencies) if that was needed
+    default void beanRetrieved(Class<?> beanClass, String scope, long durationNanos) {
+    }
+
+    // One call of an advised method; adviceNanos excludes the time spent in the target method itself
+    default void adviceInvoked(Method method, long adviceNanos) {
+    }
+
+    // From the start of the scan until all eager singletons exist
+    default void startupCompleted(long startNanos, long durationNanos) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.container;
+
+// Published when shutdown starts, while every bean is still usable
+public final class ContextClosingEvent extends ContextEvent {
+    ContextClosingEvent(BeanFactory context) {
+        super(context);
+    }
+}
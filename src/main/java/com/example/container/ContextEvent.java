@@ -0,0 +1,20 @@
+package com.example.container;
+
+// Published by a context about itself; listen to this type to receive every lifecycle event
+public abstract class ContextEvent {
+    private final BeanFactory context;
+
+    ContextEvent(BeanFactory context) {
+        this.context = context;
+    }
+
+    // The context the event is about, which may be a child of the one the listener lives in
+    public BeanFactory getContext() {
+        return context;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + context + "]";
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.container;
+
+import com.example.annotation.Async;
+import com.example.annotation.CacheEvict;
+import com.example.annotation.Cacheable;
+import com.example.annotation.aop.Aspect;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What a context knows about its beans apart from the instances: the definitions and their {@link TypeIndex}, the
+ * dependency graph and creation order, the advice, {@code @Async} executor and caching that apply to each method,
+ * and which {@code @EventListener} methods each type of event goes to. It is worked out once from a scan or a
+ * generated registry and never changes afterwards, so a parent can hand the same metadata to every child context of
+ * a package. Instances live in the contexts, in arrays indexed by {@link BeanDefinition#getIndex()}.
+ * <p>
+ * The only mutable parts are caches of things that do not depend on instances either, so children share those
+ * as well: generated proxy classes, and the listeners of each event class, worked out on its first publication.
+ */
+final class ContextMetadata {
+    static final ContextMetadata EMPTY = new ContextMetadata(List.of(), List.of());
+    private static final EventListenerDefinition[] NO_LISTENERS = new EventListenerDefinition[0];
+
+    private final TypeIndex typeIndex;
+    private final DependencyGraph dependencyGraph;
+    private final List<BeanDefinition> creationOrder;
+    private final Map<Class<?>, Map<Method, List<AdviceDefinition>>> advice = new HashMap<>(); // Advised bean classes only
+    private final Map<Method, String> asyncExecutors = new HashMap<>();
+    private final Map<Method, Cacheable> cacheable = new HashMap<>();
+    private final Map<Method, CacheEvict> cacheEvict = new HashMap<>();
+    private final Map<AopProxyFactory.ProxyClassKey, SubclassProxyGenerator.ProxyClass> proxyClasses = new ConcurrentHashMap<>();
+    private final Map<BeanDefinition, List<EventListenerDefinition>> listenersByBean = new HashMap<>(); // In declaration order
+    private final List<EventListenerDefinition> eventListeners = new ArrayList<>();
+    private final Map<Class<?>, EventListenerDefinition[]> eventDispatch = new ConcurrentHashMap<>(); // Event class -> listeners
+
+    /**
+     * From a scan, which finds the advice, {@code @Async} and caching methods and event listeners by reflection.
+     *
+     * @param adviceDefinitions in precedence order
+     * @throws CircularDependencyException if the definitions depend on each other in a cycle
+     * @throws IllegalStateException if an {@code @Async} method returns something other than void or a future,
+     *                               a {@code @Cacheable} method returns void, or an {@code @EventListener}
+     *                               method cannot take its events
+     */
+    ContextMetadata(Collection<BeanDefinition> beanDefinitions, List<AdviceDefinition> adviceDefinitions) {
+        this(beanDefinitions, adviceDefinitions, null);
+    }
+
+    /**
+     * From a generated registry. Its proxies have their advice, executors and caches compiled in, and it registered
+     * the event listeners of each bean, so nothing is looked up by reflection.
+     *
+     * @throws CircularDependencyException if the definitions depend on each other in a cycle
+     */
+    ContextMetadata(Collection<BeanDefinition> beanDefinitions, Map<BeanDefinition, List<EventListenerDefinition>> registeredListeners) {
+        this(beanDefinitions, List.of(), registeredListeners);
+    }
+
+    private ContextMetadata(Collection<BeanDefinition> beanDefinitions, List<AdviceDefinition> adviceDefinitions,
+                            Map<BeanDefinition, List<EventListenerDefinition>> registeredListeners) {
+        boolean scanned = registeredListeners == null;
+        Set<Class<?>> interfaceProxied = new HashSet<>();
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            Class<?> beanClass = beanDefinition.getBeanClass();
+            if (!scanned) {
+                // Aspects of a generated registry are not scanned, so it says which of its beans get such proxies
+                if (beanDefinition.isInterfaceProxy()) {
+                    interfaceProxied.add(beanClass);
+                }
+                continue;
+            }
+            Map<Method, List<AdviceDefinition>> matches = adviceDefinitions.isEmpty() ? new LinkedHashMap<>() : matchAdvice(beanClass, adviceDefinitions);
+            // Async and caching methods without advice still need the proxy, with an empty advice list
+            for (Method method : findAsyncMethods(beanClass)) {
+                matches.putIfAbsent(method, List.of());
+            }
+            for (Method method : findCachingMethods(beanClass)) {
+                matches.putIfAbsent(method, List.of());
+            }
+            if (!matches.isEmpty()) {
+                advice.put(beanClass, matches);
+                if (AopProxyFactory.proxiesInterfacesOnly(beanClass)) {
+                    interfaceProxied.add(beanClass);
+                }
+            }
+        }
+        typeIndex = new TypeIndex(beanDefinitions, interfaceProxied);
+        dependencyGraph = new DependencyGraph(typeIndex, advice);
+        creationOrder = List.copyOf(dependencyGraph.sort());
+        for (BeanDefinition beanDefinition : creationOrder) {
+            List<EventListenerDefinition> listeners = scanned ? EventListenerDefinition.of(beanDefinition)
+                    : registeredListeners.getOrDefault(beanDefinition, List.of());
+            if (!listeners.isEmpty()) {
+                listenersByBean.put(beanDefinition, listeners);
+                eventListeners.addAll(listeners);
+            }
+        }
+        eventListeners.sort(EventListenerDefinition.ORDER); // Stable, so creation order breaks ties
+        for (EventListenerDefinition listener : eventListeners) {
+            for (Class<?> eventType : listener.getEventTypes()) {
+                getEventListeners(eventType);
+            }
+        }
+    }
+
+    // The advice for each advised method of beanClass, in precedence order; aspects themselves are never advised
+    private static Map<Method, List<AdviceDefinition>> matchAdvice(Class<?> beanClass, List<AdviceDefinition> adviceDefinitions) {
+        Map<Method, List<AdviceDefinition>> matches = new LinkedHashMap<>();
+        if (beanClass.isAnnotationPresent(Aspect.class)) {
+            return matches;
+        }
+        for (Method method : AopProxyFactory.getProxiableMethods(beanClass)) {
+            List<AdviceDefinition> methodAdvice = new ArrayList<>();
+            for (AdviceDefinition candidate : adviceDefinitions) {
+                if (candidate.getPointcut().matches(beanClass, method)) {
+                    methodAdvice.add(candidate);
+                }
+            }
+            if (!methodAdvice.isEmpty()) {
+                matches.put(method, List.copyOf(methodAdvice));
+            }
+        }
+        return matches;
+    }
+
+    private List<Method> findAsyncMethods(Class<?> beanClass) {
+        Async onClass = beanClass.getAnnotation(Async.class);
+        if (onClass == null && beanClass.isAnnotationPresent(Aspect.class)) {
+            return List.of();
+        }
+        List<Method> found = new ArrayList<>();
+        for (Method method : AopProxyFactory.getProxiableMethods(beanClass)) {
+            Async async = method.getAnnotation(Async.class);
+            if (async == null && onClass != null && Modifier.isPublic(method.getModifiers())) {
+                async = onClass;
+            }
+            if (async == null) {
+                continue;
+            }
+            Class<?> returnType = method.getReturnType();
+            // The caller gets the interceptor's CompletableFuture in place of the method's own result
+            if (returnType != void.class && (returnType == Object.class || !returnType.isAssignableFrom(CompletableFuture.class))) {
+                throw new IllegalStateException("@Async method " + method + " must return void, CompletableFuture, CompletionStage or Future");
+            }
+            asyncExecutors.put(method, async.value());
+            found.add(method);
+        }
+        return found;
+    }
+
+    private List<Method> findCachingMethods(Class<?> beanClass) {
+        List<Method> found = new ArrayList<>();
+        if (beanClass.isAnnotationPresent(Aspect.class)) {
+            return found;
+        }
+        for (Method method : AopProxyFactory.getProxiableMethods(beanClass)) {
+            Cacheable cached = method.getAnnotation(Cacheable.class);
+            CacheEvict evicting = method.getAnnotation(CacheEvict.class);
+            if (cached != null) {
+                if (method.getReturnType() == void.class) {
+                    throw new IllegalStateException("@Cacheable method " + method + " has no result to cache");
+                }
+                cacheable.put(method, cached);
+            }
+            if (evicting != null) {
+                cacheEvict.put(method, evicting);
+            }
+            if (cached != null || evicting != null) {
+                found.add(method);
+            }
+        }
+        return found;
+    }
+
+    TypeIndex getTypeIndex() {
+        return typeIndex;
+    }
+
+    DependencyGraph getDependencyGraph() {
+        return dependencyGraph;
+    }
+
+    // All definitions, each after the beans it depends on
+    List<BeanDefinition> getCreationOrder() {
+        return creationOrder;
+    }
+
+    Map<Method, List<AdviceDefinition>> getAdvice(Class<?> beanClass) {
+        return advice.getOrDefault(beanClass, Map.of());
+    }
+
+    // The executor name of an @Async method, or null
+    String getAsyncExecutor(Method method) {
+        return asyncExecutors.get(method);
+    }
+
+    // The @Cacheable annotation of a method, or null
+    Cacheable getCacheable(Method method) {
+        return cacheable.get(method);
+    }
+
+    CacheEvict getCacheEvict(Method method) {
+        return cacheEvict.get(method);
+    }
+
+    // The @EventListener methods of a bean, in declaration order
+    List<EventListenerDefinition> getEventListeners(BeanDefinition beanDefinition) {
+        return listenersByBean.getOrDefault(beanDefinition, List.of());
+    }
+
+    // The listeners an event of this exact class goes to, in order; filled in per class, so publishing never scans
+    EventListenerDefinition[] getEventListeners(Class<?> eventClass) {
+        if (eventListeners.isEmpty()) {
+            return NO_LISTENERS;
+        }
+        EventListenerDefinition[] listeners = eventDispatch.get(eventClass);
+        if (listeners == null) {
+            List<EventListenerDefinition> matching = new ArrayList<>();
+            for (EventListenerDefinition listener : eventListeners) {
+                if (listener.accepts(eventClass)) {
+                    matching.add(listener);
+                }
+            }
+            listeners = matching.toArray(new EventListenerDefinition[0]);
+            EventListenerDefinition[] existing = eventDispatch.putIfAbsent(eventClass, listeners);
+            if (existing != null) {
+                listeners = existing;
+            }
+        }
+        return listeners;
+    }
+
+    Map<AopProxyFactory.ProxyClassKey, SubclassProxyGenerator.ProxyClass> getProxyClasses() {
+        return proxyClasses;
+    }
+}
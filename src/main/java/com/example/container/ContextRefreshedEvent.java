@@ -0,0 +1,8 @@
+package com.example.container;
+
+// Published once every eager singleton of the context has been created
+public final class ContextRefreshedEvent extends ContextEvent {
+    ContextRefreshedEvent(BeanFactory context) {
+        super(context);
+    }
+}
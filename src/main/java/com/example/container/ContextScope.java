@@ -0,0 +1,58 @@
+package com.example.container;
+
+/**
+ * A scope whose lifetime the caller manages, e.g. one context per request:
+ * <pre>
+ * ContextScope requests = new ContextScope();
+ * factory.registerScope("request", requests);
+ * try (ContextScope.Context request = requests.begin()) {
+ *     factory.getBean(RequestState.class); // The same instance until the context is closed
+ * }
+ * </pre>
+ * {@link #begin()} binds a new context to the calling thread, nested inside any context already bound; closing it
+ * destroys its beans and restores the outer one. Looking up a bean outside of a context fails.
+ */
+public class ContextScope implements BeanScope {
+    private final ThreadLocal<Context> current = new ThreadLocal<>();
+
+    public Context begin() {
+        Context context = new Context(current.get());
+        current.set(context);
+        return context;
+    }
+
+    // The context bound to the calling thread, or null
+    public Context current() {
+        return current.get();
+    }
+
+    @Override
+    public Object get(Class<?> beanClass, ObjectFactory objectFactory) throws Exception {
+        Context context = current.get();
+        if (context == null) {
+            throw new IllegalStateException("No active context for " + beanClass.getName() + ", call begin() first");
+        }
+        return context.instances.get(beanClass, objectFactory);
+    }
+
+    public final class Context implements AutoCloseable {
+        private final Context outer;
+        private final ScopedInstances instances = new ScopedInstances();
+
+        private Context(Context outer) {
+            this.outer = outer;
+        }
+
+        @Override
+        public void close() {
+            if (current.get() == this) {
+                if (outer != null) {
+                    current.set(outer);
+                } else {
+                    current.remove();
+                }
+            }
+            instances.destroyAll();
+        }
+    }
+}
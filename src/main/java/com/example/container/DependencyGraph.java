@@ -0,0 +1,117 @@
+package com.example.container;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dependency DAG between bean definitions, built from constructor parameters and {@code @Autowired} fields and
+ * resolved through the {@link TypeIndex}, so an interface dependency points at its implementation and a list or
+ * map at every candidate. Types without a (unique) definition are left out; creating the bean reports them.
+ * {@code @Lazy} injection points are left out as well. An advised bean also depends on the aspects whose advice
+ * is bound to an aspect instance, since its proxy looks them up when the bean is created.
+ * <p>
+ * Definitions are kept in the order of the type index ({@code @Order}, then name), so the creation order is the
+ * same on every start.
+ */
+class DependencyGraph {
+    private final Map<BeanDefinition, List<BeanDefinition>> dependencies = new LinkedHashMap<>();
+
+    /**
+     * @param advice the advice for each method of each advised bean class
+     */
+    DependencyGraph(TypeIndex typeIndex, Map<Class<?>, Map<Method, List<AdviceDefinition>>> advice) {
+        for (BeanDefinition beanDefinition : typeIndex.getBeanDefinitions()) {
+            Set<BeanDefinition> edges = new LinkedHashSet<>();
+            for (BeanCreationPlan.Dependency injectionPoint : beanDefinition.getDependencies()) {
+                if (injectionPoint.isLazy()) {
+                    continue; // Resolved on first use, so it neither orders creation nor closes a cycle
+                }
+                edges.addAll(typeIndex.resolve(injectionPoint));
+            }
+            for (List<AdviceDefinition> methodAdvice : advice.getOrDefault(beanDefinition.getBeanClass(), Map.of()).values()) {
+                for (AdviceDefinition adviceDefinition : methodAdvice) {
+                    BeanDefinition aspect = adviceDefinition.isStatic() ? null : typeIndex.find(adviceDefinition.getAspectClass(), null);
+                    if (aspect != null && aspect != beanDefinition) {
+                        edges.add(aspect);
+                    }
+                }
+            }
+            dependencies.put(beanDefinition, List.copyOf(edges));
+        }
+    }
+
+    // The beans this one needs first, as resolved when the graph was built
+    List<BeanDefinition> getDependencies(BeanDefinition beanDefinition) {
+        return dependencies.getOrDefault(beanDefinition, List.of());
+    }
+
+    /**
+     * Orders all definitions so that every bean comes after the beans it depends on.
+     *
+     * @throws CircularDependencyException with the offending path if the graph has a cycle
+     */
+    List<BeanDefinition> sort() {
+        List<BeanDefinition> sorted = new ArrayList<>(dependencies.size());
+        Set<BeanDefinition> visited = new HashSet<>();
+        Deque<BeanDefinition> path = new ArrayDeque<>();
+        for (BeanDefinition beanDefinition : dependencies.keySet()) {
+            visit(beanDefinition, visited, path, sorted);
+        }
+        return sorted;
+    }
+
+    private void visit(BeanDefinition beanDefinition, Set<BeanDefinition> visited, Deque<BeanDefinition> path, List<BeanDefinition> sorted) {
+        if (path.contains(beanDefinition)) {
+            List<Class<?>> cycle = new ArrayList<>();
+            boolean onCycle = false;
+            for (BeanDefinition step : (Iterable<BeanDefinition>) path::descendingIterator) {
+                onCycle |= step == beanDefinition;
+                if (onCycle) {
+                    cycle.add(step.getBeanClass());
+                }
+            }
+            cycle.add(beanDefinition.getBeanClass());
+            throw new CircularDependencyException(cycle);
+        }
+        if (!visited.add(beanDefinition)) {
+            return;
+        }
+        path.push(beanDefinition);
+        for (BeanDefinition dependency : dependencies.get(beanDefinition)) {
+            visit(dependency, visited, path, sorted);
+        }
+        path.pop();
+        sorted.add(beanDefinition);
+    }
+
+    /**
+     * The singletons a bean needs before it can be created. Prototypes are looked through, since each of their
+     * instances is built on the spot from the singletons they depend on.
+     */
+    Set<BeanDefinition> getSingletonDependencies(BeanDefinition beanDefinition) {
+        Set<BeanDefinition> singletons = new LinkedHashSet<>();
+        collectSingletonDependencies(beanDefinition, singletons, new HashSet<>());
+        return singletons;
+    }
+
+    private void collectSingletonDependencies(BeanDefinition beanDefinition, Set<BeanDefinition> singletons, Set<BeanDefinition> seen) {
+        for (BeanDefinition dependency : dependencies.get(beanDefinition)) {
+            if (!seen.add(dependency)) {
+                continue;
+            }
+            if (dependency.isSingleton()) {
+                singletons.add(dependency);
+            } else {
+                collectSingletonDependencies(dependency, singletons, seen);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.container;
+
+import com.example.annotation.EventListener;
+import com.example.annotation.Order;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// One @EventListener method of a bean, with code that calls it on any instance of the bean class
+class EventListenerDefinition {
+    private static final MethodType LISTENER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    static final Comparator<EventListenerDefinition> ORDER = Comparator.comparingInt(EventListenerDefinition::getOrder);
+
+    private final BeanDefinition beanDefinition;
+    private final Method method; // null for listeners registered by generated code
+    private final Class<?> declaringClass;
+    private final String methodName;
+    private final List<Class<?>> eventTypes;
+    private final boolean batch; // Takes a List of events
+    private final boolean async;
+    private final String executor;
+    private final int maxBatchSize;
+    private final boolean coalescing;
+    private final int order;
+    private final AotBeanRegistry.ListenerInvoker invoker;
+
+    private EventListenerDefinition(BeanDefinition beanDefinition, Method method, Class<?> declaringClass, String methodName, List<Class<?>> eventTypes,
+                                    boolean batch, boolean async, String executor, int maxBatchSize, boolean coalescing, int order,
+                                    AotBeanRegistry.ListenerInvoker invoker) {
+        this.beanDefinition = beanDefinition;
+        this.method = method;
+        this.declaringClass = declaringClass;
+        this.methodName = methodName;
+        this.eventTypes = List.copyOf(eventTypes);
+        this.batch = batch;
+        this.async = async;
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+        this.coalescing = coalescing;
+        this.order = order;
+        this.invoker = invoker;
+    }
+
+    // A listener registered by generated code, which checked the method when it was generated and calls it directly
+    static EventListenerDefinition generated(BeanDefinition beanDefinition, Class<?> declaringClass, String methodName, List<Class<?>> eventTypes,
+                                             boolean batch, boolean async, String executor, int maxBatchSize, boolean coalescing, int order,
+                                             AotBeanRegistry.ListenerInvoker invoker) {
+        return new EventListenerDefinition(beanDefinition, null, declaringClass, methodName, eventTypes, batch, async, executor,
+                maxBatchSize, coalescing, order, invoker);
+    }
+
+    private static EventListenerDefinition scanned(BeanDefinition beanDefinition, Method method, List<Class<?>> eventTypes, boolean batch, EventListener annotation) {
+        Order order = method.isAnnotationPresent(Order.class) ? method.getAnnotation(Order.class) : beanDefinition.getBeanClass().getAnnotation(Order.class);
+        MethodHandle handle;
+        try {
+            method.setAccessible(true);
+            handle = MethodHandles.lookup().unreflect(method).asType(LISTENER_TYPE); // Drops any result
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access @EventListener method " + method, e);
+        }
+        return new EventListenerDefinition(beanDefinition, method, method.getDeclaringClass(), method.getName(), eventTypes, batch,
+                annotation.async(), annotation.executor(), annotation.maxBatchSize(), annotation.coalesce(),
+                order != null ? order.value() : Integer.MAX_VALUE, (bean, event) -> {
+                    handle.invokeExact(bean, event);
+                });
+    }
+
+    /**
+     * The listener methods of a bean class, in declaration order of the class hierarchy.
+     *
+     * @throws IllegalStateException if a listener method's parameter does not fit its event types
+     */
+    static List<EventListenerDefinition> of(BeanDefinition beanDefinition) {
+        List<EventListenerDefinition> listeners = new ArrayList<>();
+        for (Class<?> type = beanDefinition.getBeanClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Method method : type.getDeclaredMethods()) {
+                EventListener annotation = method.getAnnotation(EventListener.class);
+                if (annotation != null && !method.isBridge() && !isOverridden(beanDefinition.getBeanClass(), method)) {
+                    listeners.add(of(beanDefinition, method, annotation));
+                }
+            }
+        }
+        return listeners;
+    }
+
+    private static EventListenerDefinition of(BeanDefinition beanDefinition, Method method, EventListener annotation) {
+        if (method.getParameterCount() != 1 || Modifier.isStatic(method.getModifiers())) {
+            throw new IllegalStateException("@EventListener method " + method + " must be an instance method with one parameter");
+        }
+        Class<?> parameterType = method.getParameterTypes()[0];
+        boolean batch = parameterType == List.class;
+        List<Class<?>> eventTypes = List.of(annotation.value());
+        if (batch && (!annotation.async() || eventTypes.isEmpty())) {
+            throw new IllegalStateException("@EventListener method " + method + " takes a List, so it must be async and name its event types");
+        }
+        if (eventTypes.isEmpty()) {
+            eventTypes = List.of(parameterType);
+        }
+        for (Class<?> eventType : eventTypes) {
+            if (!batch && !parameterType.isAssignableFrom(eventType)) {
+                throw new IllegalStateException("@EventListener method " + method + " cannot receive " + eventType.getName());
+            }
+        }
+        if (annotation.maxBatchSize() < 1) {
+            throw new IllegalStateException("@EventListener method " + method + " needs maxBatchSize >= 1");
+        }
+        return scanned(beanDefinition, method, eventTypes, batch, annotation);
+    }
+
+    // A listener method redeclared by a subclass is only registered once, for the subclass's declaration
+    private static boolean isOverridden(Class<?> beanClass, Method method) {
+        if (method.getDeclaringClass() == beanClass || Modifier.isPrivate(method.getModifiers())) {
+            return false;
+        }
+        for (Class<?> type = beanClass; type != method.getDeclaringClass(); type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod(method.getName(), method.getParameterTypes());
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Not redeclared at this level
+            }
+        }
+        return false;
+    }
+
+    boolean accepts(Class<?> eventClass) {
+        for (Class<?> eventType : eventTypes) {
+            if (eventType.isAssignableFrom(eventClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Calls the method on bean, or on the target behind it when the bean is a proxy that does not extend its class
+    void invoke(Object bean, Object event) throws Throwable {
+        invoker.invoke(declaringClass.isInstance(bean) ? bean : BeanFactory.unwrapProxy(bean), event);
+    }
+
+    BeanDefinition getBeanDefinition() {
+        return beanDefinition;
+    }
+
+    // The scanned method, which AotGenerator writes a call to; null for generated listeners
+    Method getMethod() {
+        return method;
+    }
+
+    List<Class<?>> getEventTypes() {
+        return eventTypes;
+    }
+
+    boolean isBatch() {
+        return batch;
+    }
+
+    boolean isAsync() {
+        return async;
+    }
+
+    String getExecutor() {
+        return executor;
+    }
+
+    int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    boolean isCoalescing() {
+        return coalescing;
+    }
+
+    int getOrder() {
+        return order;
+    }
+
+    @Override
+    public String toString() {
+        return declaringClass.getName() + "." + methodName;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.container;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Delivers a context's events. Which listeners get an event comes from the dispatch table of the context's
+ * metadata; this class holds what is per context: the listener beans, looked up on each delivery, and the queues
+ * of asynchronous listeners. Each asynchronous listener has at most one drain task on its executor at a time,
+ * which delivers everything queued so far, so events reach it in publishing order and bursts become batches.
+ */
+final class EventMulticaster {
+    private static final Logger log = Logger.getLogger(EventMulticaster.class);
+
+    interface BeanResolver {
+        Object resolve(BeanDefinition beanDefinition) throws Exception;
+    }
+
+    private final BeanResolver beans;
+    private final Function<String, Executor> executors;
+    private final Map<EventListenerDefinition, AsyncListener> asyncListeners = new ConcurrentHashMap<>();
+    private volatile boolean closed; // Executors are shutting down, so rejections are final
+
+    EventMulticaster(BeanResolver beans, Function<String, Executor> executors) {
+        this.beans = beans;
+        this.executors = executors;
+    }
+
+    void multicast(ContextMetadata metadata, Object event) {
+        for (EventListenerDefinition listener : metadata.getEventListeners(event.getClass())) {
+            if (listener.isAsync()) {
+                getAsyncListener(listener).enqueue(event);
+                continue;
+            }
+            try {
+                listener.invoke(beans.resolve(listener.getBeanDefinition()), event);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e, "@EventListener " + listener + " failed");
+            }
+        }
+    }
+
+    private AsyncListener getAsyncListener(EventListenerDefinition listener) {
+        AsyncListener asyncListener = asyncListeners.get(listener);
+        if (asyncListener == null) {
+            asyncListener = new AsyncListener(listener);
+            AsyncListener existing = asyncListeners.putIfAbsent(listener, asyncListener);
+            if (existing != null) {
+                asyncListener = existing;
+            }
+        }
+        return asyncListener;
+    }
+
+    /**
+     * Waits until the async listeners have taken every queued event, or the deadline passes, and from then on
+     * drops events that an executor rejects. Returns whether everything was delivered.
+     */
+    boolean close(long deadlineNanos) throws InterruptedException {
+        try {
+            return awaitIdle(deadlineNanos);
+        } finally {
+            closed = true;
+        }
+    }
+
+    private boolean awaitIdle(long deadlineNanos) throws InterruptedException {
+        for (AsyncListener listener : asyncListeners.values()) {
+            if (!listener.awaitIdle(deadlineNanos)) {
+                log.warn("Gave up waiting for the events queued for {}", listener.listener);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final class AsyncListener implements Runnable {
+        private final EventListenerDefinition listener;
+        private final Queue<Object> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        AsyncListener(EventListenerDefinition listener) {
+            this.listener = listener;
+        }
+
+        void enqueue(Object event) {
+            pending.add(event);
+            schedule();
+        }
+
+        private void schedule() {
+            while (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    executors.apply(listener.getExecutor()).execute(this);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    if (closed) {
+                        scheduled.set(false);
+                        log.warn("Cannot deliver events to {}: {}", listener, e.getMessage());
+                        return;
+                    }
+                    drain(); // A full executor pushes back on the publisher, which delivers a batch itself
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            drain();
+            schedule(); // Events that arrived meanwhile, or did not fit the batch
+        }
+
+        private void drain() {
+            try {
+                Collection<Object> batch = listener.isCoalescing() ? new LinkedHashSet<>() : new ArrayList<>();
+                for (Object event; batch.size() < listener.getMaxBatchSize() && (event = pending.poll()) != null; ) {
+                    batch.add(event);
+                }
+                if (!batch.isEmpty()) {
+                    deliver(batch);
+                }
+            } finally {
+                scheduled.set(false);
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+
+        private void deliver(Collection<Object> batch) {
+            Object bean;
+            try {
+                bean = beans.resolve(listener.getBeanDefinition());
+            } catch (Exception e) {
+                log.error("Dropped {} events for {}", batch.size(), listener, e);
+                return;
+            }
+            if (listener.isBatch()) {
+                invoke(bean, List.copyOf(batch), batch.size());
+                return;
+            }
+            for (Object event : batch) {
+                invoke(bean, event, 1);
+            }
+        }
+
+        private void invoke(Object bean, Object argument, int events) {
+            try {
+                listener.invoke(bean, argument);
+            } catch (Throwable e) {
+                log.error("@EventListener {} failed on {} events", listener, events, e);
+            }
+        }
+
+        synchronized boolean awaitIdle(long deadlineNanos) throws InterruptedException {
+            while (scheduled.get() || !pending.isEmpty()) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        }
+    }
+}
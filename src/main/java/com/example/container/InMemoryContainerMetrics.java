@@ -0,0 +1,178 @@
+package com.example.container;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps all metrics in memory with adders and lock-free histograms, so it can stay enabled in production. Besides
+ * the getters, {@link #formatStartupTimeline()} renders when and where each bean was created during startup.
+ */
+public class InMemoryContainerMetrics implements ContainerMetrics {
+    private final Map<Class<?>, BeanTimings> beans = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> getBeanLatencies = new ConcurrentHashMap<>(); // By scope
+    private final Map<Method, AdviceTimings> advice = new ConcurrentHashMap<>();
+    private volatile long startupStartNanos;
+    private volatile long startupNanos = -1;
+
+    @Override
+    public void beanPhase(Class<?> beanClass, Phase phase, long startNanos, long durationNanos) {
+        beans.computeIfAbsent(beanClass, BeanTimings::new).record(phase, startNanos, durationNanos);
+    }
+
+    @Override
+    public void beanRetrieved(Class<?> beanClass, String scope, long durationNanos) {
+        getBeanLatencies.computeIfAbsent(scope, s -> new LatencyHistogram()).record(durationNanos);
+    }
+
+    @Override
+    public void adviceInvoked(Method method, long adviceNanos) {
+        advice.computeIfAbsent(method, m -> new AdviceTimings()).record(adviceNanos);
+    }
+
+    @Override
+    public void startupCompleted(long startNanos, long durationNanos) {
+        startupStartNanos = startNanos;
+        startupNanos = durationNanos;
+    }
+
+    public BeanTimings getBeanTimings(Class<?> beanClass) {
+        return beans.get(beanClass);
+    }
+
+    public Map<Class<?>, BeanTimings> getAllBeanTimings() {
+        return Collections.unmodifiableMap(beans);
+    }
+
+    // getBean latencies for one scope, or null if no bean of that scope was requested
+    public LatencyHistogram getBeanLatencies(String scope) {
+        return getBeanLatencies.get(scope);
+    }
+
+    public Map<String, LatencyHistogram> getAllBeanLatencies() {
+        return Collections.unmodifiableMap(getBeanLatencies);
+    }
+
+    public Map<Method, AdviceTimings> getAdviceTimings() {
+        return Collections.unmodifiableMap(advice);
+    }
+
+    // -1 until the container has finished starting
+    public long getStartupNanos() {
+        return startupNanos;
+    }
+
+    /**
+     * One line per bean in order of its first creation, with offsets from the start of the scan. Beans that were
+     * never created (lazy ones, prototypes nobody asked for) are left out.
+     */
+    public String formatStartupTimeline() {
+        List<BeanTimings> created = new ArrayList<>();
+        for (BeanTimings timings : beans.values()) {
+            if (timings.getCreationCount() > 0) {
+                created.add(timings);
+            }
+        }
+        created.sort(Comparator.comparingLong(BeanTimings::getFirstCreationNanos));
+        long origin = startupStartNanos;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Startup: %.2f ms, %d beans registered, %d created%n",
+                millis(startupNanos), beans.size(), created.size()));
+        report.append(String.format("%10s %10s %10s %10s %10s  %-24s %s%n",
+                "start ms", "total ms", "new ms", "inject ms", "init ms", "thread", "bean"));
+        for (BeanTimings timings : created) {
+            report.append(String.format("%10.2f %10.2f %10.2f %10.2f %10.2f  %-24s %s%n",
+                    millis(timings.getFirstCreationNanos() - origin),
+                    millis(timings.getPhaseNanos(Phase.INSTANTIATE) + timings.getPhaseNanos(Phase.INJECT) + timings.getPhaseNanos(Phase.POST_CONSTRUCT)),
+                    millis(timings.getPhaseNanos(Phase.INSTANTIATE)),
+                    millis(timings.getPhaseNanos(Phase.INJECT)),
+                    millis(timings.getPhaseNanos(Phase.POST_CONSTRUCT)),
+                    timings.getFirstCreationThread(),
+                    timings.getBeanClass().getName()));
+        }
+        return report.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Phase durations of one bean class, summed over all of its instances.
+     */
+    public static class BeanTimings {
+        private final Class<?> beanClass;
+        private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+        private final LongAdder creations = new LongAdder();
+        private volatile long firstCreationNanos = Long.MAX_VALUE;
+        private volatile String firstCreationThread;
+
+        BeanTimings(Class<?> beanClass) {
+            this.beanClass = beanClass;
+            for (int i = 0; i < phaseNanos.length; i++) {
+                phaseNanos[i] = new LongAdder();
+            }
+        }
+
+        void record(Phase phase, long startNanos, long durationNanos) {
+            phaseNanos[phase.ordinal()].add(durationNanos);
+            if (phase == Phase.INSTANTIATE) {
+                creations.increment();
+                if (firstCreationThread == null) {
+                    synchronized (this) {
+                        if (firstCreationThread == null) {
+                            firstCreationNanos = startNanos;
+                            firstCreationThread = Thread.currentThread().getName();
+                        }
+                    }
+                }
+            }
+        }
+
+        public Class<?> getBeanClass() {
+            return beanClass;
+        }
+
+        public long getPhaseNanos(Phase phase) {
+            return phaseNanos[phase.ordinal()].sum();
+        }
+
+        public long getCreationCount() {
+            return creations.sum();
+        }
+
+        public long getFirstCreationNanos() {
+            return firstCreationNanos;
+        }
+
+        public String getFirstCreationThread() {
+            return firstCreationThread;
+        }
+    }
+
+    /**
+     * Call count and time spent in advice (not in the target) for one advised method.
+     */
+    public static class AdviceTimings {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder adviceNanos = new LongAdder();
+
+        void record(long nanos) {
+            calls.increment();
+            adviceNanos.add(nanos);
+        }
+
+        public long getCallCount() {
+            return calls.sum();
+        }
+
+        public long getAdviceNanos() {
+            return adviceNanos.sum();
+        }
+    }
+}
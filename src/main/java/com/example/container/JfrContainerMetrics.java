@@ -0,0 +1,112 @@
+package com.example.container;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.lang.reflect.Method;
+
+/**
+ * Emits container metrics as Java Flight Recorder events, so startup and lookups show up next to GC, locks and
+ * allocation in JDK Mission Control. Bean phases and startup are enabled by default. The per-call events
+ * ({@code com.example.container.GetBean} and {@code com.example.container.Advice}) are disabled by default and
+ * have to be switched on in the recording settings; while disabled they cost one check per call.
+ */
+public class JfrContainerMetrics implements ContainerMetrics {
+    @Override
+    public void beanPhase(Class<?> beanClass, Phase phase, long startNanos, long durationNanos) {
+        BeanPhaseEvent event = new BeanPhaseEvent();
+        if (event.isEnabled()) {
+            event.beanClass = beanClass;
+            event.phase = phase.name();
+            event.phaseDuration = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void beanRetrieved(Class<?> beanClass, String scope, long durationNanos) {
+        GetBeanEvent event = new GetBeanEvent();
+        if (event.isEnabled()) {
+            event.beanClass = beanClass;
+            event.scope = scope;
+            event.lookupDuration = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void adviceInvoked(Method method, long adviceNanos) {
+        AdviceEvent event = new AdviceEvent();
+        if (event.isEnabled()) {
+            event.declaringClass = method.getDeclaringClass();
+            event.method = method.getName();
+            event.adviceDuration = adviceNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void startupCompleted(long startNanos, long durationNanos) {
+        StartupEvent event = new StartupEvent();
+        if (event.isEnabled()) {
+            event.startupDuration = durationNanos;
+            event.commit();
+        }
+    }
+
+    // Durations are measured by the container, so they are fields rather than the events' own duration
+
+    @Name("com.example.container.BeanPhase")
+    @Label("Bean Phase")
+    @Category("clone-spring")
+    static class BeanPhaseEvent extends Event {
+        @Label("Bean Class")
+        Class<?> beanClass;
+        @Label("Phase")
+        String phase;
+        @Label("Phase Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long phaseDuration;
+    }
+
+    @Name("com.example.container.GetBean")
+    @Label("Get Bean")
+    @Category("clone-spring")
+    @Enabled(false)
+    static class GetBeanEvent extends Event {
+        @Label("Bean Class")
+        Class<?> beanClass;
+        @Label("Scope")
+        String scope;
+        @Label("Lookup Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long lookupDuration;
+    }
+
+    @Name("com.example.container.Advice")
+    @Label("Advised Call")
+    @Category("clone-spring")
+    @Enabled(false)
+    static class AdviceEvent extends Event {
+        @Label("Declaring Class")
+        Class<?> declaringClass;
+        @Label("Method")
+        String method;
+        @Label("Advice Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long adviceDuration;
+    }
+
+    @Name("com.example.container.Startup")
+    @Label("Container Startup")
+    @Category("clone-spring")
+    static class StartupEvent extends Event {
+        @Label("Startup Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long startupDuration;
+    }
+}
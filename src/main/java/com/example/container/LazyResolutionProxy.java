@@ -0,0 +1,56 @@
+package com.example.container;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Callable;
+
+/**
+ * Stand-in injected at {@code @Lazy} injection points. The real bean is looked up on the first method call and
+ * every later call goes straight to it. Interfaces get a JDK proxy; classes get a generated subclass (see
+ * {@link SubclassProxyGenerator}), which any non-final class can have.
+ */
+class LazyResolutionProxy implements InvocationHandler {
+    private final Callable<Object> resolver;
+    private volatile Object target;
+
+    private LazyResolutionProxy(Callable<Object> resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * Returns a lazy proxy for the given type, or {@code null} when the type cannot be proxied (see
+     * {@link SubclassProxyGenerator#canSubclass}, or a class the proxy cannot be defined next to).
+     */
+    static Object create(Class<?> type, Callable<Object> resolver) {
+        LazyResolutionProxy handler = new LazyResolutionProxy(resolver);
+        if (type.isInterface()) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+        return SubclassProxyGenerator.newDelegatingProxy(type, handler::getTarget, null);
+    }
+
+    private Object getTarget() throws Exception {
+        Object resolved = target;
+        if (resolved == null) {
+            synchronized (this) {
+                resolved = target;
+                if (resolved == null) {
+                    resolved = resolver.call();
+                    target = resolved;
+                }
+            }
+        }
+        return resolved;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(getTarget(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
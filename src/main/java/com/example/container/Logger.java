@@ -0,0 +1,145 @@
+package com.example.container;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Minimal levelled logger for the container. The level is global, set with {@link #setLevel} or the
+ * {@code clone-spring.log.level} system property (default {@code INFO}). Messages take {@code {}} placeholders and
+ * are only formatted when their level is enabled, so a disabled call costs one comparison and no allocation.
+ * ERROR and WARN go to {@code System.err}, everything else to {@code System.out}.
+ */
+public final class Logger {
+    public enum Level {
+        OFF, ERROR, WARN, INFO, DEBUG
+    }
+
+    private static volatile Level level = Level.valueOf(System.getProperty("clone-spring.log.level", "INFO").trim().toUpperCase(Locale.ROOT));
+
+    private final String name;
+
+    private Logger(String name) {
+        this.name = name;
+    }
+
+    public static Logger getLogger(Class<?> type) {
+        return new Logger(type.getSimpleName());
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level level) {
+        Logger.level = level;
+    }
+
+    public boolean isEnabled(Level messageLevel) {
+        return messageLevel != Level.OFF && messageLevel.compareTo(level) <= 0;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void debug(String message) {
+        if (isEnabled(Level.DEBUG)) {
+            write(Level.DEBUG, message, null);
+        }
+    }
+
+    public void debug(String format, Object arg) {
+        if (isEnabled(Level.DEBUG)) {
+            write(Level.DEBUG, format(format, arg), null);
+        }
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.DEBUG)) {
+            write(Level.DEBUG, format(format, arg1, arg2), null);
+        }
+    }
+
+    public void debug(String format, Object arg1, Object arg2, Object arg3) {
+        if (isEnabled(Level.DEBUG)) {
+            write(Level.DEBUG, format(format, arg1, arg2, arg3), null);
+        }
+    }
+
+    public void info(String message) {
+        if (isEnabled(Level.INFO)) {
+            write(Level.INFO, message, null);
+        }
+    }
+
+    public void info(String format, Object arg) {
+        if (isEnabled(Level.INFO)) {
+            write(Level.INFO, format(format, arg), null);
+        }
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.INFO)) {
+            write(Level.INFO, format(format, arg1, arg2), null);
+        }
+    }
+
+    public void warn(String message) {
+        if (isEnabled(Level.WARN)) {
+            write(Level.WARN, message, null);
+        }
+    }
+
+    public void warn(String format, Object arg) {
+        if (isEnabled(Level.WARN)) {
+            write(Level.WARN, format(format, arg), null);
+        }
+    }
+
+    public void warn(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.WARN)) {
+            write(Level.WARN, format(format, arg1, arg2), null);
+        }
+    }
+
+    public void error(String message, Throwable error) {
+        if (isEnabled(Level.ERROR)) {
+            write(Level.ERROR, message, error);
+        }
+    }
+
+    public void error(String format, Object arg, Throwable error) {
+        if (isEnabled(Level.ERROR)) {
+            write(Level.ERROR, format(format, arg), error);
+        }
+    }
+
+    public void error(String format, Object arg1, Object arg2, Throwable error) {
+        if (isEnabled(Level.ERROR)) {
+            write(Level.ERROR, format(format, arg1, arg2), error);
+        }
+    }
+
+    private void write(Level messageLevel, String message, Throwable error) {
+        // Looked up per call, so redirecting System.out/err (as tests and benchmarks do) still works
+        PrintStream out = messageLevel.compareTo(Level.WARN) <= 0 ? System.err : System.out;
+        out.println(messageLevel + " " + name + " - " + message);
+        if (error != null) {
+            error.printStackTrace(out);
+        }
+    }
+
+    private static String format(String format, Object... args) {
+        StringBuilder message = new StringBuilder(format.length() + 32);
+        int from = 0;
+        for (Object arg : args) {
+            int placeholder = format.indexOf("{}", from);
+            if (placeholder < 0) {
+                break;
+            }
+            message.append(format, from, placeholder).append(arg);
+            from = placeholder + 2;
+        }
+        return message.append(format, from, format.length()).toString();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.container;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reuses instances of beans that are expensive to build. {@code getBean} borrows an idle instance, or creates one
+ * when there is none, and {@link BeanFactory#releaseBean(Class, Object)} returns it to the pool. Each bean class keeps
+ * at most {@code maxIdle} idle instances; one returned to a full pool is destroyed, as is one left idle for longer
+ * than {@code idleTimeout}. Eviction happens as instances are returned, or on {@link #evictIdle()}.
+ * <p>
+ * At most {@code maxTotal} instances of a bean class are borrowed at once, and a new one is only created when none
+ * is idle. A {@code getBean} beyond that waits up to {@code maxWait} for an instance to come back, then fails with
+ * an {@link IllegalStateException}; a zero {@code maxWait} fails at once. The default is unbounded.
+ * <p>
+ * The pool is a lock-free deque, and the limit a semaphore that only blocks once it is reached: the most recently
+ * returned instance is borrowed first, so the oldest collect at the tail, where eviction looks. An instance must be
+ * returned at most once, and one that is never returned is simply not reused, but keeps its place in
+ * {@code maxTotal}. With {@code @Scope(value = "pooled", proxy = true)}, injected proxies borrow an instance for
+ * each call and return it afterwards. Once the scope is closed, every returned instance is destroyed.
+ */
+public class PooledScope implements BeanScope {
+    private final int maxIdle;
+    private final long idleTimeoutNanos;
+    private final int maxTotal;
+    private final long maxWaitNanos;
+    private final Map<Class<?>, Pool> pools = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public PooledScope() {
+        this(2 * Runtime.getRuntime().availableProcessors(), Duration.ofMinutes(1));
+    }
+
+    public PooledScope(int maxIdle, Duration idleTimeout) {
+        this(maxIdle, idleTimeout, Integer.MAX_VALUE, Duration.ZERO);
+    }
+
+    public PooledScope(int maxIdle, Duration idleTimeout, int maxTotal, Duration maxWait) {
+        if (maxIdle < 0) {
+            throw new IllegalArgumentException("maxIdle must not be negative: " + maxIdle);
+        }
+        if (maxTotal < 1) {
+            throw new IllegalArgumentException("maxTotal must be positive: " + maxTotal);
+        }
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("maxWait must not be negative: " + maxWait);
+        }
+        this.maxIdle = maxIdle;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.maxTotal = maxTotal;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    @Override
+    public Object get(Class<?> beanClass, ObjectFactory objectFactory) throws Exception {
+        Pool pool = pools.computeIfAbsent(beanClass, c -> new Pool(objectFactory));
+        Semaphore borrowed = pool.borrowed;
+        if (borrowed != null && !borrowed.tryAcquire() && (maxWaitNanos == 0 || !borrowed.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS))) {
+            throw new IllegalStateException("Pool of " + beanClass.getName() + " is exhausted: " + maxTotal
+                    + " instances borrowed, none returned within " + Duration.ofNanos(maxWaitNanos).toMillis() + " ms");
+        }
+        Object bean = pool.borrow();
+        if (bean != null) {
+            return bean;
+        }
+        try {
+            return objectFactory.create();
+        } catch (Exception | Error e) {
+            if (borrowed != null) {
+                borrowed.release();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(Class<?> beanClass, Object bean) {
+        Pool pool = pools.get(beanClass);
+        if (pool != null) {
+            pool.giveBack(bean);
+        }
+    }
+
+    // Destroys instances that have been idle for longer than the timeout
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Pool pool : pools.values()) {
+            pool.evict(now);
+        }
+    }
+
+    public int getIdleCount(Class<?> beanClass) {
+        Pool pool = pools.get(beanClass);
+        return pool != null ? pool.idleCount.get() : 0;
+    }
+
+    // Destroys every idle instance; borrowed ones are destroyed as they come back
+    @Override
+    public void close() {
+        closed = true;
+        for (Pool pool : pools.values()) {
+            pool.evict(Long.MAX_VALUE);
+        }
+    }
+
+    private final class Pool {
+        private final ObjectFactory objectFactory;
+        private final ConcurrentLinkedDeque<IdleInstance> idle = new ConcurrentLinkedDeque<>();
+        // Counted before an instance is pushed and after it is taken, so it never undercounts
+        private final AtomicInteger idleCount = new AtomicInteger();
+        // A permit per instance that may be borrowed, taken before looking for an idle one; null when unbounded
+        private final Semaphore borrowed = maxTotal < Integer.MAX_VALUE ? new Semaphore(maxTotal) : null;
+
+        Pool(ObjectFactory objectFactory) {
+            this.objectFactory = objectFactory;
+        }
+
+        Object borrow() {
+            IdleInstance instance = idle.pollFirst();
+            if (instance == null) {
+                return null;
+            }
+            idleCount.decrementAndGet();
+            return instance.bean;
+        }
+
+        // The permit is only given up once the instance is idle, so a waiter woken by it finds the instance
+        void giveBack(Object bean) {
+            try {
+                if (closed) {
+                    objectFactory.destroy(bean);
+                    return;
+                }
+                long now = System.nanoTime();
+                evict(now);
+                if (idleCount.incrementAndGet() > maxIdle) {
+                    idleCount.decrementAndGet();
+                    objectFactory.destroy(bean);
+                    return;
+                }
+                idle.offerFirst(new IdleInstance(bean, now));
+                // Closed while it was being pushed: close() may have emptied the pool before it arrived
+                if (closed) {
+                    evict(Long.MAX_VALUE);
+                }
+            } finally {
+                if (borrowed != null) {
+                    borrowed.release();
+                }
+            }
+        }
+
+        // Only looks at the tail, so it is cheap when nothing has expired
+        void evict(long now) {
+            IdleInstance oldest;
+            while ((oldest = idle.peekLast()) != null && (now == Long.MAX_VALUE || now - oldest.returnedAt > idleTimeoutNanos)) {
+                if (idle.removeLastOccurrence(oldest)) {
+                    idleCount.decrementAndGet();
+                    objectFactory.destroy(oldest.bean);
+                }
+            }
+        }
+    }
+
+    // Compared by identity, so eviction removes exactly the entry it looked at
+    private static final class IdleInstance {
+        private final Object bean;
+        private final long returnedAt;
+
+        IdleInstance(Object bean, long returnedAt) {
+            this.bean = bean;
+            this.returnedAt = returnedAt;
+        }
+    }
+}
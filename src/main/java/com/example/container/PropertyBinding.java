@@ -0,0 +1,340 @@
+package com.example.container;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A {@code @Value} expression bound to the type of its injection point. The placeholders are parsed and the
+ * converter is chosen once, when the bean's creation plan is built, so injecting only looks properties up and
+ * converts them. An expression without placeholders is converted up front.
+ */
+final class PropertyBinding {
+    private final String expression;
+    private final Class<?> type;
+    private final Class<?> elementType; // Of a collection, or null
+    private final Template template;
+    private final Function<String, Object> converter;
+    private final Object constant; // The converted value when the expression has no placeholders (arrays excepted), else null
+
+    private PropertyBinding(String expression, Class<?> type, Class<?> elementType, Template template, Function<String, Object> converter) {
+        this.expression = expression;
+        this.type = type;
+        this.elementType = elementType;
+        this.template = template;
+        this.converter = converter;
+        this.constant = template.isConstant() && !type.isArray() ? convert(template.resolve(PropertySource.EMPTY, expression)) : null;
+    }
+
+    /**
+     * @param elementType the element type of a List, Set or Collection injection point, otherwise ignored
+     * @throws IllegalStateException if the expression is malformed or values cannot be converted to type
+     */
+    static PropertyBinding of(String expression, Class<?> type, Class<?> elementType) {
+        boolean collection = type == List.class || type == Collection.class || type == Set.class;
+        return new PropertyBinding(expression, type, collection ? elementType : null, Template.parse(expression), converter(type, elementType));
+    }
+
+    // The value the injection point gets from source
+    Object resolve(PropertySource source) {
+        return constant != null ? constant : convert(template.resolve(source, expression));
+    }
+
+    private Object convert(String value) {
+        try {
+            return converter.apply(value);
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Cannot convert '" + value + "' of @Value(\"" + expression + "\") to " + type.getTypeName(), e);
+        }
+    }
+
+    String getExpression() {
+        return expression;
+    }
+
+    Class<?> getElementType() {
+        return elementType;
+    }
+
+    @Override
+    public String toString() {
+        return "@Value(\"" + expression + "\")";
+    }
+
+    // Literal text and ${key} / ${key:default} placeholders; a default may hold placeholders of its own
+    private static final class Template {
+        private final List<Object> parts; // String literals and Placeholders
+
+        private Template(List<Object> parts) {
+            this.parts = parts;
+        }
+
+        static Template parse(String text) {
+            List<Object> parts = new ArrayList<>();
+            int position = 0;
+            while (position < text.length()) {
+                int start = text.indexOf("${", position);
+                if (start < 0) {
+                    parts.add(text.substring(position));
+                    break;
+                }
+                if (start > position) {
+                    parts.add(text.substring(position, start));
+                }
+                int end = closingBrace(text, start + 2);
+                if (end < 0) {
+                    throw new IllegalStateException("Unclosed placeholder in @Value(\"" + text + "\")");
+                }
+                String body = text.substring(start + 2, end);
+                int colon = body.indexOf(':');
+                String key = (colon >= 0 ? body.substring(0, colon) : body).strip();
+                if (key.isEmpty()) {
+                    throw new IllegalStateException("Empty placeholder in @Value(\"" + text + "\")");
+                }
+                parts.add(new Placeholder(key, colon >= 0 ? parse(body.substring(colon + 1)) : null));
+                position = end + 1;
+            }
+            return new Template(parts);
+        }
+
+        private static int closingBrace(String text, int from) {
+            int depth = 1;
+            for (int i = from; i < text.length(); i++) {
+                if (text.startsWith("${", i)) {
+                    depth++;
+                    i++;
+                } else if (text.charAt(i) == '}' && --depth == 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        boolean isConstant() {
+            for (Object part : parts) {
+                if (part instanceof Placeholder) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String resolve(PropertySource source, String expression) {
+            if (parts.size() == 1) {
+                return resolve(parts.get(0), source, expression); // The usual "${key}" needs no builder
+            }
+            StringBuilder value = new StringBuilder();
+            for (Object part : parts) {
+                value.append(resolve(part, source, expression));
+            }
+            return value.toString();
+        }
+
+        private static String resolve(Object part, PropertySource source, String expression) {
+            if (part instanceof String) {
+                return (String) part;
+            }
+            Placeholder placeholder = (Placeholder) part;
+            String value = source.getProperty(placeholder.key());
+            if (value != null) {
+                return value;
+            }
+            if (placeholder.defaultValue() == null) {
+                throw new IllegalStateException("Property '" + placeholder.key() + "' of @Value(\"" + expression + "\") is not set and has no default");
+            }
+            return placeholder.defaultValue().resolve(source, expression);
+        }
+    }
+
+    private record Placeholder(String key, Template defaultValue) {
+    }
+
+    private static Function<String, Object> converter(Class<?> type, Class<?> elementType) {
+        if (type.isArray()) {
+            Class<?> componentType = type.getComponentType();
+            Function<String, Object> element = scalarConverter(componentType);
+            return value -> {
+                List<String> items = split(value);
+                Object array = Array.newInstance(componentType, items.size());
+                for (int i = 0; i < items.size(); i++) {
+                    Array.set(array, i, element.apply(items.get(i)));
+                }
+                return array;
+            };
+        }
+        if (type == List.class || type == Collection.class || type == Set.class) {
+            Function<String, Object> element = scalarConverter(elementType != null ? elementType : String.class);
+            boolean set = type == Set.class;
+            return value -> {
+                Collection<Object> items = set ? new LinkedHashSet<>() : new ArrayList<>();
+                for (String item : split(value)) {
+                    items.add(element.apply(item));
+                }
+                return set ? Collections.unmodifiableSet((Set<Object>) items) : Collections.unmodifiableList((List<Object>) items);
+            };
+        }
+        return scalarConverter(type);
+    }
+
+    private static List<String> split(String value) {
+        List<String> items = new ArrayList<>();
+        if (value.isBlank()) {
+            return items;
+        }
+        for (String item : value.split(",")) {
+            items.add(item.strip());
+        }
+        return items;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<String, Object> scalarConverter(Class<?> type) {
+        if (type == String.class || type == Object.class || type == CharSequence.class) {
+            return value -> value;
+        }
+        if (type == int.class || type == Integer.class) {
+            return value -> Integer.valueOf(value.strip());
+        }
+        if (type == long.class || type == Long.class) {
+            return value -> Long.valueOf(value.strip());
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return PropertyBinding::parseBoolean;
+        }
+        if (type == double.class || type == Double.class) {
+            return value -> Double.valueOf(value.strip());
+        }
+        if (type == float.class || type == Float.class) {
+            return value -> Float.valueOf(value.strip());
+        }
+        if (type == short.class || type == Short.class) {
+            return value -> Short.valueOf(value.strip());
+        }
+        if (type == byte.class || type == Byte.class) {
+            return value -> Byte.valueOf(value.strip());
+        }
+        if (type == char.class || type == Character.class) {
+            return value -> {
+                if (value.length() != 1) {
+                    throw new IllegalArgumentException("expected a single character");
+                }
+                return value.charAt(0);
+            };
+        }
+        if (type == Duration.class) {
+            return PropertyBinding::parseDuration;
+        }
+        if (type == Path.class) {
+            return value -> Path.of(value.strip());
+        }
+        if (type.isEnum()) {
+            Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+            return value -> {
+                String name = value.strip();
+                try {
+                    return Enum.valueOf(enumType, name);
+                } catch (IllegalArgumentException e) {
+                    return Enum.valueOf(enumType, name.toUpperCase(Locale.ROOT).replace('-', '_'));
+                }
+            };
+        }
+        MethodHandle factory = factory(type);
+        if (factory == null) {
+            throw new IllegalStateException("@Value cannot convert to " + type.getName()
+                    + ": it has no static valueOf(String) or of(String) method and no String constructor");
+        }
+        return value -> {
+            try {
+                return (Object) factory.invokeExact(value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException(e);
+            }
+        };
+    }
+
+    // A public static valueOf(String) or of(String) returning the type, or else a public String constructor
+    private static MethodHandle factory(Class<?> type) {
+        MethodType factoryType = MethodType.methodType(Object.class, String.class);
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (String name : new String[]{"valueOf", "of"}) {
+            try {
+                Method method = type.getMethod(name, String.class);
+                if (Modifier.isStatic(method.getModifiers()) && type.isAssignableFrom(method.getReturnType())) {
+                    return lookup.unreflect(method).asType(factoryType);
+                }
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // Try the next kind of factory
+            }
+        }
+        try {
+            return lookup.unreflectConstructor(type.getConstructor(String.class)).asType(factoryType);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static Boolean parseBoolean(String value) {
+        String normalized = value.strip().toLowerCase(Locale.ROOT);
+        if (normalized.equals("true") || normalized.equals("yes") || normalized.equals("on")) {
+            return Boolean.TRUE;
+        }
+        if (normalized.equals("false") || normalized.equals("no") || normalized.equals("off")) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("expected true or false");
+    }
+
+    // "250ms", "10s", "5m", "2h", "1d", ISO-8601 ("PT30S"), or a plain number of milliseconds
+    static Duration parseDuration(String value) {
+        String text = value.strip().toLowerCase(Locale.ROOT);
+        if (text.startsWith("p") || text.startsWith("-p")) {
+            try {
+                return Duration.parse(text.toUpperCase(Locale.ROOT));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        }
+        int unit = text.length();
+        while (unit > 0 && Character.isLetter(text.charAt(unit - 1))) {
+            unit--;
+        }
+        long amount = Long.parseLong(text.substring(0, unit).strip());
+        switch (text.substring(unit)) {
+            case "":
+            case "ms":
+                return Duration.ofMillis(amount);
+            case "ns":
+                return Duration.ofNanos(amount);
+            case "us":
+                return Duration.ofNanos(Math.multiplyExact(amount, 1000));
+            case "s":
+                return Duration.ofSeconds(amount);
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "h":
+                return Duration.ofHours(amount);
+            case "d":
+                return Duration.ofDays(amount);
+            default:
+                throw new IllegalArgumentException("unknown duration unit '" + text.substring(unit) + "'");
+        }
+    }
+}
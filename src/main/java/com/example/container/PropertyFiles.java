@@ -0,0 +1,195 @@
+package com.example.container;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reads property files for {@link PropertySource#file(Path)} and {@link PropertySource#classpath(String)}. YAML
+ * support covers what configuration files use: nested mappings, scalars (quoted or not), comments and lists of
+ * scalars, block or inline. Anchors, multi-line strings and mappings inside lists are not supported.
+ */
+final class PropertyFiles {
+    private PropertyFiles() {
+    }
+
+    interface Opener {
+        // null when there is no such file
+        InputStream open() throws IOException;
+    }
+
+    static InputStream open(Path path) throws IOException {
+        try {
+            return Files.newInputStream(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    static InputStream open(String resource) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return (classLoader != null ? classLoader : PropertyFiles.class.getClassLoader()).getResourceAsStream(resource);
+    }
+
+    static final class FileSource implements PropertySource {
+        private final String name;
+        private final Opener opener;
+        private volatile Map<String, String> properties;
+
+        FileSource(String name, Opener opener) {
+            this.name = name;
+            this.opener = opener;
+            this.properties = read();
+        }
+
+        @Override
+        public String getProperty(String key) {
+            return properties.get(key);
+        }
+
+        // If the file can no longer be read or parsed, this throws and the previous properties stay
+        @Override
+        public void reload() {
+            properties = read();
+        }
+
+        private Map<String, String> read() {
+            try (InputStream in = opener.open()) {
+                if (in == null) {
+                    return Map.of();
+                }
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                return Collections.unmodifiableMap(name.endsWith(".yml") || name.endsWith(".yaml") ? parseYaml(reader, name) : parseProperties(reader));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read " + name, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static Map<String, String> parseProperties(BufferedReader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+        Map<String, String> map = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            map.put(key, properties.getProperty(key));
+        }
+        return map;
+    }
+
+    private record OpenKey(int indent, String key) {
+    }
+
+    static Map<String, String> parseYaml(BufferedReader reader, String name) throws IOException {
+        Map<String, String> properties = new LinkedHashMap<>();
+        Map<String, List<String>> lists = new LinkedHashMap<>();
+        Deque<OpenKey> open = new ArrayDeque<>(); // Keys whose value is the indented block below them
+        int lineNumber = 0;
+        for (String line; (line = reader.readLine()) != null; ) {
+            lineNumber++;
+            String content = line.strip();
+            if (content.isEmpty() || content.startsWith("#") || content.equals("---")) {
+                continue;
+            }
+            int indent = line.indexOf(content.charAt(0));
+            if (line.substring(0, indent).indexOf('\t') >= 0) {
+                throw new IOException(name + ":" + lineNumber + ": tabs are not allowed for indentation");
+            }
+            if (content.equals("-") || content.startsWith("- ")) {
+                // Items may sit at the same indentation as their key
+                while (!open.isEmpty() && open.peek().indent() > indent) {
+                    open.pop();
+                }
+                if (open.isEmpty()) {
+                    throw new IOException(name + ":" + lineNumber + ": list item without a key");
+                }
+                lists.computeIfAbsent(open.peek().key(), k -> new ArrayList<>()).add(scalar(content.substring(1).strip()));
+                continue;
+            }
+            while (!open.isEmpty() && open.peek().indent() >= indent) {
+                open.pop();
+            }
+            int colon = keyEnd(content);
+            if (colon < 0) {
+                throw new IOException(name + ":" + lineNumber + ": expected 'key: value'");
+            }
+            String key = (open.isEmpty() ? "" : open.peek().key() + ".") + unquote(content.substring(0, colon).strip());
+            String value = content.substring(colon + 1).strip();
+            if (value.isEmpty() || value.startsWith("#")) {
+                open.push(new OpenKey(indent, key));
+            } else if (value.startsWith("[") && value.endsWith("]")) {
+                List<String> items = lists.computeIfAbsent(key, k -> new ArrayList<>());
+                for (String item : value.substring(1, value.length() - 1).split(",")) {
+                    if (!item.isBlank()) {
+                        items.add(scalar(item.strip()));
+                    }
+                }
+            } else {
+                properties.put(key, scalar(value));
+            }
+        }
+        lists.forEach((key, items) -> {
+            for (int i = 0; i < items.size(); i++) {
+                properties.put(key + "[" + i + "]", items.get(i));
+            }
+            properties.put(key, String.join(",", items));
+        });
+        return properties;
+    }
+
+    // The colon that ends a key: followed by a space or the end of the line, outside quotes
+    private static int keyEnd(String content) {
+        char quote = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == ':' && (i + 1 == content.length() || content.charAt(i + 1) == ' ')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String scalar(String value) {
+        if (value.startsWith("\"") || value.startsWith("'")) {
+            return unquote(value);
+        }
+        int comment = value.indexOf(" #");
+        String plain = comment >= 0 ? value.substring(0, comment).strip() : value;
+        return plain.equals("~") || plain.equals("null") ? "" : plain;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("'")) {
+            return value.substring(1, value.lastIndexOf('\'') > 0 ? value.lastIndexOf('\'') : value.length()).replace("''", "'");
+        }
+        if (value.length() >= 2 && value.startsWith("\"")) {
+            int end = value.lastIndexOf('"') > 0 ? value.lastIndexOf('"') : value.length();
+            return value.substring(1, end).replace("\\\"", "\"").replace("\\n", "\n").replace("\\t", "\t").replace("\\\\", "\\");
+        }
+        return value;
+    }
+}
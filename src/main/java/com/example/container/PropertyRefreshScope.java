@@ -0,0 +1,105 @@
+package com.example.container;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code "refresh"} scope of {@code @RefreshScope} beans: one instance per bean class, which remembers the raw
+ * value of every property its {@code @Value} points read. {@link #refresh(PropertySource)} destroys the instances
+ * that read a property that has changed since, and the next call through their proxy creates them anew.
+ */
+final class PropertyRefreshScope implements BeanScope {
+    private final Map<Class<?>, Instance> instances = new ConcurrentHashMap<>();
+    // The beans being created on this thread, innermost first, each with the properties it read so far
+    private final ThreadLocal<Deque<Creation>> creations = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public Object get(Class<?> beanClass, ObjectFactory objectFactory) throws Exception {
+        Instance instance = instances.get(beanClass);
+        if (instance != null) {
+            return instance.bean();
+        }
+        // Creation may look up other refresh beans, so not inside computeIfAbsent
+        Deque<Creation> stack = creations.get();
+        Creation creation = new Creation(beanClass);
+        stack.push(creation);
+        Object bean;
+        try {
+            bean = objectFactory.create();
+        } finally {
+            stack.pop();
+        }
+        instance = new Instance(bean, objectFactory, creation.reads);
+        Instance existing = instances.putIfAbsent(beanClass, instance);
+        if (existing != null) {
+            objectFactory.destroy(bean);
+            return existing.bean();
+        }
+        return bean;
+    }
+
+    /**
+     * Wraps source so that what the bean now being created reads from it is remembered, or returns source itself
+     * when that bean is not one of this scope's.
+     */
+    PropertySource recording(Class<?> beanInCreation, PropertySource source) {
+        Creation creation = creations.get().peek();
+        if (creation == null || creation.beanClass != beanInCreation) {
+            return source;
+        }
+        return key -> {
+            String value = source.getProperty(key);
+            creation.reads.put(key, value); // null when not set
+            return value;
+        };
+    }
+
+    /**
+     * Destroys every instance that read a property whose value in source differs from the one it was created with.
+     *
+     * @return the changed properties
+     */
+    Set<String> refresh(PropertySource source) {
+        Set<String> changed = new LinkedHashSet<>();
+        for (Map.Entry<Class<?>, Instance> entry : instances.entrySet()) {
+            Instance instance = entry.getValue();
+            boolean stale = false;
+            for (Map.Entry<String, String> read : instance.reads().entrySet()) {
+                if (!Objects.equals(read.getValue(), source.getProperty(read.getKey()))) {
+                    changed.add(read.getKey());
+                    stale = true;
+                }
+            }
+            if (stale && instances.remove(entry.getKey(), instance)) {
+                instance.objectFactory().destroy(instance.bean());
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public void close() {
+        for (Instance instance : instances.values()) {
+            instance.objectFactory().destroy(instance.bean());
+        }
+        instances.clear();
+    }
+
+    private static final class Creation {
+        private final Class<?> beanClass;
+        private final Map<String, String> reads = new HashMap<>();
+
+        Creation(Class<?> beanClass) {
+            this.beanClass = beanClass;
+        }
+    }
+
+    private record Instance(Object bean, ObjectFactory objectFactory, Map<String, String> reads) {
+    }
+}
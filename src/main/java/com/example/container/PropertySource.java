@@ -0,0 +1,87 @@
+package com.example.container;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Where the container reads configuration properties from: {@code @Value} injection points,
+ * {@code @ConditionalOnProperty} and the active profiles. Unless a container is given one, it uses
+ * {@link #defaults()}.
+ */
+@FunctionalInterface
+public interface PropertySource {
+    PropertySource EMPTY = name -> null;
+
+    // null when the property is not set
+    String getProperty(String name);
+
+    // Re-reads the backing file, if there is one; see BeanFactory#refreshProperties
+    default void reload() {
+    }
+
+    static PropertySource of(Map<String, String> properties) {
+        return properties::get;
+    }
+
+    static PropertySource of(Properties properties) {
+        return properties::getProperty;
+    }
+
+    static PropertySource systemProperties() {
+        return System::getProperty;
+    }
+
+    // Environment variables, also under the upper-case name with dots and dashes as underscores (a.b-c -> A_B_C)
+    static PropertySource environment() {
+        return name -> {
+            String value = System.getenv(name);
+            return value != null ? value : System.getenv(name.replace('.', '_').replace('-', '_').toUpperCase(Locale.ROOT));
+        };
+    }
+
+    /**
+     * A {@code .properties} or {@code .yml}/{@code .yaml} file, read now and on every {@link #reload()}. Nested YAML
+     * keys are joined with dots, and list items become {@code key[0]}, {@code key[1]}... as well as a
+     * comma-separated {@code key}. A missing file has no properties.
+     */
+    static PropertySource file(Path path) {
+        return new PropertyFiles.FileSource(path.toString(), () -> PropertyFiles.open(path));
+    }
+
+    // Like file(Path), for a resource of the context class loader
+    static PropertySource classpath(String resource) {
+        return new PropertyFiles.FileSource("classpath:" + resource, () -> PropertyFiles.open(resource));
+    }
+
+    // Looks in each source in turn and returns the first value found; reloading reloads all of them
+    static PropertySource firstOf(PropertySource... sources) {
+        List<PropertySource> chain = List.of(sources);
+        return new PropertySource() {
+            @Override
+            public String getProperty(String name) {
+                for (PropertySource source : chain) {
+                    String value = source.getProperty(name);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void reload() {
+                for (PropertySource source : chain) {
+                    source.reload();
+                }
+            }
+        };
+    }
+
+    // System properties, then environment variables, then application.properties and application.yml on the classpath
+    static PropertySource defaults() {
+        return firstOf(systemProperties(), environment(), classpath("application.properties"), classpath("application.yml"));
+    }
+}
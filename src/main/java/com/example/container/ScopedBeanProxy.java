@@ -0,0 +1,46 @@
+package com.example.container;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Stand-in injected for beans marked {@code @Scope(proxy = true)}. Every call looks up the instance for the current
+ * scope context, calls it and releases it again, so a singleton can hold on to a thread, request or pooled bean.
+ * Like {@link LazyResolutionProxy}, interfaces get a JDK proxy and classes a generated subclass.
+ */
+class ScopedBeanProxy implements InvocationHandler {
+    interface ScopedTarget {
+        Object get() throws Exception;
+
+        void release(Object bean);
+    }
+
+    private final ScopedTarget scopedTarget;
+
+    private ScopedBeanProxy(ScopedTarget scopedTarget) {
+        this.scopedTarget = scopedTarget;
+    }
+
+    // Returns null when the type cannot be proxied
+    static Object create(Class<?> type, ScopedTarget scopedTarget) {
+        ScopedBeanProxy handler = new ScopedBeanProxy(scopedTarget);
+        if (type.isInterface()) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+        return SubclassProxyGenerator.newDelegatingProxy(type, scopedTarget::get, scopedTarget::release);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object target = scopedTarget.get();
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            scopedTarget.release(target);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.container;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The beans of one scope context (a thread, a request), each with the factory that destroys it
+final class ScopedInstances {
+    private final Map<Class<?>, Instance> instances = new ConcurrentHashMap<>();
+
+    Object get(Class<?> beanClass, BeanScope.ObjectFactory objectFactory) throws Exception {
+        Instance instance = instances.get(beanClass);
+        if (instance == null) {
+            // Creation may look up other beans of the same context, so not inside computeIfAbsent
+            instance = new Instance(objectFactory.create(), objectFactory);
+            Instance existing = instances.putIfAbsent(beanClass, instance);
+            if (existing != null) {
+                objectFactory.destroy(instance.bean());
+                instance = existing;
+            }
+        }
+        return instance.bean();
+    }
+
+    // Each instance is removed before it is destroyed, so one destroyed from two threads at once is destroyed once
+    void destroyAll() {
+        for (Class<?> beanClass : instances.keySet()) {
+            Instance instance = instances.remove(beanClass);
+            if (instance != null) {
+                instance.objectFactory().destroy(instance.bean());
+            }
+        }
+    }
+
+    private record Instance(Object bean, BeanScope.ObjectFactory objectFactory) {
+    }
+}
@@ -0,0 +1,473 @@
+package com.example.container;
+
+import com.example.annotation.aop.AdviceChain;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Generates subclass proxies for beans without interfaces, as hidden classes in the bean's own package, so
+ * package-private methods can be overridden and no {@code --add-opens} is needed. Every overridable method calls
+ * the target with a plain {@code invokevirtual}:
+ * <ul>
+ *     <li>an advice proxy holds the fully initialized bean and an {@link AdviceChain} per advised method; unadvised
+ *     methods call the bean directly, advised ones go through their chain</li>
+ *     <li>a delegating proxy, for {@code @Lazy} and scoped injection points, asks a {@link Callable} for the target on
+ *     every call and, if it was given a release {@link Consumer}, hands the target back afterwards</li>
+ * </ul>
+ * Like the JDK's own proxies, checked exceptions a method does not declare are wrapped in
+ * {@link UndeclaredThrowableException}. Proxies are allocated with {@code sun.misc.Unsafe.allocateInstance}, from
+ * the {@code jdk.unsupported} module, without running any constructor of the bean class: making one never repeats
+ * the side effects of the bean's constructor, and beans with only {@code @Autowired} constructors can be proxied.
+ * The inherited fields of a proxy stay at their defaults, as all state lives in the target. On a runtime image
+ * without {@code jdk.unsupported} (which is logged once) a proxy calls the bean class's no-argument constructor
+ * instead, so only classes with a non-private one can be proxied. Final methods, and protected methods inherited
+ * from another package, cannot be sent to the target and run on the proxy itself.
+ */
+final class SubclassProxyGenerator {
+    private static final Logger log = Logger.getLogger(SubclassProxyGenerator.class);
+    private static final String OBJECT = "java/lang/Object";
+    private static final String ADVICE_CHAIN = internalName(AdviceChain.class);
+    private static final String GENERATED_PROXY = internalName(AotBeanRegistry.GeneratedProxy.class);
+    private static final String CALLABLE = internalName(Callable.class);
+    private static final String CONSUMER = internalName(Consumer.class);
+    private static final MethodType INIT_TYPE = MethodType.methodType(void.class, Object.class, Object.class, Object.class);
+    private static final MethodHandle allocateInstance = findAllocateInstance(); // (Class)Object, or null
+    private static final AtomicInteger classCount = new AtomicInteger(); // Names for classes that cannot be hidden
+
+    // Delegating proxies only depend on the type, so each kind is generated once per class
+    private static final ClassValue<Optional<ProxyClass>> lazyProxies = new ClassValue<>() {
+        @Override
+        protected Optional<ProxyClass> computeValue(Class<?> type) {
+            return defineDelegatingProxy(type, false);
+        }
+    };
+    private static final ClassValue<Optional<ProxyClass>> releasingProxies = new ClassValue<>() {
+        @Override
+        protected Optional<ProxyClass> computeValue(Class<?> type) {
+            return defineDelegatingProxy(type, true);
+        }
+    };
+
+    private SubclassProxyGenerator() {
+    }
+
+    /**
+     * Defines an advice proxy class for beanClass, where advisedMethods[i] calls chains[i].
+     *
+     * @return the class, whose {@link ProxyClass#newInstance} takes the target and the chains
+     * @throws IllegalStateException if the class cannot be subclassed
+     */
+    static ProxyClass defineAdviceProxy(Class<?> beanClass, List<Method> advisedMethods) {
+        requireSubclassable(beanClass);
+        Map<String, Integer> chainIndexes = new LinkedHashMap<>();
+        for (int i = 0; i < advisedMethods.size(); i++) {
+            chainIndexes.put(signature(advisedMethods.get(i)), i);
+        }
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(beanClass, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot define a proxy class in the package of " + beanClass.getName(), e);
+        }
+        String proxyName = proxyName(lookup, beanClass, "$$Proxy");
+        String bean = internalName(beanClass);
+        String beanType = "L" + bean + ";";
+        ClassFileWriter writer = new ClassFileWriter();
+        writeInitialization(writer, beanClass, proxyName, "target", bean, "chains", "[L" + ADVICE_CHAIN + ";");
+
+        for (Method method : overridableMethods(beanClass)) {
+            Integer chainIndex = chainIndexes.get(signature(method));
+            String descriptor = descriptor(method);
+            ClassFileWriter.Code code = writer.method(access(method), method.getName(), descriptor);
+            if (chainIndex == null) {
+                code.load("L", 0).getField(proxyName, "target", beanType);
+                loadArguments(code, method);
+                code.invokeVirtual(bean, method.getName(), descriptor).returnValue(returnDescriptor(method)).end();
+                continue;
+            }
+            code.load("L", 0).getField(proxyName, "chains", "[L" + ADVICE_CHAIN + ";").pushInt(chainIndex).aaload()
+                    .load("L", 0).getField(proxyName, "target", beanType);
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            if (parameterTypes.length == 0) {
+                code.pushNull(); // The chain stands in its shared empty array, as it does for JDK proxies
+            } else {
+                code.pushInt(parameterTypes.length).newArray(OBJECT);
+            }
+            int slot = 1;
+            for (int i = 0; i < parameterTypes.length; i++) {
+                String type = parameterTypes[i].descriptorString();
+                code.dup().pushInt(i).load(type, slot);
+                box(code, parameterTypes[i]);
+                code.aastore();
+                slot += ClassFileWriter.slots(type);
+            }
+            code.invokeVirtual(ADVICE_CHAIN, "invoke", "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;");
+            returnResult(code, method.getReturnType());
+            rethrow(code, method, slot, 0);
+            code.end();
+        }
+
+        ClassFileWriter.Code getProxiedBean = writer.method(ClassFileWriter.ACC_PUBLIC, "getProxiedBean", "()Ljava/lang/Object;");
+        getProxiedBean.load("L", 0).getField(proxyName, "target", beanType).returnValue("L").end();
+
+        byte[] bytes = writer.toByteArray(ClassFileWriter.ACC_FINAL | ClassFileWriter.ACC_SUPER | ClassFileWriter.ACC_SYNTHETIC,
+                proxyName, bean, GENERATED_PROXY);
+        try {
+            return defineClass(lookup, bytes);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Cannot define a proxy class for " + beanClass.getName(), e);
+        }
+    }
+
+    /**
+     * A proxy of type that gets its target from {@code target} on every call, and passes it to {@code release}
+     * afterwards unless that is null.
+     *
+     * @return null if type cannot be proxied this way (see {@link #canSubclass}, or a class the proxy cannot be
+     * defined next to)
+     */
+    static Object newDelegatingProxy(Class<?> type, Callable<Object> target, Consumer<Object> release) {
+        Optional<ProxyClass> proxyClass = (release != null ? releasingProxies : lazyProxies).get(type);
+        return proxyClass.isPresent() ? proxyClass.get().newInstance(target, release) : null;
+    }
+
+    private static Optional<ProxyClass> defineDelegatingProxy(Class<?> type, boolean releasing) {
+        if (!canSubclass(type)) {
+            return Optional.empty();
+        }
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            return Optional.empty(); // A package of a named module that is not open to the container
+        }
+        String proxyName = proxyName(lookup, type, releasing ? "$$ScopedProxy" : "$$LazyProxy");
+        String bean = internalName(type);
+        ClassFileWriter writer = new ClassFileWriter();
+        writeInitialization(writer, type, proxyName, "target", CALLABLE, "release", CONSUMER);
+
+        for (Method method : overridableMethods(type)) {
+            String descriptor = descriptor(method);
+            String returnType = returnDescriptor(method);
+            int targetSlot = ClassFileWriter.argumentSlots(descriptor) + 1;
+            int resultSlot = targetSlot + 1;
+            ClassFileWriter.Code code = writer.method(access(method), method.getName(), descriptor);
+            code.load("L", 0).getField(proxyName, "target", "L" + CALLABLE + ";")
+                    .invokeInterface(CALLABLE, "call", "()Ljava/lang/Object;")
+                    .checkcast(bean);
+            if (!releasing) {
+                loadArguments(code, method);
+                code.invokeVirtual(bean, method.getName(), descriptor).returnValue(returnType);
+                rethrow(code, method, targetSlot, 0);
+                code.end();
+                continue;
+            }
+            code.store("L", targetSlot);
+            int callStart = code.position();
+            code.load("L", targetSlot);
+            loadArguments(code, method);
+            code.invokeVirtual(bean, method.getName(), descriptor);
+            int callEnd = code.position();
+            if (!returnType.equals("V")) {
+                code.store(returnType, resultSlot);
+            }
+            release(code, proxyName, targetSlot);
+            if (!returnType.equals("V")) {
+                code.load(returnType, resultSlot);
+            }
+            code.returnValue(returnType);
+            // Releases the target when the call throws, then rethrows
+            int releaseHandler = code.position();
+            int exceptionSlot = resultSlot + ClassFileWriter.slots(returnType);
+            code.handler().store("L", exceptionSlot);
+            release(code, proxyName, targetSlot);
+            code.load("L", exceptionSlot).athrow();
+            code.tryCatch(callStart, callEnd, releaseHandler, null);
+            rethrow(code, method, exceptionSlot, 0);
+            code.end();
+        }
+
+        byte[] bytes = writer.toByteArray(ClassFileWriter.ACC_FINAL | ClassFileWriter.ACC_SUPER | ClassFileWriter.ACC_SYNTHETIC, proxyName, bean);
+        try {
+            return Optional.of(defineClass(lookup, bytes));
+        } catch (IllegalAccessException e) {
+            return Optional.empty(); // The lookup may not define classes in the package
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Cannot define a proxy class for " + type.getName(), e); // A bug in the generated code
+        }
+    }
+
+    private static void release(ClassFileWriter.Code code, String proxyName, int targetSlot) {
+        code.load("L", 0).getField(proxyName, "release", "L" + CONSUMER + ";")
+                .load("L", targetSlot)
+                .invokeInterface(CONSUMER, "accept", "(Ljava/lang/Object;)V");
+    }
+
+    private static void requireSubclassable(Class<?> type) {
+        if (!canSubclass(type)) {
+            throw new IllegalStateException("Cannot subclass " + type.getName() + ": proxied classes must not be final"
+                    + (allocateInstance == null ? " and, without sun.misc.Unsafe, need a non-private no-argument constructor" : ""));
+        }
+    }
+
+    // Whether a proxy can extend type: a class that is not final, with a non-private no-argument constructor unless Unsafe allocates proxies
+    static boolean canSubclass(Class<?> type) {
+        if (type.isInterface() || type.isArray() || type.isPrimitive() || Modifier.isFinal(type.getModifiers())) {
+            return false;
+        }
+        return allocateInstance != null || hasNoArgumentConstructor(type);
+    }
+
+    static boolean hasNoArgumentConstructor(Class<?> type) {
+        try {
+            return !Modifier.isPrivate(type.getDeclaredConstructor().getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * An instance of a generated proxy class, allocated without running a constructor, or made by constructor (which
+     * calls the bean class's no-argument constructor) on a runtime without {@code sun.misc.Unsafe}.
+     *
+     * @param constructor null if the bean class has no such constructor
+     * @throws IllegalStateException if there is neither Unsafe nor a constructor
+     */
+    static <T> T allocate(Class<T> proxyClass, Supplier<T> constructor) {
+        if (allocateInstance == null) {
+            if (constructor == null) {
+                throw new IllegalStateException("Cannot instantiate " + proxyClass.getName() + ": without sun.misc.Unsafe the proxied"
+                        + " class needs a non-private no-argument constructor");
+            }
+            return constructor.get();
+        }
+        try {
+            return proxyClass.cast((Object) allocateInstance.invokeExact(proxyClass));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e, "Cannot instantiate a proxy");
+        }
+    }
+
+    /**
+     * The two fields of a proxy and the {@code $$init} method that sets them. A constructor that calls the bean
+     * class's no-argument constructor is only there for runtimes without {@code sun.misc.Unsafe}.
+     */
+    private static void writeInitialization(ClassFileWriter writer, Class<?> type, String proxyName,
+                                            String firstName, String firstType, String secondName, String secondType) {
+        String firstDescriptor = firstType.startsWith("[") ? firstType : "L" + firstType + ";";
+        String secondDescriptor = secondType.startsWith("[") ? secondType : "L" + secondType + ";";
+        writer.field(ClassFileWriter.ACC_PRIVATE, firstName, firstDescriptor);
+        writer.field(ClassFileWriter.ACC_PRIVATE, secondName, secondDescriptor);
+        writer.method(0, "$$init", "(Ljava/lang/Object;Ljava/lang/Object;)V")
+                .load("L", 0).load("L", 1).checkcast(firstType).putField(proxyName, firstName, firstDescriptor)
+                .load("L", 0).load("L", 2).checkcast(secondType).putField(proxyName, secondName, secondDescriptor)
+                .returnValue("V")
+                .end();
+        if (hasNoArgumentConstructor(type)) {
+            writer.method(0, "<init>", "()V")
+                    .load("L", 0).invokeSpecial(internalName(type), "<init>", "()V")
+                    .returnValue("V")
+                    .end();
+        }
+    }
+
+    // Unsafe.allocateInstance, from the jdk.unsupported module, which opens sun.misc to everyone
+    private static MethodHandle findAllocateInstance() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "allocateInstance", MethodType.methodType(Object.class, Class.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("sun.misc.Unsafe is not available ({}), so subclass proxies run the no-argument constructor of the classes they proxy", e);
+            return null; // A runtime image without jdk.unsupported
+        }
+    }
+
+    /**
+     * A defined proxy class. Instances are allocated first and then get their fields, so the fields cannot be final;
+     * a release fence stands in for the guarantee final fields would give.
+     */
+    static final class ProxyClass {
+        private final MethodHandle allocate; // ()Object
+        private final MethodHandle init; // (Object proxy, Object first, Object second)void
+
+        private ProxyClass(MethodHandle allocate, MethodHandle init) {
+            this.allocate = allocate;
+            this.init = init;
+        }
+
+        Object newInstance(Object first, Object second) {
+            try {
+                Object proxy = (Object) allocate.invokeExact();
+                init.invokeExact(proxy, first, second);
+                VarHandle.releaseFence();
+                return proxy;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e, "Cannot instantiate a proxy");
+            }
+        }
+    }
+
+    // Hidden classes get a unique suffix from the JVM; others need a unique name of their own
+    private static String proxyName(MethodHandles.Lookup lookup, Class<?> type, String suffix) {
+        String name = internalName(type) + suffix;
+        return lookup.hasFullPrivilegeAccess() ? name : name + "$" + classCount.incrementAndGet();
+    }
+
+    /**
+     * Defines the class in the lookup's package, hidden if the lookup may do so: a bean class loaded by another
+     * class loader is in another unnamed module, where only a normal class can be defined.
+     */
+    private static ProxyClass defineClass(MethodHandles.Lookup lookup, byte[] bytes) throws ReflectiveOperationException {
+        MethodHandles.Lookup proxyLookup = lookup;
+        Class<?> proxyClass;
+        if (lookup.hasFullPrivilegeAccess()) {
+            proxyLookup = lookup.defineHiddenClass(bytes, false);
+            proxyClass = proxyLookup.lookupClass();
+        } else {
+            proxyClass = lookup.defineClass(bytes);
+        }
+        MethodHandle allocate = allocateInstance != null
+                ? MethodHandles.insertArguments(allocateInstance, 0, proxyClass)
+                : proxyLookup.findConstructor(proxyClass, MethodType.methodType(void.class)).asType(MethodType.methodType(Object.class));
+        MethodHandle init = proxyLookup.findVirtual(proxyClass, "$$init", MethodType.methodType(void.class, Object.class, Object.class)).asType(INIT_TYPE);
+        return new ProxyClass(allocate, init);
+    }
+
+    // The public, protected and package-private instance methods a subclass in the same package can override and call
+    private static List<Method> overridableMethods(Class<?> type) {
+        List<Method> methods = new ArrayList<>();
+        List<Method> candidates = new ArrayList<>(AopProxyFactory.getProxiableMethods(type));
+        for (String name : new String[]{"equals", "hashCode", "toString"}) {
+            try {
+                Method method = name.equals("equals") ? type.getMethod(name, Object.class) : type.getMethod(name);
+                if (method.getDeclaringClass() == Object.class) {
+                    candidates.add(method); // Sent to the target, like every other call
+                }
+            } catch (NoSuchMethodException e) {
+                throw new AssertionError(e);
+            }
+        }
+        for (Method method : candidates) {
+            int modifiers = method.getModifiers();
+            if (Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers) || method.isBridge() || method.isSynthetic()) {
+                continue;
+            }
+            if (Modifier.isPublic(modifiers) || samePackage(method.getDeclaringClass(), type)) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    private static boolean samePackage(Class<?> a, Class<?> b) {
+        return a.getPackageName().equals(b.getPackageName()) && a.getClassLoader() == b.getClassLoader();
+    }
+
+    private static int access(Method method) {
+        int modifiers = method.getModifiers();
+        if (Modifier.isPublic(modifiers) || method.getDeclaringClass().isInterface()) {
+            return ClassFileWriter.ACC_PUBLIC;
+        }
+        return Modifier.isProtected(modifiers) ? ClassFileWriter.ACC_PROTECTED : 0;
+    }
+
+    private static void loadArguments(ClassFileWriter.Code code, Method method) {
+        int slot = 1;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            String type = parameterType.descriptorString();
+            code.load(type, slot);
+            slot += ClassFileWriter.slots(type);
+        }
+    }
+
+    private static void box(ClassFileWriter.Code code, Class<?> type) {
+        if (type.isPrimitive()) {
+            String wrapper = internalName(MethodType.methodType(type).wrap().returnType());
+            code.invokeStatic(wrapper, "valueOf", "(" + type.descriptorString() + ")L" + wrapper + ";");
+        }
+    }
+
+    // Converts the Object on the stack to the return type and returns it
+    private static void returnResult(ClassFileWriter.Code code, Class<?> type) {
+        if (type == void.class) {
+            code.pop("L").returnValue("V");
+        } else if (type.isPrimitive()) {
+            String wrapper = internalName(MethodType.methodType(type).wrap().returnType());
+            code.checkcast(wrapper).invokeVirtual(wrapper, type.getName() + "Value", "()" + type.descriptorString())
+                    .returnValue(type.descriptorString());
+        } else {
+            if (type != Object.class) {
+                code.checkcast(internalName(type));
+            }
+            code.returnValue("L");
+        }
+    }
+
+    /**
+     * Ends the method with handlers for everything thrown from its code so far: unchecked and declared exceptions
+     * are rethrown, other checked exceptions wrapped in UndeclaredThrowableException.
+     */
+    private static void rethrow(ClassFileWriter.Code code, Method method, int exceptionSlot, int start) {
+        int end = code.position();
+        int rethrow = code.position();
+        code.handler().athrow();
+        List<Class<?>> rethrown = new ArrayList<>(List.of(RuntimeException.class, Error.class));
+        rethrown.addAll(Arrays.asList(method.getExceptionTypes()));
+        boolean catchesAll = false;
+        for (Class<?> exceptionType : rethrown) {
+            code.tryCatch(start, end, rethrow, internalName(exceptionType));
+            catchesAll |= exceptionType == Throwable.class;
+        }
+        if (catchesAll) {
+            return;
+        }
+        int wrap = code.position();
+        String undeclared = internalName(UndeclaredThrowableException.class);
+        code.handler().store("L", exceptionSlot)
+                .newObject(undeclared).dup().load("L", exceptionSlot)
+                .invokeSpecial(undeclared, "<init>", "(Ljava/lang/Throwable;)V")
+                .athrow();
+        code.tryCatch(start, end, wrap, "java/lang/Throwable");
+    }
+
+    private static String descriptor(Method method) {
+        return MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+    }
+
+    private static String returnDescriptor(Method method) {
+        return method.getReturnType().descriptorString();
+    }
+
+    private static String signature(Method method) {
+        return method.getName() + Arrays.toString(method.getParameterTypes());
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.isArray() ? type.descriptorString() : type.getName().replace('.', '/');
+    }
+}
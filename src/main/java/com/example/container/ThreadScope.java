@@ -0,0 +1,43 @@
+package com.example.container;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One instance per bean class and thread, created on the thread's first lookup. A thread's instances are destroyed
+ * when it calls {@link #clear()}, e.g. at the end of a task on a pooled worker, and those of every thread when the
+ * container shuts down. Until then they are kept even if their thread ends, so their {@code @PreDestroy} methods
+ * still run; threads that come and go should call {@link #clear()} before they end.
+ */
+public class ThreadScope implements BeanScope {
+    // Every thread's instances, so that closing the scope reaches them all
+    private final Set<ScopedInstances> allInstances = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<ScopedInstances> instances = ThreadLocal.withInitial(() -> {
+        ScopedInstances threadInstances = new ScopedInstances();
+        allInstances.add(threadInstances);
+        return threadInstances;
+    });
+
+    @Override
+    public Object get(Class<?> beanClass, ObjectFactory objectFactory) throws Exception {
+        return instances.get().get(beanClass, objectFactory);
+    }
+
+    // Destroys the calling thread's instances; the next lookup on this thread creates new ones
+    public void clear() {
+        ScopedInstances threadInstances = instances.get();
+        allInstances.remove(threadInstances);
+        threadInstances.destroyAll();
+        instances.remove();
+    }
+
+    // Destroys the instances of all threads, including ones still in use
+    @Override
+    public void close() {
+        for (ScopedInstances threadInstances : allInstances) {
+            threadInstances.destroyAll();
+        }
+        allInstances.clear();
+        instances.remove();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.container;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Every type a bean can be looked up by (its class, superclasses and interfaces, except Object) mapped to the
+ * definitions assignable to it. Built once all definitions are registered, so resolving an interface or supertype
+ * is a map read with no hierarchy walk. The single candidate for each type (the only one, or the one marked
+ * {@code @Primary}) is worked out up front as well. An advised bean whose proxy only implements its interfaces
+ * (see {@link AopProxyFactory#proxiesInterfacesOnly}) is indexed under those interfaces alone, since the
+ * instances callers get are not of its class.
+ * <p>
+ * Candidates are ordered by the {@code @Order} of their class ({@link BeanDefinition#getOrder()}), unordered ones
+ * last, then by name, which is the order of injected lists and maps.
+ */
+final class TypeIndex {
+    private static final Comparator<BeanDefinition> CANDIDATE_ORDER = Comparator
+            .comparingInt(BeanDefinition::getOrder)
+            .thenComparing(BeanDefinition::getName);
+
+    private final List<BeanDefinition> beanDefinitions;
+    private final Map<Class<?>, BeanDefinition> byClass = new HashMap<>();
+    private final Map<String, BeanDefinition> byName = new HashMap<>();
+    private final Map<Class<?>, List<BeanDefinition>> candidates = new HashMap<>();
+    private final Map<Class<?>, BeanDefinition> unique = new HashMap<>(); // Absent for ambiguous types
+    private final Map<Class<?>, BeanDefinition> interfaceProxies = new HashMap<>(); // By class, for error messages
+
+    /**
+     * @param interfaceProxied the classes of beans whose proxies only implement the interfaces the class declares
+     */
+    TypeIndex(Collection<BeanDefinition> definitions, Set<Class<?>> interfaceProxied) {
+        beanDefinitions = new ArrayList<>(definitions);
+        beanDefinitions.sort(CANDIDATE_ORDER);
+        for (int i = 0; i < beanDefinitions.size(); i++) {
+            BeanDefinition beanDefinition = beanDefinitions.get(i);
+            beanDefinition.setIndex(i);
+            Set<Class<?>> types = new LinkedHashSet<>();
+            if (interfaceProxied.contains(beanDefinition.getBeanClass())) {
+                interfaceProxies.put(beanDefinition.getBeanClass(), beanDefinition);
+                for (Class<?> anInterface : beanDefinition.getBeanClass().getInterfaces()) {
+                    collectTypes(anInterface, types);
+                }
+            } else {
+                byClass.put(beanDefinition.getBeanClass(), beanDefinition);
+                for (Class<?> type = beanDefinition.getBeanClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+                    collectTypes(type, types);
+                }
+            }
+            BeanDefinition sameName = byName.putIfAbsent(beanDefinition.getName(), beanDefinition);
+            if (sameName != null) {
+                throw new IllegalStateException("Bean name '" + beanDefinition.getName() + "' is used by both "
+                        + sameName.getBeanClass().getName() + " and " + beanDefinition.getBeanClass().getName());
+            }
+            for (Class<?> type : types) {
+                candidates.computeIfAbsent(type, t -> new ArrayList<>()).add(beanDefinition);
+            }
+        }
+        for (Map.Entry<Class<?>, List<BeanDefinition>> entry : candidates.entrySet()) {
+            entry.setValue(List.copyOf(entry.getValue()));
+            BeanDefinition single = findSingle(entry.getValue());
+            if (single != null) {
+                unique.put(entry.getKey(), single);
+            }
+        }
+    }
+
+    private static void collectTypes(Class<?> type, Set<Class<?>> types) {
+        if (types.add(type)) {
+            for (Class<?> anInterface : type.getInterfaces()) {
+                collectTypes(anInterface, types);
+            }
+        }
+    }
+
+    private static BeanDefinition findSingle(List<BeanDefinition> definitions) {
+        if (definitions.size() == 1) {
+            return definitions.get(0);
+        }
+        BeanDefinition primary = null;
+        for (BeanDefinition beanDefinition : definitions) {
+            if (beanDefinition.isPrimary()) {
+                if (primary != null) {
+                    return null;
+                }
+                primary = beanDefinition;
+            }
+        }
+        return primary;
+    }
+
+    List<BeanDefinition> getBeanDefinitions() {
+        return beanDefinitions;
+    }
+
+    /**
+     * The bean to use where one bean of the given type is wanted: the bean with that name if a qualifier is given,
+     * otherwise the bean of exactly that class, or else the only or primary bean assignable to it. Null if there
+     * is no such bean or the choice is ambiguous.
+     */
+    BeanDefinition find(Class<?> type, String qualifier) {
+        if (qualifier != null) {
+            BeanDefinition named = byName.get(qualifier);
+            return named != null && getCandidates(type).contains(named) ? named : null;
+        }
+        BeanDefinition exact = byClass.get(type);
+        return exact != null ? exact : unique.get(type);
+    }
+
+    // The bean of exactly this class if its proxy only implements the class's interfaces, otherwise null
+    BeanDefinition findInterfaceProxied(Class<?> beanClass) {
+        return interfaceProxies.get(beanClass);
+    }
+
+    // Every bean assignable to type, in injection order
+    List<BeanDefinition> getCandidates(Class<?> type) {
+        return candidates.getOrDefault(type, List.of());
+    }
+
+    // The beans an injection point refers to, for ordering creation
+    List<BeanDefinition> resolve(BeanCreationPlan.Dependency dependency) {
+        if (dependency.getKind() == BeanCreationPlan.Dependency.Kind.VALUE) {
+            return List.of();
+        }
+        if (dependency.getKind() != BeanCreationPlan.Dependency.Kind.SINGLE) {
+            return getCandidates(dependency.getType());
+        }
+        BeanDefinition beanDefinition = find(dependency.getType(), dependency.getQualifier());
+        return beanDefinition != null ? List.of(beanDefinition) : List.of();
+    }
+}
@@ -2,11 +2,15 @@ package com.example.src;
 
 import com.example.annotation.Component;
 import com.example.annotation.PreDestroy;
+import com.example.annotation.Value;
 
 @Component
 public class LoggerService {
+    @Value("${logger.prefix:LOG}")
+    String prefix;
+
     public void log(String message) {
-        System.out.println("LOG: " + message);
+        System.out.println(prefix + ": " + message);
     }
 
     @PreDestroy
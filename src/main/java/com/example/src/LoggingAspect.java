@@ -2,11 +2,12 @@ package com.example.src;
 
 import com.example.annotation.aop.Aspect;
 import com.example.annotation.aop.Before;
+import com.example.annotation.aop.JoinPoint;
 
 @Aspect
 public class LoggingAspect {
-    @Before("com.example.UserServiceInterface.processData")
-    public static void logBeforeProcessing() {
-        System.out.println("Before UserService.processData() is called.");
+    @Before("com.example..UserServiceInterface.processData")
+    public void logBeforeProcessing(JoinPoint joinPoint) {
+        System.out.println("Before UserService." + joinPoint.getMethod().getName() + "() is called.");
     }
 }
\ No newline at end of file
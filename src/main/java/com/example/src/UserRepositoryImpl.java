@@ -1,5 +1,6 @@
 package com.example.src;
 
+import com.example.annotation.Cacheable;
 import com.example.annotation.Component;
 import com.example.annotation.PostConstruct;
 import com.example.annotation.PreDestroy;
@@ -12,6 +13,7 @@ public class UserRepositoryImpl implements UserRepository {
         System.out.println("UserRepository initialized.");
     }
 
+    @Cacheable("userData")
     public String getData(String id) {
         return "Data from UserRepository > " + id;
     }
@@ -6,18 +6,18 @@ import com.example.annotation.*;
 @Scope("prototype")
 @Service
 public class UserService implements UserServiceInterface {
-    private final UserRepositoryImpl userRepositoryImpl;
+    private final UserRepository userRepository;
     private final LoggerService loggerService;
 
     @Autowired
-    public UserService(UserRepositoryImpl userRepositoryImpl, LoggerService loggerService) {
-        this.userRepositoryImpl = userRepositoryImpl;
+    public UserService(UserRepository userRepository, LoggerService loggerService) {
+        this.userRepository = userRepository;
         this.loggerService = loggerService;
         this.loggerService.log("UserService created.");
     }
 
     public void processData() {
-        String data = userRepositoryImpl.getData("1");
+        String data = userRepository.getData("1");
         System.out.println("UserService processing: " + data);
         loggerService.log("Data processed: " + data);
     }
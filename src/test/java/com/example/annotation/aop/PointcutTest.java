@@ -0,0 +1,64 @@
+package com.example.annotation.aop;
+
+import com.example.src.UserService;
+import com.example.src.UserServiceInterface;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PointcutTest {
+    static class Ledger {
+        public int total$net() {
+            return 0;
+        }
+
+        public int totalXnet() {
+            return 0;
+        }
+
+        public int total() {
+            return 0;
+        }
+    }
+
+    @Test
+    void packageWithoutTypeMatchesTypesAtAnyDepth() throws Exception {
+        Method processData = UserServiceInterface.class.getMethod("processData");
+        assertTrue(Pointcut.parse("com.example..processData").matches(UserService.class, processData));
+        assertTrue(Pointcut.parse("com..processData").matches(UserService.class, processData));
+        assertFalse(Pointcut.parse("org.example..processData").matches(UserService.class, processData));
+    }
+
+    @Test
+    void doubleDotsBetweenPackagesMatchAnyNumberOfThem() throws Exception {
+        Method processData = UserServiceInterface.class.getMethod("processData");
+        assertTrue(Pointcut.parse("com.example..UserServiceInterface.processData").matches(UserService.class, processData));
+        assertTrue(Pointcut.parse("com..src.UserService.processData").matches(UserService.class, processData));
+        assertFalse(Pointcut.parse("com.example.UserService.processData").matches(UserService.class, processData));
+    }
+
+    @Test
+    void methodNamesAreLiteralExceptForWildcards() throws Exception {
+        Method dollar = Ledger.class.getMethod("total$net");
+        Method letter = Ledger.class.getMethod("totalXnet");
+        Method plain = Ledger.class.getMethod("total");
+        Pointcut exact = Pointcut.parse("com.example..PointcutTest$Ledger.total$net");
+        assertTrue(exact.matches(Ledger.class, dollar));
+        assertFalse(exact.matches(Ledger.class, letter));
+        Pointcut wildcard = Pointcut.parse("com.example..PointcutTest$Ledger.total*");
+        assertTrue(wildcard.matches(Ledger.class, dollar));
+        assertTrue(wildcard.matches(Ledger.class, plain));
+        assertFalse(Pointcut.parse("com.example..PointcutTest$Ledger.tot.l").matches(Ledger.class, plain));
+    }
+
+    @Test
+    void rejectsMisplacedDoubleDots() {
+        for (String expression : new String[] {"com..", "..Service.run", "com...run", "com.X.run(.., String)", "com.X.run(java..String)"}) {
+            assertThrows(IllegalArgumentException.class, () -> Pointcut.parse(expression), expression);
+        }
+    }
+}
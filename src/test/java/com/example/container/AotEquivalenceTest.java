@@ -0,0 +1,295 @@
+package com.example.container;
+
+import com.example.fixtures.aot.AuditAspect;
+import com.example.fixtures.aot.CachedInventory;
+import com.example.fixtures.aot.Clock;
+import com.example.fixtures.aot.FinalPricing;
+import com.example.fixtures.aot.Inventory;
+import com.example.fixtures.aot.PriceChecked;
+import com.example.fixtures.aot.Pricing;
+import com.example.fixtures.aot.Shipping;
+import com.example.fixtures.aot.Tracked;
+import com.example.fixtures.aotinit.FailingCheckedInit;
+import com.example.fixtures.aotinit.FailingInit;
+import com.example.src.UserRepository;
+import com.example.src.UserRepositoryImpl;
+import com.example.src.UserService;
+import com.example.src.UserServiceInterface;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the same package once by scanning and once from a registry generated, compiled and loaded in-process by
+ * {@link AotGenerator}, and checks that both modes expose the same beans under the same types, proxy them the same
+ * way (subclass, interface-only or not at all) and in the same {@code @Order}, run advice, cache lookups and event
+ * listeners in the same order with the same results, and fail a bean whose {@code @PostConstruct} method throws with
+ * the same exception.
+ * <p>
+ * Generated classes are defined next to the beans they belong to, so they can reach package-private members as they
+ * do when compiled into the build. Needs a JDK, for the compiler.
+ */
+class AotEquivalenceTest {
+    private static final String BEAN_PACKAGE = "com.example.fixtures.aot";
+    private static final String INIT_PACKAGE = "com.example.fixtures.aotinit";
+    private static final String SAMPLE_PACKAGE = "com.example.src";
+    private static final String SHUTDOWN = "-- shutdown --";
+    private static final List<Class<?>> LOOKUP_TYPES = List.of(
+            Inventory.class, Pricing.class, Tracked.class, CachedInventory.class, FinalPricing.class, Clock.class, Shipping.class, AuditAspect.class);
+
+    @TempDir
+    static Path workDirectory;
+
+    private static AotBeanRegistry registry;
+    private static AotBeanRegistry initRegistry;
+    private static AotBeanRegistry sampleRegistry;
+
+    @BeforeAll
+    static void generateRegistries() throws Exception {
+        registry = compileRegistry(BEAN_PACKAGE, "AotTestRegistry", CachedInventory.class);
+        initRegistry = compileRegistry(INIT_PACKAGE, "AotTestInitRegistry", FailingInit.class);
+        sampleRegistry = compileRegistry(SAMPLE_PACKAGE, "AotTestSampleRegistry", UserRepositoryImpl.class);
+    }
+
+    @Test
+    void sameBeansUnderEveryType() throws Exception {
+        BeanFactory scanned = new BeanFactory(BEAN_PACKAGE);
+        BeanFactory generated = new BeanFactory(registry);
+        try {
+            for (Class<?> type : LOOKUP_TYPES) {
+                assertEquals(describeBeans(scanned, type), describeBeans(generated, type), "beans of type " + type.getSimpleName());
+            }
+            assertEquals(lookupOutcome(scanned, FinalPricing.class), lookupOutcome(generated, FinalPricing.class), "getBean(FinalPricing.class)");
+        } finally {
+            scanned.shutdown();
+            generated.shutdown();
+        }
+    }
+
+    @Test
+    void proxyKinds() throws Exception {
+        BeanFactory scanned = new BeanFactory(BEAN_PACKAGE);
+        try {
+            assertEquals("{cachedInventory=subclass proxy}", describeBeans(scanned, Inventory.class));
+            assertEquals("{finalPricing=interface proxy}", describeBeans(scanned, Pricing.class));
+            assertEquals("{clock=instance}", describeBeans(scanned, Clock.class));
+            assertEquals("{shipping=subclass proxy}", describeBeans(scanned, Shipping.class));
+            assertEquals("{}", describeBeans(scanned, FinalPricing.class), "FinalPricing is not available by its class");
+        } finally {
+            scanned.shutdown();
+        }
+    }
+
+    @Test
+    void subclassProxiesDoNotRunTheBeanConstructorAgain() throws Exception {
+        for (AotBeanRegistry source : new AotBeanRegistry[]{null, registry}) {
+            CachedInventory.constructed.set(0);
+            Shipping.constructed.set(0);
+            BeanFactory factory = source == null ? new BeanFactory(BEAN_PACKAGE) : new BeanFactory(source);
+            try {
+                String mode = source == null ? "scanned" : "generated";
+                assertEquals("plum shipped at 1", factory.getBean(Shipping.class).ship("plum"), mode);
+                assertEquals(1, CachedInventory.constructed.get(), mode + " CachedInventory constructor calls");
+                assertEquals(1, Shipping.constructed.get(), mode + " Shipping constructor calls");
+            } finally {
+                factory.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void sameCandidateOrder() throws Exception {
+        BeanFactory scanned = new BeanFactory(BEAN_PACKAGE);
+        BeanFactory generated = new BeanFactory(registry);
+        try {
+            // By @Order of the class, then unordered
+            assertEquals(List.of("clock", "cachedInventory", "finalPricing"), List.copyOf(scanned.getBeansOfType(Tracked.class).keySet()));
+            assertEquals(List.copyOf(scanned.getBeansOfType(Tracked.class).keySet()), List.copyOf(generated.getBeansOfType(Tracked.class).keySet()));
+        } finally {
+            scanned.shutdown();
+            generated.shutdown();
+        }
+    }
+
+    @Test
+    void sameAdviceCacheAndListenerBehaviour() throws Exception {
+        BeanFactory scanned = new BeanFactory(BEAN_PACKAGE);
+        BeanFactory generated = new BeanFactory(registry);
+        try {
+            String scannedRun = exercise(scanned);
+            // Listeners by @Order of the method, else of the class
+            assertTrue(scannedRun.contains("inventory heard plum, clock heard plum, pricing heard plum"), scannedRun);
+            assertEquals(scannedRun, exercise(generated));
+        } finally {
+            scanned.shutdown();
+            generated.shutdown();
+        }
+    }
+
+    @Test
+    void sameInitFailures() throws Exception {
+        BeanFactory scanned = new BeanFactory(INIT_PACKAGE, true);
+        BeanFactory generated = new BeanFactory(initRegistry, true, ContainerMetrics.NONE);
+        try {
+            for (Class<?> type : List.of(FailingInit.class, FailingCheckedInit.class)) {
+                String outcome = lookupOutcome(scanned, type);
+                assertNotEquals("found", outcome, "getBean(" + type.getSimpleName() + ")");
+                assertEquals(outcome, lookupOutcome(generated, type), "getBean(" + type.getSimpleName() + ")");
+                // Not cached half-initialized by the first attempt
+                assertEquals(outcome, lookupOutcome(scanned, type), "second getBean(" + type.getSimpleName() + ")");
+                assertEquals(outcome, lookupOutcome(generated, type), "second getBean(" + type.getSimpleName() + ") from the registry");
+            }
+        } finally {
+            scanned.shutdown();
+            generated.shutdown();
+        }
+    }
+
+    @Test
+    void sampleApplicationRunsTheSame() throws Exception {
+        PropertySource properties = PropertySource.of(Map.of("logger.prefix", "SAMPLE"));
+        String scanned = runSample(() -> new BeanFactory(SAMPLE_PACKAGE, false, ContainerMetrics.NONE, List.of(), properties));
+        String generated = runSample(() -> new BeanFactory(sampleRegistry, false, ContainerMetrics.NONE, properties));
+        // @Value resolved, processData advised, getData cached, @PreDestroy run on shutdown
+        for (String expected : List.of("UserServiceInterface: subclass proxy", "SAMPLE: UserService created.",
+                "Before UserService.processData() is called.", "userData hits=1 misses=1", "UserRepository is being destroyed.",
+                "LoggerService shutting down.")) {
+            assertTrue(scanned.contains(expected), "Expected " + expected + " in:\n" + scanned);
+        }
+        assertEquals(scanned, generated);
+    }
+
+    private interface SampleBoot {
+        BeanFactory start() throws Exception;
+    }
+
+    /**
+     * What the sample prints from startup to shutdown, without the container's own log lines, which name the mode.
+     * Beans that do not depend on each other are destroyed in parallel, so the shutdown lines are sorted.
+     */
+    private static String runSample(SampleBoot boot) throws Exception {
+        PrintStream out = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true));
+        try {
+            BeanFactory factory = boot.start();
+            try {
+                UserServiceInterface userService = factory.getBean(UserServiceInterface.class);
+                System.out.println("UserServiceInterface: " + (!(userService instanceof UserService) ? "interface proxy"
+                        : userService.getClass() != UserService.class ? "subclass proxy" : "instance"));
+                System.out.println("getBean(UserService.class): " + lookupOutcome(factory, UserService.class));
+                userService.processData();
+                factory.getBean(UserRepository.class).getData("1");
+                CacheStats stats = factory.getCacheStats("userData");
+                System.out.println("userData hits=" + stats.getHits() + " misses=" + stats.getMisses());
+            } finally {
+                System.out.println(SHUTDOWN);
+                factory.shutdown();
+            }
+        } finally {
+            System.setOut(out);
+        }
+        List<String> lines = captured.toString().lines()
+                .filter(line -> !line.matches("(TRACE|DEBUG|INFO|WARN|ERROR) .*"))
+                .collect(Collectors.toList());
+        int shutdown = lines.indexOf(SHUTDOWN);
+        lines.subList(shutdown + 1, lines.size()).sort(null);
+        return String.join("\n", lines);
+    }
+
+    // Bean names and how each instance relates to its bean class, sorted by name
+    private static String describeBeans(BeanFactory factory, Class<?> type) throws Exception {
+        Map<String, String> beans = new TreeMap<>();
+        for (Map.Entry<String, ?> entry : factory.getBeansOfType(type).entrySet()) {
+            Object bean = entry.getValue();
+            Class<?> beanClass = LOOKUP_TYPES.stream()
+                    .filter(candidate -> !candidate.isInterface() && candidate.getSimpleName().equalsIgnoreCase(entry.getKey()))
+                    .findFirst()
+                    .orElseThrow(() -> new AssertionError("Unexpected bean " + entry.getKey()));
+            beans.put(entry.getKey(), !beanClass.isInstance(bean) ? "interface proxy"
+                    : bean.getClass() != beanClass ? "subclass proxy" : "instance");
+        }
+        return beans.toString();
+    }
+
+    private static String lookupOutcome(BeanFactory factory, Class<?> type) {
+        try {
+            factory.getBean(type);
+            return "found";
+        } catch (Exception e) {
+            Throwable cause = e.getCause();
+            return e.getClass().getSimpleName() + (cause != null ? " caused by " + cause : ": " + e.getMessage());
+        }
+    }
+
+    // Calls every advised method twice and publishes an event, and returns the results, the recorded calls and the cache counters
+    private static String exercise(BeanFactory factory) throws Exception {
+        AuditAspect.events.clear();
+        Pricing pricing = factory.getBean(Pricing.class);
+        Inventory inventory = factory.getBean(Inventory.class);
+        Shipping shipping = factory.getBean(Shipping.class);
+        List<Object> results = List.of(pricing.price("apple"), pricing.price("apple"), inventory.count("pear"), inventory.count("pear"),
+                shipping.ship("fig"));
+        factory.publishEvent(new PriceChecked("plum"));
+        CacheStats stats = factory.getCacheStats("inventory");
+        return results + " " + AuditAspect.events + " hits=" + stats.getHits() + " misses=" + stats.getMisses();
+    }
+
+    private static AotBeanRegistry compileRegistry(String basePackage, String registrySimpleName, Class<?> beanInPackage) throws Exception {
+        String registryClassName = AotEquivalenceTest.class.getPackageName() + "." + registrySimpleName;
+        Path sourceDirectory = workDirectory.resolve(registrySimpleName).resolve("src");
+        Path classDirectory = workDirectory.resolve(registrySimpleName).resolve("classes");
+        List<String> arguments = new ArrayList<>(List.of("-proc:none", "-classpath", System.getProperty("java.class.path"),
+                "-d", classDirectory.toString()));
+        for (Map.Entry<String, String> source : new AotGenerator(basePackage, registryClassName).generate().entrySet()) {
+            Path file = sourceDirectory.resolve(source.getKey().replace('.', '/') + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue());
+            arguments.add(file.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(compiler, "AotEquivalenceTest needs a JDK to compile the generated registry");
+        assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[0])),
+                "Generated sources for " + basePackage + " do not compile");
+
+        // Nested proxy classes first, so their outer classes find them when they are linked
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(classDirectory)) {
+            classFiles = files.filter(file -> file.toString().endsWith(".class"))
+                    .sorted(Comparator.comparing((Path file) -> !file.getFileName().toString().contains("$")).thenComparing(Path::toString))
+                    .collect(Collectors.toList());
+        }
+        MethodHandles.Lookup beanLookup = MethodHandles.privateLookupIn(beanInPackage, MethodHandles.lookup());
+        Class<?> registryClass = null;
+        for (Path classFile : classFiles) {
+            String className = classDirectory.relativize(classFile).toString().replace('/', '.').replaceAll("\\.class$", "");
+            MethodHandles.Lookup lookup = className.startsWith(basePackage + ".") ? beanLookup : MethodHandles.lookup();
+            Class<?> defined = lookup.defineClass(Files.readAllBytes(classFile));
+            if (className.equals(registryClassName)) {
+                registryClass = defined;
+            }
+        }
+        assertNotNull(registryClass, "No " + registryClassName + " in " + classDirectory);
+        return (AotBeanRegistry) registryClass.getDeclaredConstructor().newInstance();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.container;
+
+import com.example.fixtures.cache.CachedDirectory;
+import com.example.fixtures.cache.Directory;
+import com.example.fixtures.cache.DirectoryClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Looks up a {@code @Cacheable} bean that implements an interface by its class, by the interface and through a
+ * field typed with its class, and checks that all three are the same caching proxy.
+ */
+class CachedBeanLookupTest {
+    private BeanFactory factory;
+
+    @BeforeEach
+    void start() {
+        factory = new BeanFactory("com.example.fixtures.cache");
+    }
+
+    @AfterEach
+    void stop() {
+        factory.shutdown();
+    }
+
+    @Test
+    void classInterfaceAndFieldShareTheCachingProxy() throws Exception {
+        CachedDirectory byClass = factory.getBean(CachedDirectory.class);
+        assertSame(byClass, factory.getBean(Directory.class));
+        assertSame(byClass, factory.getBean(DirectoryClient.class).getDirectory());
+    }
+
+    @Test
+    void secondCallIsACacheHit() throws Exception {
+        CachedDirectory directory = factory.getBean(CachedDirectory.class);
+        assertEquals("entry-7", directory.lookup("7"));
+        assertEquals("entry-7", directory.lookup("7"));
+        CacheStats stats = factory.getCacheStats("directory");
+        assertEquals(1, stats.getMisses(), "misses");
+        assertEquals(1, stats.getHits(), "hits");
+    }
+}
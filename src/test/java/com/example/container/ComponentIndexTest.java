@@ -0,0 +1,93 @@
+package com.example.container;
+
+import com.example.fixtures.partial.IndexedPart;
+import com.example.fixtures.partial.UnindexedPart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Splits one package over two classpath directories, only one of which has a component index, and checks that the
+ * container registers the components of both: the index for its own directory, a scan for the other.
+ */
+class ComponentIndexTest {
+    private static final String PACKAGE = "com.example.fixtures.partial";
+
+    @TempDir
+    Path workDirectory;
+
+    @Test
+    void packageSplitOverIndexedAndUnindexedDirectoriesIsFullyRegistered() throws Exception {
+        Path indexed = workDirectory.resolve("indexed");
+        Path unindexed = workDirectory.resolve("unindexed");
+        copyClass(IndexedPart.class, indexed);
+        copyClass(UnindexedPart.class, unindexed);
+        Path index = indexed.resolve(ComponentIndex.INDEX_LOCATION);
+        Files.createDirectories(index.getParent());
+        Files.writeString(index, IndexedPart.class.getName() + "=" + ComponentIndex.COMPONENT + "\n");
+
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try (PackageLoader loader = new PackageLoader(new URL[]{indexed.toUri().toURL(), unindexed.toUri().toURL()})) {
+            thread.setContextClassLoader(loader);
+            BeanFactory factory = new BeanFactory(PACKAGE);
+            try {
+                for (Class<?> part : List.of(IndexedPart.class, UnindexedPart.class)) {
+                    Class<?> loaded = loader.loadClass(part.getName());
+                    assertEquals(loaded, factory.getBean(loaded).getClass(), part.getSimpleName());
+                }
+            } finally {
+                factory.shutdown();
+            }
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private static void copyClass(Class<?> type, Path root) throws IOException {
+        String name = type.getName().replace('.', '/') + ".class";
+        Path target = root.resolve(name);
+        Files.createDirectories(target.getParent());
+        try (InputStream in = type.getClassLoader().getResourceAsStream(name)) {
+            Files.copy(in, target);
+        }
+    }
+
+    // Defines the fixture package from its own directories and finds resources only there; the container comes from the parent
+    private static final class PackageLoader extends URLClassLoader {
+        PackageLoader(URL[] roots) {
+            super(roots, ComponentIndexTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(PACKAGE + ".")) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> type = findLoadedClass(name);
+                return type != null ? type : findClass(name);
+            }
+        }
+
+        @Override
+        public URL getResource(String name) {
+            return findResource(name);
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            return findResources(name);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.container;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Borrows from a {@link PooledScope} with a {@code maxTotal} of two, and checks that a third borrower fails at once
+ * without {@code maxWait} and otherwise gets the first instance returned while it waits, and that a failed creation
+ * does not use up a place.
+ */
+class PooledScopeTest {
+    private final AtomicInteger created = new AtomicInteger();
+
+    private final BeanScope.ObjectFactory objectFactory = new BeanScope.ObjectFactory() {
+        @Override
+        public Object create() {
+            return "instance " + created.incrementAndGet();
+        }
+
+        @Override
+        public void destroy(Object bean) {
+        }
+    };
+
+    @Test
+    void exhaustedPoolFailsWithoutMaxWait() throws Exception {
+        PooledScope scope = new PooledScope(2, Duration.ofMinutes(1), 2, Duration.ZERO);
+        Object first = scope.get(String.class, objectFactory);
+        scope.get(String.class, objectFactory);
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> scope.get(String.class, objectFactory));
+        assertEquals("Pool of java.lang.String is exhausted: 2 instances borrowed, none returned within 0 ms", e.getMessage());
+
+        scope.release(String.class, first);
+        assertSame(first, scope.get(String.class, objectFactory));
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void exhaustedPoolWaitsForAReturnedInstance() throws Exception {
+        PooledScope scope = new PooledScope(2, Duration.ofMinutes(1), 2, Duration.ofSeconds(10));
+        Object first = scope.get(String.class, objectFactory);
+        scope.get(String.class, objectFactory);
+        CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return scope.get(String.class, objectFactory);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50); // Lets the waiter block first, though it gets the same instance if it has not
+        scope.release(String.class, first);
+        assertSame(first, waiter.get(10, TimeUnit.SECONDS));
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void failedCreationGivesItsPlaceBack() throws Exception {
+        PooledScope scope = new PooledScope(2, Duration.ofMinutes(1), 1, Duration.ZERO);
+        BeanScope.ObjectFactory failing = new BeanScope.ObjectFactory() {
+            @Override
+            public Object create() {
+                throw new IllegalArgumentException("cannot create");
+            }
+
+            @Override
+            public void destroy(Object bean) {
+            }
+        };
+        assertThrows(IllegalArgumentException.class, () -> scope.get(String.class, failing));
+        assertEquals("instance 1", scope.get(String.class, objectFactory));
+    }
+}
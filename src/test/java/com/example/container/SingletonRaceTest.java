@@ -0,0 +1,82 @@
+package com.example.container;
+
+import com.example.fixtures.race.RacedDependency;
+import com.example.fixtures.race.RacedSingleton;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.RepeatedTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Races the first {@code getBean} of a lazily created singleton from many threads, on a fresh lazy-init container
+ * per round, and checks that every thread got the same instance and the bean and its dependency were each
+ * constructed and initialized once. Covers the lock-free read of created singletons and the per-bean creation
+ * locks behind it.
+ */
+class SingletonRaceTest {
+    private static final int THREADS = 16;
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void startThreads() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterAll
+    static void stopThreads() {
+        executor.shutdownNow();
+    }
+
+    @RepeatedTest(200)
+    void racedSingletonIsCreatedOnce() throws Exception {
+        RacedSingleton.constructed.set(0);
+        RacedSingleton.initialized.set(0);
+        RacedDependency.initialized.set(0);
+        BeanFactory factory = new BeanFactory("com.example.fixtures.race", true);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Object> singletons = ConcurrentHashMap.newKeySet();
+        Set<Object> dependencies = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            // Every other thread starts from the dependency, so both beans are raced from both ends
+            boolean singletonFirst = i % 2 == 0;
+            futures.add(executor.submit((Callable<Void>) () -> {
+                start.await();
+                if (singletonFirst) {
+                    RacedSingleton singleton = factory.getBean(RacedSingleton.class);
+                    singletons.add(singleton);
+                    dependencies.add(singleton.getDependency());
+                } else {
+                    dependencies.add(factory.getBean(RacedDependency.class));
+                    singletons.add(factory.getBean(RacedSingleton.class));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            factory.shutdown();
+        }
+        assertEquals(1, singletons.size(), "RacedSingleton instances");
+        assertEquals(1, dependencies.size(), "RacedDependency instances");
+        assertEquals(1, RacedSingleton.constructed.get(), "RacedSingleton constructor calls");
+        assertEquals(1, RacedSingleton.initialized.get(), "RacedSingleton @PostConstruct calls");
+        assertEquals(1, RacedDependency.initialized.get(), "RacedDependency @PostConstruct calls");
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.fixtures.aot;
+
+import com.example.annotation.aop.After;
+import com.example.annotation.aop.Around;
+import com.example.annotation.aop.Aspect;
+import com.example.annotation.aop.Before;
+import com.example.annotation.aop.ProceedingJoinPoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Records advice and target calls in the order they run, for AotEquivalenceTest to compare between modes
+@Aspect
+public class AuditAspect {
+    public static final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @Around("com.example.fixtures.aot.FinalPricing.price")
+    public Object aroundPrice(ProceedingJoinPoint joinPoint) throws Throwable {
+        events.add("around price");
+        return joinPoint.proceed();
+    }
+
+    @After("com.example.fixtures.aot.FinalPricing.price")
+    public void afterPrice() {
+        events.add("after price");
+    }
+
+    @Before("com.example.fixtures.aot.CachedInventory.count")
+    public void beforeCount() {
+        events.add("before count");
+    }
+
+    @Before("com.example.fixtures.aot.Shipping.ship")
+    public void beforeShip() {
+        events.add("before ship");
+    }
+}
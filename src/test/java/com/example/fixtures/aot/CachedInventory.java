@@ -0,0 +1,32 @@
+package com.example.fixtures.aot;
+
+import com.example.annotation.Cacheable;
+import com.example.annotation.Component;
+import com.example.annotation.EventListener;
+import com.example.annotation.Order;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Advised and cached, and can be subclassed: both modes give it a subclass proxy
+@Component
+@Order(2)
+public class CachedInventory implements Inventory, Tracked {
+    public static final AtomicInteger constructed = new AtomicInteger();
+
+    public CachedInventory() {
+        constructed.incrementAndGet();
+    }
+
+    @Cacheable("inventory")
+    public int count(String item) {
+        AuditAspect.events.add("count " + item);
+        return item.length();
+    }
+
+    // Ordered by the method, ahead of the class orders
+    @EventListener
+    @Order(0)
+    public void onPriceChecked(PriceChecked event) {
+        AuditAspect.events.add("inventory heard " + event.getItem());
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.fixtures.aot;
+
+import com.example.annotation.Component;
+import com.example.annotation.EventListener;
+import com.example.annotation.Order;
+import com.example.annotation.PostConstruct;
+
+// Not advised, so both modes hand out the instance itself
+@Component
+@Order(1)
+public class Clock implements Tracked {
+    long started;
+
+    @PostConstruct
+    void start() {
+        started = 1;
+    }
+
+    // Ordered by the class
+    @EventListener
+    void onPriceChecked(PriceChecked event) {
+        AuditAspect.events.add("clock heard " + event.getItem());
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.fixtures.aot;
+
+import com.example.annotation.Autowired;
+import com.example.annotation.Component;
+import com.example.annotation.EventListener;
+
+// Advised but final: both modes proxy it through Pricing only, and call its listener on the target
+@Component
+public final class FinalPricing implements Pricing, Tracked {
+    @Autowired
+    Inventory inventory;
+
+    public int price(String item) {
+        AuditAspect.events.add("price " + item);
+        return 10 * inventory.count(item);
+    }
+
+    // Unordered, so it hears events last
+    @EventListener
+    void onPriceChecked(PriceChecked event) {
+        AuditAspect.events.add("pricing heard " + event.getItem());
+    }
+}
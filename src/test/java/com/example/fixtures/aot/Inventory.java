@@ -0,0 +1,5 @@
+package com.example.fixtures.aot;
+
+public interface Inventory {
+    int count(String item);
+}
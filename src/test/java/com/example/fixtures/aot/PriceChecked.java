@@ -0,0 +1,13 @@
+package com.example.fixtures.aot;
+
+public final class PriceChecked {
+    private final String item;
+
+    public PriceChecked(String item) {
+        this.item = item;
+    }
+
+    public String getItem() {
+        return item;
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.fixtures.aot;
+
+public interface Pricing {
+    int price(String item);
+}
@@ -0,0 +1,24 @@
+package com.example.fixtures.aot;
+
+import com.example.annotation.Autowired;
+import com.example.annotation.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Advised, without interfaces and with only an @Autowired constructor: both modes still give it a subclass proxy
+@Component
+public class Shipping {
+    public static final AtomicInteger constructed = new AtomicInteger();
+
+    private final Clock clock;
+
+    @Autowired
+    public Shipping(Clock clock) {
+        this.clock = clock;
+        constructed.incrementAndGet();
+    }
+
+    public String ship(String item) {
+        return item + " shipped at " + clock.started;
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.fixtures.aot;
+
+// Implemented by beans with different @Order values, so both modes have to list them in the same order
+public interface Tracked {
+}
@@ -0,0 +1,14 @@
+package com.example.fixtures.aotinit;
+
+import com.example.annotation.Component;
+import com.example.annotation.PostConstruct;
+
+import java.io.IOException;
+
+@Component
+public class FailingCheckedInit {
+    @PostConstruct
+    void init() throws IOException {
+        throw new IOException("FailingCheckedInit cannot start");
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.fixtures.aotinit;
+
+import com.example.annotation.Component;
+import com.example.annotation.PostConstruct;
+
+@Component
+public class FailingInit {
+    @PostConstruct
+    void init() {
+        throw new IllegalStateException("FailingInit cannot start");
+    }
+}
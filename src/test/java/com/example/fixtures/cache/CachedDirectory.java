@@ -0,0 +1,13 @@
+package com.example.fixtures.cache;
+
+import com.example.annotation.Cacheable;
+import com.example.annotation.Component;
+
+// Has an interface, but can be subclassed, so it is also available by its class
+@Component
+public class CachedDirectory implements Directory {
+    @Cacheable("directory")
+    public String lookup(String id) {
+        return "entry-" + id;
+    }
+}
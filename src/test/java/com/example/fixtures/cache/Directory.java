@@ -0,0 +1,5 @@
+package com.example.fixtures.cache;
+
+public interface Directory {
+    String lookup(String id);
+}
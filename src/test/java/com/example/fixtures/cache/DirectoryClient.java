@@ -0,0 +1,15 @@
+package com.example.fixtures.cache;
+
+import com.example.annotation.Autowired;
+import com.example.annotation.Component;
+
+// Injects the cached bean by its class rather than its interface
+@Component
+public class DirectoryClient {
+    @Autowired
+    private CachedDirectory directory;
+
+    public CachedDirectory getDirectory() {
+        return directory;
+    }
+}
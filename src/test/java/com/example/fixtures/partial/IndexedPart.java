@@ -0,0 +1,8 @@
+package com.example.fixtures.partial;
+
+import com.example.annotation.Component;
+
+// ComponentIndexTest puts this class next to an index file that lists it
+@Component
+public class IndexedPart {
+}
@@ -0,0 +1,8 @@
+package com.example.fixtures.partial;
+
+import com.example.annotation.Component;
+
+// ComponentIndexTest puts this class in a directory without an index file, like a jar built without the processor
+@Component
+public class UnindexedPart {
+}
@@ -0,0 +1,17 @@
+package com.example.fixtures.race;
+
+import com.example.annotation.Component;
+import com.example.annotation.PostConstruct;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Requested directly by some threads while others reach it through RacedSingleton's injection
+@Component
+public class RacedDependency {
+    public static final AtomicInteger initialized = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        initialized.incrementAndGet();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.fixtures.race;
+
+import com.example.annotation.Autowired;
+import com.example.annotation.Component;
+import com.example.annotation.PostConstruct;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Slow to construct, so threads asking for it at the same time pile up on its creation lock
+@Component
+public class RacedSingleton {
+    public static final AtomicInteger constructed = new AtomicInteger();
+    public static final AtomicInteger initialized = new AtomicInteger();
+
+    @Autowired
+    private RacedDependency dependency;
+
+    public RacedSingleton() throws InterruptedException {
+        constructed.incrementAndGet();
+        Thread.sleep(5);
+    }
+
+    @PostConstruct
+    public void init() {
+        initialized.incrementAndGet();
+    }
+
+    public RacedDependency getDependency() {
+        return dependency;
+    }
+}